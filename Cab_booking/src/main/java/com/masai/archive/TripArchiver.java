@@ -0,0 +1,57 @@
+package com.masai.archive;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.repository.TripDao;
+
+/**
+ * 定期把结束超过保留天数的已付款行程搬到归档表，让 trip_booking 只留下进行中和近期的行程
+ * 每批一个事务，批与批之间不长时间持有锁；archive.horizon-days 为0时不归档
+ */
+@Component
+public class TripArchiver {
+
+	@Autowired
+	private TripDao tripDao;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${archive.horizon-days:90}")
+	private int horizonDays;
+
+	@Value("${archive.batch-size:500}")
+	private int batchSize;
+
+	@Value("${archive.max-batches:100}")
+	private int maxBatches;
+
+	@Scheduled(initialDelayString = "${archive.interval-ms:3600000}", fixedDelayString = "${archive.interval-ms:3600000}")
+	public void run() {
+		archiveBefore(LocalDate.now().minusDays(horizonDays));
+	}
+
+	/**
+	 * @return 本次归档的行数，单次最多 max-batches 批，剩下的留给下一轮
+	 */
+	public int archiveBefore(LocalDate before) {
+		if (horizonDays <= 0)
+			return 0;
+		int total = 0;
+		for (int i = 0; i < maxBatches; i++) {
+			LocalDateTime now = LocalDateTime.now();
+			Integer moved = transactionTemplate.execute(status -> tripDao.archiveCompleted(before, batchSize, now));
+			total += moved;
+			if (moved < batchSize)
+				break;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,95 @@
+package com.masai.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 短期有效的登录凭证缓存，按邮箱索引
+ * 只保存客户id和密码加盐后的摘要，不保存实体和明文；命中且摘要一致时返回客户id，调用方再按主键取客户
+ * 客户修改或删除时必须调用 invalidate
+ */
+@Component
+public class CredentialCache {
+
+	@Value("${auth.credential-cache.ttl-seconds:60}")
+	private long ttlSeconds;
+
+	@Value("${auth.credential-cache.max-size:100000}")
+	private int maxSize;
+
+	// 每个进程随机生成，摘要不会落盘也不能跨进程比对
+	private final byte[] salt = new byte[16];
+
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	public CredentialCache() {
+		new SecureRandom().nextBytes(salt);
+	}
+
+	/**
+	 * @return 邮箱和密码都匹配缓存时返回客户id，没缓存、已过期或密码不一致时返回null
+	 */
+	public Integer verify(String email, String password) {
+		if (email == null || password == null)
+			return null;
+		Entry entry = entries.get(email);
+		if (entry == null)
+			return null;
+		if (entry.expiresAt < System.currentTimeMillis()) {
+			entries.remove(email, entry);
+			return null;
+		}
+		return MessageDigest.isEqual(entry.digest, digest(password)) ? entry.userId : null;
+	}
+
+	public void put(String email, String password, Integer userId) {
+		if (email == null || password == null || ttlSeconds <= 0)
+			return;
+		if (entries.size() >= maxSize && !entries.containsKey(email)) {
+			purge();
+			if (entries.size() >= maxSize)
+				return;
+		}
+		entries.put(email, new Entry(digest(password), userId, System.currentTimeMillis() + ttlSeconds * 1000));
+	}
+
+	public void invalidate(String email) {
+		if (email != null)
+			entries.remove(email);
+	}
+
+	@Scheduled(fixedDelayString = "${auth.credential-cache.purge-ms:60000}")
+	public void purge() {
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> entry.expiresAt < now);
+	}
+
+	private byte[] digest(String password) {
+		try {
+			MessageDigest sha = MessageDigest.getInstance("SHA-256");
+			sha.update(salt);
+			return sha.digest(password.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class Entry {
+		private final byte[] digest;
+		private final Integer userId;
+		private final long expiresAt;
+
+		private Entry(byte[] digest, Integer userId, long expiresAt) {
+			this.digest = digest;
+			this.userId = userId;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.masai.auth;
+
+import java.util.Arrays;
+
+/**
+ * int到byte的开放寻址哈希表，线性探测，不装箱
+ * 值0表示不存在，所以槽位只看值是否为0，不需要额外的空键标记；删除时后移补位，不留墓碑
+ * 非线程安全，由调用方加锁
+ */
+public class IntByteMap {
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private int[] keys;
+
+	private byte[] values;
+
+	private int mask;
+
+	private int size;
+
+	public IntByteMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(8, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		keys = new int[capacity];
+		values = new byte[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return 不存在时返回0
+	 */
+	public byte get(int key) {
+		for (int i = slot(key); values[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key)
+				return values[i];
+		}
+		return 0;
+	}
+
+	/**
+	 * 放入非0的值，放0等同于删除
+	 * @return 旧值，之前不存在时返回0
+	 */
+	public byte put(int key, byte value) {
+		if (value == 0)
+			return remove(key);
+		int i = slot(key);
+		for (; values[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				byte previous = values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > keys.length * LOAD_FACTOR)
+			resize(keys.length << 1);
+		return 0;
+	}
+
+	/**
+	 * @return 被删除的值，不存在时返回0
+	 */
+	public byte remove(int key) {
+		int i = slot(key);
+		for (; values[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key)
+				break;
+		}
+		byte removed = values[i];
+		if (removed == 0)
+			return 0;
+		size--;
+		// 把后面因为冲突而探测过来的元素往前挪，保证查找链不断
+		int gap = i;
+		for (int j = (gap + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+			int home = slot(keys[j]);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+		}
+		values[gap] = 0;
+		return removed;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(values, (byte) 0);
+		size = 0;
+	}
+
+	private int slot(int key) {
+		// 主键基本连续，先打散再取模
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		byte[] oldValues = values;
+		keys = new int[capacity];
+		values = new byte[capacity];
+		mask = capacity - 1;
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != 0)
+				put(oldKeys[i], oldValues[i]);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.masai.auth;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.masai.entity.RevokedToken;
+import com.masai.repository.RevokedTokenDao;
+
+/**
+ * 已吊销但还没过期的令牌id，校验时只查内存
+ * 只有提前登出的令牌才会进来，令牌过期后自动清掉，所以列表很小；
+ * 各节点定期从 revoked_token 表同步其它节点的吊销记录
+ */
+@Component
+public class RevocationList {
+
+	@Autowired
+	private RevokedTokenDao revokedTokenDao;
+
+	@Value("${session.mode:stateful}")
+	private String mode;
+
+	// 令牌id -> 过期时间（epoch秒）
+	private final ConcurrentHashMap<Long, Long> revoked = new ConcurrentHashMap<>();
+
+	public boolean isRevoked(long tokenId) {
+		return revoked.containsKey(tokenId);
+	}
+
+	public void revoke(long tokenId, long expiresAt) {
+		if (revoked.putIfAbsent(tokenId, expiresAt) == null)
+			revokedTokenDao.save(new RevokedToken(tokenId, LocalDateTime.ofEpochSecond(expiresAt, 0, ZoneOffset.UTC)));
+	}
+
+	public int size() {
+		return revoked.size();
+	}
+
+	/**
+	 * 同步其它节点的吊销记录，顺便清掉已经过期的
+	 */
+	@Scheduled(fixedDelayString = "${session.revocation.refresh-ms:5000}")
+	public void refresh() {
+		if (!SessionTokens.STATELESS.equalsIgnoreCase(mode))
+			return;
+		long now = Instant.now().getEpochSecond();
+		LocalDateTime utcNow = LocalDateTime.ofEpochSecond(now, 0, ZoneOffset.UTC);
+		for (RevokedToken row : revokedTokenDao.findUnexpired(utcNow))
+			revoked.putIfAbsent(row.getTokenId(), row.getExpiresAt().toEpochSecond(ZoneOffset.UTC));
+		revoked.values().removeIf(expiresAt -> expiresAt <= now);
+	}
+
+	@Scheduled(fixedDelayString = "${session.revocation.purge-ms:600000}")
+	public void purge() {
+		if (!SessionTokens.STATELESS.equalsIgnoreCase(mode))
+			return;
+		revokedTokenDao.deleteExpired(LocalDateTime.ofEpochSecond(Instant.now().getEpochSecond(), 0, ZoneOffset.UTC));
+	}
+}
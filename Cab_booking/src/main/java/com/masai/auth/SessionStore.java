@@ -0,0 +1,190 @@
+package com.masai.auth;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.entity.CurrentUserSession;
+import com.masai.repository.SessionDao;
+
+/**
+ * 登录会话的内存存储，按token和userId双向索引，校验会话不访问数据库
+ * 新建和关闭会话由单线程异步写到 current_user_session，保证同一会话的写入顺序；
+ * 空闲超时和最长存活时间由时间轮驱动过期，过期的会话同时从表里删除
+ */
+@Component
+public class SessionStore {
+
+	@Autowired
+	private SessionDao sessionDao;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${session.idle-timeout-minutes:30}")
+	private long idleTimeoutMinutes;
+
+	@Value("${session.max-lifetime-hours:24}")
+	private long maxLifetimeHours;
+
+	@Value("${session.wheel.tick-ms:1000}")
+	private long tickMs;
+
+	@Value("${session.wheel.slots:512}")
+	private int slots;
+
+	private final SecureRandom random = new SecureRandom();
+
+	private final ConcurrentHashMap<String, UserSession> byToken = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Integer, UserSession> byUser = new ConcurrentHashMap<>();
+
+	private final ExecutorService writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<>(), new CustomizableThreadFactory("session-writer-"));
+
+	private TimerWheel<UserSession> wheel;
+
+	/**
+	 * 启动时清掉超过最长存活时间的旧会话，其余的装回内存，空闲时间从启动时算起
+	 */
+	@PostConstruct
+	public void load() {
+		long now = System.currentTimeMillis();
+		wheel = new TimerWheel<>(tickMs, slots, now);
+		sessionDao.deleteOlderThan(LocalDateTime.now().minusHours(maxLifetimeHours));
+		for (CurrentUserSession row : sessionDao.findAll()) {
+			long createdMs = row.getLocalDateTime() == null ? now
+					: row.getLocalDateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+			register(new UserSession(row.getUserId(), row.getUuid(), row.getUserType(), row.getLocalDateTime(), createdMs, now));
+		}
+	}
+
+	/**
+	 * 新建会话，同一用户已有未过期的会话时返回null
+	 */
+	public UserSession open(int userId, String userType) {
+		long now = System.currentTimeMillis();
+		UserSession session = new UserSession(userId, newToken(), userType, LocalDateTime.now(), now, now);
+		UserSession existing;
+		while ((existing = byUser.putIfAbsent(userId, session)) != null) {
+			if (now < deadline(existing))
+				return null;
+			// 已过期但时间轮还没处理到
+			close(existing);
+		}
+		byToken.put(session.getToken(), session);
+		wheel.schedule(session, deadline(session));
+		writer.execute(() -> transactionTemplate.executeWithoutResult(status -> {
+			// 上次进程退出前没来得及删掉的旧行
+			sessionDao.deleteByUserId(userId);
+			CurrentUserSession row = new CurrentUserSession(userId, session.getToken(), session.getCreatedAt());
+			row.setUserType(userType);
+			sessionDao.save(row);
+		}));
+		return session;
+	}
+
+	/**
+	 * 按token校验会话并刷新空闲时间
+	 * @return 会话不存在或已过期时返回null
+	 */
+	public UserSession authenticate(String token) {
+		if (token == null)
+			return null;
+		UserSession session = byToken.get(token);
+		if (session == null)
+			return null;
+		long now = System.currentTimeMillis();
+		if (now >= deadline(session)) {
+			// 时间轮还没处理到，直接按过期处理
+			close(session);
+			return null;
+		}
+		session.touch(now);
+		return session;
+	}
+
+	public boolean isActive(int userId) {
+		UserSession session = byUser.get(userId);
+		return session != null && System.currentTimeMillis() < deadline(session);
+	}
+
+	/**
+	 * @return token对应的会话不存在时返回false
+	 */
+	public boolean close(String token) {
+		UserSession session = token == null ? null : byToken.get(token);
+		if (session == null)
+			return false;
+		close(session);
+		return true;
+	}
+
+	public int size() {
+		return byToken.size();
+	}
+
+	/**
+	 * 推进时间轮：空闲超时或超过最长存活时间的会话关闭，期间有访问的重新排到新的到期时间
+	 */
+	@Scheduled(fixedRateString = "${session.wheel.tick-ms:1000}")
+	public void expire() {
+		long now = System.currentTimeMillis();
+		for (UserSession session : wheel.advance(now)) {
+			if (session.isClosed())
+				continue;
+			long deadline = deadline(session);
+			if (now >= deadline)
+				close(session);
+			else
+				wheel.schedule(session, deadline);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		writer.shutdown();
+		writer.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private void close(UserSession session) {
+		if (!byToken.remove(session.getToken(), session))
+			return;
+		session.close();
+		byUser.remove(session.getUserId(), session);
+		writer.execute(() -> sessionDao.deleteByUuid(session.getToken()));
+	}
+
+	private void register(UserSession session) {
+		byToken.put(session.getToken(), session);
+		byUser.put(session.getUserId(), session);
+		wheel.schedule(session, deadline(session));
+	}
+
+	private long deadline(UserSession session) {
+		return Math.min(session.getLastAccessMs() + TimeUnit.MINUTES.toMillis(idleTimeoutMinutes),
+				session.getCreatedMs() + TimeUnit.HOURS.toMillis(maxLifetimeHours));
+	}
+
+	private String newToken() {
+		byte[] bytes = new byte[18];
+		random.nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
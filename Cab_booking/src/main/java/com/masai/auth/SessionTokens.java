@@ -0,0 +1,102 @@
+package com.masai.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 无状态会话：登录时签发HMAC签名的令牌，校验只做签名、过期和吊销检查，不读会话表
+ * 只在 session.mode=stateless 时启用；多个节点必须配置相同的 session.token-secret
+ */
+@Component
+public class SessionTokens {
+
+	public static final String STATELESS = "stateless";
+
+	@Autowired
+	private RevocationList revocations;
+
+	@Value("${session.mode:stateful}")
+	private String mode;
+
+	// base64 编码的密钥，留空时每次启动随机生成，只适合单节点
+	@Value("${session.token-secret:}")
+	private String secret;
+
+	@Value("${session.token-ttl-minutes:120}")
+	private long ttlMinutes;
+
+	private final SecureRandom random = new SecureRandom();
+
+	private TokenCodec codec;
+
+	@PostConstruct
+	public void init() {
+		byte[] key;
+		if (secret == null || secret.isEmpty()) {
+			key = new byte[32];
+			random.nextBytes(key);
+		} else {
+			try {
+				key = Base64.getDecoder().decode(secret);
+			} catch (IllegalArgumentException e) {
+				key = secret.getBytes(StandardCharsets.UTF_8);
+			}
+		}
+		codec = new TokenCodec(key);
+	}
+
+	public boolean isEnabled() {
+		return STATELESS.equalsIgnoreCase(mode);
+	}
+
+	/**
+	 * 签发令牌，同一用户可以同时持有多个
+	 */
+	public UserSession issue(int userId, UserType userType) {
+		long now = Instant.now().getEpochSecond();
+		TokenCodec.Claims claims = new TokenCodec.Claims(userId, userType, now,
+				now + TimeUnit.MINUTES.toSeconds(ttlMinutes), random.nextLong());
+		return toSession(codec.encode(claims), claims);
+	}
+
+	/**
+	 * @return 签名不对、已过期或已吊销时返回null
+	 */
+	public UserSession verify(String token) {
+		TokenCodec.Claims claims = codec.decode(token);
+		if (claims == null || claims.getExpiresAt() <= Instant.now().getEpochSecond()
+				|| revocations.isRevoked(claims.getTokenId()))
+			return null;
+		return toSession(token, claims);
+	}
+
+	/**
+	 * 登出：令牌在过期前一直留在吊销列表里
+	 * @return 令牌本身已经无效时返回false
+	 */
+	public boolean revoke(String token) {
+		TokenCodec.Claims claims = codec.decode(token);
+		if (claims == null || claims.getExpiresAt() <= Instant.now().getEpochSecond()
+				|| revocations.isRevoked(claims.getTokenId()))
+			return false;
+		revocations.revoke(claims.getTokenId(), claims.getExpiresAt());
+		return true;
+	}
+
+	private static UserSession toSession(String token, TokenCodec.Claims claims) {
+		long issuedMs = TimeUnit.SECONDS.toMillis(claims.getIssuedAt());
+		LocalDateTime issuedAt = LocalDateTime.ofInstant(Instant.ofEpochSecond(claims.getIssuedAt()), ZoneId.systemDefault());
+		return new UserSession(claims.getUserId(), token, claims.getUserType().label(), issuedAt, issuedMs, issuedMs);
+	}
+}
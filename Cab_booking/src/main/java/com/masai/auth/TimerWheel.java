@@ -0,0 +1,74 @@
+package com.masai.auth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 哈希时间轮：按到期时间把元素放进环形的槽里，每个tick只处理一个槽
+ * 到期时间超过一圈的元素留在槽里等下一圈，调度和到期都是O(1)，不需要按到期时间排序
+ * 元素被取消时不从轮上删除，由调用方在到期时自行忽略
+ */
+public class TimerWheel<T> {
+
+	private final long tickMs;
+
+	private final ConcurrentLinkedQueue<Timeout<T>>[] slots;
+
+	// 已经处理完的最后一个tick，只在 advance 里修改
+	private volatile long currentTick;
+
+	@SuppressWarnings("unchecked")
+	public TimerWheel(long tickMs, int slotCount, long startMs) {
+		if (tickMs <= 0 || slotCount <= 0)
+			throw new IllegalArgumentException("tickMs and slotCount must be positive");
+		this.tickMs = tickMs;
+		this.slots = new ConcurrentLinkedQueue[slotCount];
+		for (int i = 0; i < slotCount; i++)
+			slots[i] = new ConcurrentLinkedQueue<>();
+		this.currentTick = startMs / tickMs;
+	}
+
+	/**
+	 * 在deadline（毫秒时间戳）到期，已经过去的时间算在下一个tick
+	 */
+	public void schedule(T item, long deadlineMs) {
+		long tick = Math.max((deadlineMs + tickMs - 1) / tickMs, currentTick + 1);
+		slots[(int) (tick % slots.length)].add(new Timeout<>(item, deadlineMs));
+	}
+
+	/**
+	 * 把时间轮推进到now，返回这段时间内到期的元素
+	 */
+	public synchronized List<T> advance(long nowMs) {
+		List<T> expired = new ArrayList<>();
+		long target = nowMs / tickMs;
+		// 落后超过一圈时每个槽只需要扫一遍
+		long from = Math.max(currentTick + 1, target - slots.length + 1);
+		for (long tick = from; tick <= target; tick++) {
+			ConcurrentLinkedQueue<Timeout<T>> slot = slots[(int) (tick % slots.length)];
+			List<Timeout<T>> notYet = new ArrayList<>();
+			Timeout<T> timeout;
+			while ((timeout = slot.poll()) != null) {
+				if (timeout.deadlineMs <= nowMs)
+					expired.add(timeout.item);
+				else
+					notYet.add(timeout);
+			}
+			slot.addAll(notYet);
+		}
+		if (target > currentTick)
+			currentTick = target;
+		return expired;
+	}
+
+	private static class Timeout<T> {
+		private final T item;
+		private final long deadlineMs;
+
+		private Timeout(T item, long deadlineMs) {
+			this.item = item;
+			this.deadlineMs = deadlineMs;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.masai.auth;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 无状态会话令牌的编解码：载荷 + HMAC-SHA256 签名，base64url 编码，格式为 载荷.签名
+ * 载荷固定30字节：版本(1) userId(4) 用户类型(1) 签发时间秒(8) 过期时间秒(8) 令牌id(8)
+ * 持有同一密钥的任何节点都能独立校验，不需要查表
+ */
+public class TokenCodec {
+
+	private static final byte VERSION = 1;
+
+	private static final int PAYLOAD_BYTES = 30;
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final SecretKeySpec key;
+
+	// Mac 不是线程安全的，每个线程一份
+	private final ThreadLocal<Mac> macs;
+
+	public TokenCodec(byte[] secret) {
+		if (secret == null || secret.length < 16)
+			throw new IllegalArgumentException("token secret must be at least 16 bytes");
+		this.key = new SecretKeySpec(secret, ALGORITHM);
+		this.macs = ThreadLocal.withInitial(this::newMac);
+	}
+
+	public String encode(Claims claims) {
+		ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_BYTES);
+		payload.put(VERSION);
+		payload.putInt(claims.userId);
+		payload.put(claims.userType.code());
+		payload.putLong(claims.issuedAt);
+		payload.putLong(claims.expiresAt);
+		payload.putLong(claims.tokenId);
+		byte[] bytes = payload.array();
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		return encoder.encodeToString(bytes) + "." + encoder.encodeToString(sign(bytes));
+	}
+
+	/**
+	 * 校验签名并解出载荷，不检查是否过期
+	 * @return 格式不对或签名不一致时返回null
+	 */
+	public Claims decode(String token) {
+		if (token == null)
+			return null;
+		int dot = token.indexOf('.');
+		if (dot < 0)
+			return null;
+		byte[] bytes;
+		byte[] signature;
+		try {
+			bytes = Base64.getUrlDecoder().decode(token.substring(0, dot));
+			signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		if (bytes.length != PAYLOAD_BYTES || bytes[0] != VERSION || !MessageDigest.isEqual(sign(bytes), signature))
+			return null;
+		ByteBuffer payload = ByteBuffer.wrap(bytes, 1, PAYLOAD_BYTES - 1);
+		int userId = payload.getInt();
+		UserType userType = UserType.ofCode(payload.get());
+		if (userType == null)
+			return null;
+		return new Claims(userId, userType, payload.getLong(), payload.getLong(), payload.getLong());
+	}
+
+	private byte[] sign(byte[] bytes) {
+		Mac mac = macs.get();
+		mac.reset();
+		return mac.doFinal(bytes);
+	}
+
+	private Mac newMac() {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 令牌里携带的信息，时间均为epoch秒
+	 */
+	@Getter
+	@ToString
+	@EqualsAndHashCode
+	@AllArgsConstructor
+	public static class Claims {
+		private final int userId;
+		private final UserType userType;
+		private final long issuedAt;
+		private final long expiresAt;
+		private final long tokenId;
+	}
+}
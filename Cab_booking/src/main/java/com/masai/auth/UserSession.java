@@ -0,0 +1,45 @@
+package com.masai.auth;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 内存里的登录会话，最后访问时间只在内存中维护，不回写数据库
+ */
+@Getter
+@ToString(exclude = "token")
+public class UserSession {
+
+	private final int userId;
+
+	private final String token;
+
+	private final String userType;
+
+	private final LocalDateTime createdAt;
+
+	private final long createdMs;
+
+	private volatile long lastAccessMs;
+
+	private volatile boolean closed;
+
+	public UserSession(int userId, String token, String userType, LocalDateTime createdAt, long createdMs, long nowMs) {
+		this.userId = userId;
+		this.token = token;
+		this.userType = userType;
+		this.createdAt = createdAt;
+		this.createdMs = createdMs;
+		this.lastAccessMs = nowMs;
+	}
+
+	void touch(long nowMs) {
+		lastAccessMs = nowMs;
+	}
+
+	void close() {
+		closed = true;
+	}
+}
@@ -0,0 +1,49 @@
+package com.masai.auth;
+
+/**
+ * 登录用户的类型，code 用于放进令牌等紧凑的二进制格式，0 保留给未知
+ */
+public enum UserType {
+
+	CUSTOMER((byte) 1, "customer"),
+	DRIVER((byte) 2, "driver");
+
+	private final byte code;
+
+	private final String label;
+
+	UserType(byte code, String label) {
+		this.code = code;
+		this.label = label;
+	}
+
+	public byte code() {
+		return code;
+	}
+
+	public String label() {
+		return label;
+	}
+
+	/**
+	 * @return 未知的code返回null
+	 */
+	public static UserType ofCode(byte code) {
+		for (UserType type : values()) {
+			if (type.code == code)
+				return type;
+		}
+		return null;
+	}
+
+	/**
+	 * @return 未知的名称返回null
+	 */
+	public static UserType ofLabel(String label) {
+		for (UserType type : values()) {
+			if (type.label.equals(label))
+				return type;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,92 @@
+package com.masai.auth;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.masai.repository.CustomerDao;
+import com.masai.repository.DriverDao;
+
+/**
+ * userId到用户类型的目录，登录时据此直接查对应的表，不用先试客户再试司机
+ * 启动时从两张子表只读主键加载，之后由客户、司机的新增和删除同步维护；
+ * 其它节点新增的用户这里可能查不到，调用方要能回退到逐表查找
+ */
+@Component
+public class UserTypeDirectory {
+
+	@Autowired
+	private CustomerDao customerDao;
+
+	@Autowired
+	private DriverDao driverDao;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private IntByteMap types;
+
+	@PostConstruct
+	public void load() {
+		List<Integer> customerIds = customerDao.findAllIds();
+		List<Integer> driverIds = driverDao.findAllIds();
+		IntByteMap loaded = new IntByteMap(customerIds.size() + driverIds.size());
+		for (Integer id : customerIds)
+			loaded.put(id, UserType.CUSTOMER.code());
+		for (Integer id : driverIds)
+			loaded.put(id, UserType.DRIVER.code());
+		lock.writeLock().lock();
+		try {
+			types = loaded;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return 目录里没有时返回null
+	 */
+	public UserType typeOf(Integer userId) {
+		if (userId == null)
+			return null;
+		byte code;
+		lock.readLock().lock();
+		try {
+			code = types.get(userId);
+		} finally {
+			lock.readLock().unlock();
+		}
+		return UserType.ofCode(code);
+	}
+
+	public void put(Integer userId, UserType type) {
+		lock.writeLock().lock();
+		try {
+			types.put(userId, type.code());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Integer userId) {
+		lock.writeLock().lock();
+		try {
+			types.remove(userId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return types.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+}
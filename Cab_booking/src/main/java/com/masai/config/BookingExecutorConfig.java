@@ -0,0 +1,27 @@
+package com.masai.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+@Configuration
+public class BookingExecutorConfig {
+
+    /**
+     * 异步派单的工作线程池，队列有界，满了直接拒绝而不是让请求排队超时
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor bookingExecutor(
+            @Value("${booking.async.workers:8}") int workers,
+            @Value("${booking.async.queue-capacity:1000}") int queueCapacity) {
+        return new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("booking-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,87 @@
+package com.masai.config;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * 只读副本的连接池和延迟检查，未配置 datasource.replica.url 时不创建连接池
+     */
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties primary, ReplicaProperties replica) {
+        if (!replica.isEnabled())
+            return new ReplicaLagMonitor(null, null, 0);
+        HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername())
+                .password(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword())
+                .driverClassName(replica.getDriverClassName() != null ? replica.getDriverClassName()
+                        : primary.determineDriverClassName())
+                .build();
+        pool.setPoolName("replica");
+        pool.setReadOnly(true);
+        pool.setMaximumPoolSize(replica.getMaxPoolSize());
+        pool.setConnectionTimeout(replica.getConnectionTimeoutMs());
+        // 副本启动时连不上也不影响应用启动，由延迟检查标记为不可用
+        pool.setInitializationFailTimeout(-1);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(pool, replica.getLagQuery(), replica.getMaxLagSeconds());
+        monitor.check();
+        return monitor;
+    }
+
+    /**
+     * 主库连接池沿用 spring.datasource.*，连接池参数绑定 spring.datasource.hikari.*
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor monitor) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, monitor.getReplica(), monitor);
+    }
+
+    /**
+     * 延迟到第一条语句执行时才取真实连接，这时事务的只读标记已经设置好，路由才能生效
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory, ReplicaLagMonitor monitor,
+            ObjectProvider<TransactionManagerCustomizers> customizers) {
+        ReplicaAwareJpaDialect dialect = new ReplicaAwareJpaDialect(monitor::isEnabled);
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory) {
+            @Override
+            public void afterPropertiesSet() {
+                super.afterPropertiesSet();
+                // 父类会换成 EntityManagerFactory 自带的方言，这里再换回来
+                setJpaDialect(dialect);
+            }
+        };
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+}
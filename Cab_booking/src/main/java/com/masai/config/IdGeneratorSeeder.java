@@ -0,0 +1,54 @@
+package com.masai.config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.TableStructure;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时把每个实体的id序列推进到现有最大id之后
+ * 旧数据的id来自共用的 hibernate_sequence，新建的序列表从1开始，不推进会主键冲突。
+ * 只会把序列往前推，多个节点同时启动也没有问题
+ */
+@Component
+// 等Hibernate建好序列表之后再执行
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "id.seed-on-startup", havingValue = "true", matchIfMissing = true)
+public class IdGeneratorSeeder {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PostConstruct
+	public void seed() {
+		// 序列表、实体表和主键列都从映射里取，新增实体不用再改这里；继承树共用根实体的序列，只处理一次
+		Set<String> seeded = new HashSet<>();
+		for (EntityPersister persister : entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMetamodel()
+				.entityPersisters().values()) {
+			if (!(persister.getIdentifierGenerator() instanceof PooledIdGenerator) || !(persister instanceof AbstractEntityPersister))
+				continue;
+			DatabaseStructure structure = ((PooledIdGenerator) persister.getIdentifierGenerator()).getDatabaseStructure();
+			// 只有用单行表模拟的序列（MySQL）需要推进，原生序列不处理
+			if (!(structure instanceof TableStructure) || !seeded.add(structure.getName()))
+				continue;
+			AbstractEntityPersister entity = (AbstractEntityPersister) persister;
+			String max = "(select coalesce(max(" + entity.getRootTableKeyColumnNames()[0] + "), 0) from " + entity.getRootTableName() + ")";
+			jdbcTemplate.update("update " + structure.getName() + " set next_val = " + max + " + 1 where next_val <= " + max);
+		}
+	}
+}
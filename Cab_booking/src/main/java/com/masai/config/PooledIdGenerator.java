@@ -0,0 +1,34 @@
+package com.masai.config;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * 按实体分开的池化主键生成器
+ * 每个实体有自己的序列（MySQL上是一张单行表），一次取一整段id在内存里分配，
+ * 段大小按序列名读取 spring.jpa.properties.id.block-size.<序列名>，没有配置时用 id.block-size
+ */
+public class PooledIdGenerator extends SequenceStyleGenerator {
+
+	public static final String BLOCK_SIZE = "id.block-size";
+
+	private static final String DEFAULT_BLOCK_SIZE = "50";
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+		Object blockSize = settings.get(BLOCK_SIZE + "." + params.getProperty(SEQUENCE_PARAM));
+		if (blockSize == null)
+			blockSize = settings.get(BLOCK_SIZE);
+		params.setProperty(INCREMENT_PARAM, blockSize == null ? DEFAULT_BLOCK_SIZE : blockSize.toString());
+		// pooled-lo：表里存的是下一段的起始值，和按 max(id)+1 初始化的方式一致
+		params.setProperty(OPT_PARAM, "pooled-lo");
+		super.configure(type, params, serviceRegistry);
+	}
+}
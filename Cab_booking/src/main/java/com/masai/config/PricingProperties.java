@@ -0,0 +1,34 @@
+package com.masai.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 计价参数，对应 application.properties 中 pricing.* 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pricing")
+public class PricingProperties {
+
+    // 全局最低消费，按车型覆盖见 minFares
+    private int minFare = 0;
+
+    // 车型 -> 最低消费
+    private Map<String, Integer> minFares = new HashMap<>();
+
+    // 高峰时段，格式 "7-9,17-19,22-2"，含起止小时，起点大于终点表示跨零点
+    private String peakHours = "";
+
+    private double peakMultiplier = 1.0;
+
+    // 城市 -> 加价倍数
+    private Map<String, Double> citySurge = new HashMap<>();
+
+    private long refreshMs = 300000;
+}
@@ -0,0 +1,64 @@
+package com.masai.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 按事务类型选择数据源：只读事务且副本可用时取副本连接，其余（读写事务、无事务、副本不可用）都走主库
+ * 事务开始时只读标记还没设置，必须包在 LazyConnectionDataSourceProxy 里，等第一条语句执行时才真正取连接
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	private final DataSource primary;
+
+	private final DataSource replica;
+
+	private final ReplicaLagMonitor monitor;
+
+	public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+		this.primary = primary;
+		this.replica = replica;
+		this.monitor = monitor;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (!useReplica())
+			return primary.getConnection();
+		try {
+			return replica.getConnection();
+		} catch (SQLException e) {
+			monitor.markDown();
+			return primary.getConnection();
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		if (!useReplica())
+			return primary.getConnection(username, password);
+		try {
+			return replica.getConnection(username, password);
+		} catch (SQLException e) {
+			monitor.markDown();
+			return primary.getConnection(username, password);
+		}
+	}
+
+	private boolean useReplica() {
+		return replica != null && TransactionSynchronizationManager.isCurrentTransactionReadOnly() && monitor.isUsable();
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (primary instanceof AutoCloseable)
+			((AutoCloseable) primary).close();
+		if (replica instanceof AutoCloseable)
+			((AutoCloseable) replica).close();
+	}
+}
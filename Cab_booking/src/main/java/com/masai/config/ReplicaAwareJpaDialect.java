@@ -0,0 +1,61 @@
+package com.masai.config;
+
+import java.sql.SQLException;
+import java.util.function.BooleanSupplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * 启用副本时，只读事务从副本读到的实体可能比主库旧，不能放进二级缓存
+ * 这类事务里会话只读缓存、不写缓存，事务结束后恢复原来的缓存模式
+ */
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+	private final BooleanSupplier replicaEnabled;
+
+	public ReplicaAwareJpaDialect(BooleanSupplier replicaEnabled) {
+		this.replicaEnabled = replicaEnabled;
+	}
+
+	@Override
+	public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+			throws PersistenceException, SQLException, TransactionException {
+		Object data = super.beginTransaction(entityManager, definition);
+		if (!definition.isReadOnly() || !replicaEnabled.getAsBoolean())
+			return data;
+		Session session = entityManager.unwrap(Session.class);
+		CacheMode previous = session.getCacheMode();
+		session.setCacheMode(CacheMode.GET);
+		return new CacheModeData(data, session, previous);
+	}
+
+	@Override
+	public void cleanupTransaction(Object transactionData) {
+		if (transactionData instanceof CacheModeData) {
+			CacheModeData data = (CacheModeData) transactionData;
+			data.session.setCacheMode(data.previous);
+			super.cleanupTransaction(data.delegate);
+			return;
+		}
+		super.cleanupTransaction(transactionData);
+	}
+
+	private static class CacheModeData {
+		private final Object delegate;
+		private final Session session;
+		private final CacheMode previous;
+
+		private CacheModeData(Object delegate, Session session, CacheMode previous) {
+			this.delegate = delegate;
+			this.session = session;
+			this.previous = previous;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.masai.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 定期检查只读副本是否可用、复制延迟是否在允许范围内
+ * 不可用时只读事务回退到主库，下一次检查正常后自动恢复
+ */
+public class ReplicaLagMonitor {
+
+	private static final String[] LAG_COLUMNS = { "Seconds_Behind_Source", "Seconds_Behind_Master" };
+
+	// 未启用副本时为null
+	private final DataSource replica;
+
+	private final String lagQuery;
+
+	private final long maxLagSeconds;
+
+	private volatile boolean usable;
+
+	private volatile Long lagSeconds;
+
+	public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagSeconds) {
+		this.replica = replica;
+		this.lagQuery = lagQuery;
+		this.maxLagSeconds = maxLagSeconds;
+	}
+
+	public boolean isEnabled() {
+		return replica != null;
+	}
+
+	public DataSource getReplica() {
+		return replica;
+	}
+
+	public boolean isUsable() {
+		return usable;
+	}
+
+	/**
+	 * @return 最近一次测到的延迟秒数，没有配置延迟查询或查不到时为null
+	 */
+	public Long getLagSeconds() {
+		return lagSeconds;
+	}
+
+	/**
+	 * 取副本连接失败时调用，等下一次检查再恢复
+	 */
+	public void markDown() {
+		usable = false;
+	}
+
+	@Scheduled(fixedDelayString = "${datasource.replica.check-ms:5000}")
+	public void check() {
+		if (replica == null)
+			return;
+		try (Connection connection = replica.getConnection()) {
+			if (lagQuery == null || lagQuery.isEmpty()) {
+				lagSeconds = null;
+				usable = connection.isValid(2);
+				return;
+			}
+			lagSeconds = queryLag(connection);
+			usable = lagSeconds != null && lagSeconds <= maxLagSeconds;
+		} catch (SQLException e) {
+			lagSeconds = null;
+			usable = false;
+		}
+	}
+
+	/**
+	 * 优先读 MySQL 复制状态里的延迟列，其它语句取第一列；没有结果或值为null（复制已停止）时返回null
+	 */
+	private Long queryLag(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(lagQuery)) {
+			if (!rs.next())
+				return null;
+			int column = 1;
+			ResultSetMetaData meta = rs.getMetaData();
+			for (int i = 1; i <= meta.getColumnCount(); i++) {
+				for (String name : LAG_COLUMNS) {
+					if (name.equalsIgnoreCase(meta.getColumnLabel(i)))
+						column = i;
+				}
+			}
+			long lag = rs.getLong(column);
+			return rs.wasNull() ? null : lag;
+		}
+	}
+}
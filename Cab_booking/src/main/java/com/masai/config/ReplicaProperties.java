@@ -0,0 +1,42 @@
+package com.masai.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 只读副本参数，对应 application.properties 中 datasource.replica.* 配置
+ * url 留空时不启用副本，所有连接都走主库
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource.replica")
+public class ReplicaProperties {
+
+    private String url = "";
+
+    // 以下三项留空时沿用主库的配置
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    private int maxPoolSize = 10;
+
+    // 副本连不上时尽快放弃，回退到主库
+    private long connectionTimeoutMs = 2000;
+
+    // 复制延迟超过这个秒数时只读事务也走主库
+    private long maxLagSeconds = 30;
+
+    // 查询复制延迟的语句，如 SHOW REPLICA STATUS；留空时只检查副本是否可连
+    private String lagQuery = "";
+
+    private long checkMs = 5000;
+
+    public boolean isEnabled() {
+        return url != null && !url.isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+package com.masai.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 按城市分片派单的参数，对应 application.properties 中 shard.* 配置
+ * nodes 留空时不分片，本节点负责所有城市
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shard")
+public class ShardProperties {
+
+    // 本节点对外的地址，必须和 nodes 里的某一项完全一致
+    private String self = "";
+
+    // 所有派单节点的地址，如 http://10.0.0.1:8989，各节点配置必须相同
+    private List<String> nodes = new ArrayList<>();
+
+    // 节点之间转发预约时带上的共享密钥，分片时必须配置，/shard/trip 只接受带正确密钥的请求
+    private String secret = "";
+
+    private int virtualNodes = 128;
+
+    private int connectTimeoutMs = 2000;
+
+    private int readTimeoutMs = 15000;
+
+    public boolean isEnabled() {
+        return nodes != null && !nodes.isEmpty();
+    }
+}
@@ -0,0 +1,35 @@
+package com.masai.config;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.masai.dispatch.CityShards;
+import com.masai.dispatch.ShardForwarder;
+
+/**
+ * 节点之间转发预约的入口只接受带正确 shard.secret 的请求
+ * 在拦截器里校验，请求体的参数校验之前就拒绝，外部调用方拿不到任何派单相关的错误信息
+ */
+@Configuration
+public class ShardWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private CityShards shards;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                shards.checkForwarded(request.getHeader(ShardForwarder.SECRET_HEADER));
+                return true;
+            }
+        }).addPathPatterns(ShardForwarder.BOOK_PATH);
+    }
+}
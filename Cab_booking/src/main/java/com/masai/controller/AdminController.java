@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,18 +20,31 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.masai.dto.response.CacheRegionStats;
+import com.masai.dto.response.OutboxStats;
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Admin;
 import com.masai.entity.Cab;
 import com.masai.entity.TripBooking;
+import com.masai.entity.TripView;
 import com.masai.service.AdminService;
+import com.masai.service.CacheStatsService;
+import com.masai.service.OutboxStatsService;
 @RestController
 @RequestMapping("/admin")
 public class AdminController {
 	
 	@Autowired
 	private AdminService adminService;
+
+	@Autowired
+	private CacheStatsService cacheStatsService;
+
+	@Autowired
+	private OutboxStatsService outboxStatsService;
 	
 	@PostMapping("/")
 	public ResponseEntity<Admin> insertAdminHandler(@RequestBody Admin admin) {
@@ -53,6 +67,18 @@ public class AdminController {
 		return new ResponseEntity<List<TripBooking>>(trips,HttpStatus.OK);
 	}
 	
+	// 客户行程历史，按出发日期从新到旧分页，from/to为可选的日期范围（含）
+	@GetMapping("/customers/{customerId}/trips")
+	public ResponseEntity<PageResponse<TripBooking>> getCustomerTripHistoryHandler(@PathVariable("customerId") Integer customerId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit){
+		
+		PageResponse<TripBooking> trips= adminService.getCustomerTripHistory(customerId, from, to, after, limit);
+		return new ResponseEntity<PageResponse<TripBooking>>(trips,HttpStatus.OK);
+	}
+	
 	@GetMapping("/trips/driverwise")
 	public ResponseEntity<List<TripBooking>> getTripsDriverwiseHandler(){
 		
@@ -82,6 +108,19 @@ public class AdminController {
 		return list;
 	}
 	
+	// 带after参数时分页返回，第一页传空的after
+	@GetMapping(value = "/customertrips", params = "after")
+	public PageResponse<TripBooking> getTripsCustomerwisePageHandler(@RequestParam String after,
+			@RequestParam(required = false) Integer limit){
+		return adminService.getTripsCustomerwisePage(after, limit);
+	}
+	
+	@GetMapping(value = "/datewisetrips", params = "after")
+	public PageResponse<TripBooking> getTripsDatewisePageHandler(@RequestParam String after,
+			@RequestParam(required = false) Integer limit){
+		return adminService.getTripsDatewisePage(after, limit);
+	}
+	
 	@GetMapping("trips/{customerId}/{date}")
 	public List<TripBooking> getTripsDatewiseAndCustomerHandler(@PathVariable("customerId") Integer customerId, @PathVariable("date") String date){
 		LocalDate date1 = LocalDate.parse(date);
@@ -89,4 +128,69 @@ public class AdminController {
 		return list;
 
 	}
+
+	// v2 报表：同样的查询返回扁平的 TripView（含客户名、司机名、车型），读 trip_view 不连表
+	// 客户行程历史，from/to为可选的日期范围（含）
+	@GetMapping("/v2/customers/{customerId}/trips")
+	public ResponseEntity<PageResponse<TripView>> getCustomerTripViewsHandler(@PathVariable("customerId") Integer customerId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit){
+		
+		PageResponse<TripView> trips= adminService.getCustomerTripViews(customerId, from, to, after, limit);
+		return new ResponseEntity<PageResponse<TripView>>(trips,HttpStatus.OK);
+	}
+	
+	@GetMapping("/v2/trips/driverwise")
+	public ResponseEntity<List<TripView>> getTripViewsDriverwiseHandler(){
+		
+		List<TripView> trips= adminService.getTripViewsDriverwise();
+		return new ResponseEntity<List<TripView>>(trips,HttpStatus.OK);
+	}
+
+	@GetMapping("/v2/customertrips")
+	public List<TripView> getTripViewsCustomerwiseHandler(){
+		List<TripView> list = adminService.getTripViewsCustomerwise();
+		return list;
+	}
+	
+	@GetMapping("/v2/datewisetrips")
+	public List<TripView> getTripViewsDatewiseHandler(){
+		List<TripView> list = adminService.getTripViewsDatewise();
+		return list;
+	}
+	
+	// 带after参数时分页返回，第一页传空的after
+	@GetMapping(value = "/v2/customertrips", params = "after")
+	public PageResponse<TripView> getTripViewsCustomerwisePageHandler(@RequestParam String after,
+			@RequestParam(required = false) Integer limit){
+		return adminService.getTripViewsCustomerwisePage(after, limit);
+	}
+	
+	@GetMapping(value = "/v2/datewisetrips", params = "after")
+	public PageResponse<TripView> getTripViewsDatewisePageHandler(@RequestParam String after,
+			@RequestParam(required = false) Integer limit){
+		return adminService.getTripViewsDatewisePage(after, limit);
+	}
+	
+	@GetMapping("/v2/trips/{customerId}/{date}")
+	public List<TripView> getTripViewsDatewiseAndCustomerHandler(@PathVariable("customerId") Integer customerId, @PathVariable("date") String date){
+		LocalDate date1 = LocalDate.parse(date);
+		List<TripView> list = adminService.getTripViewsDatewiseAndCustomer(customerId, date1);
+		return list;
+
+	}
+
+	// 二级缓存和查询缓存的命中、未命中次数
+	@GetMapping("/cache/stats")
+	public List<CacheRegionStats> cacheStatsHandler() {
+		return cacheStatsService.regionStats();
+	}
+
+	// 行程事件发件箱的积压和投递情况
+	@GetMapping("/outbox/stats")
+	public OutboxStats outboxStatsHandler() {
+		return outboxStatsService.stats();
+	}
 }
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.masai.dto.response.CabTypeCount;
 import com.masai.entity.Admin;
 import com.masai.entity.Cab;
 import com.masai.service.CabService;
@@ -45,6 +46,12 @@ public class CabController {
 		
         return new ResponseEntity<List<String>>(cabs,HttpStatus.OK);
 		
+	}
+	@GetMapping("/cabs/{carType}/count")
+	public ResponseEntity<CabTypeCount> countCabsOfTypeHandler(@PathVariable("carType") String carType)
+	{
+		CabTypeCount count = cService.countCabsOfType(carType);
+		return new ResponseEntity<CabTypeCount>(count,HttpStatus.OK);
 	}
 	@GetMapping("/cabsCount")
      public String countCabsOfType()
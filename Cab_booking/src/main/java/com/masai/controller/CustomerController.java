@@ -11,10 +11,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.masai.dto.request.CustomerLoginRequest;
 import com.masai.dto.request.CustomerRequest;
 import com.masai.dto.response.CustomerResponse;
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Customer;
 import com.masai.mapper.DtoMapper;
 import com.masai.service.CustomerService;
@@ -40,6 +43,22 @@ public class CustomerController {
         return dtoMapper.toCustomerResponseList(customers);
     }
 
+    // 带after参数时分页返回，第一页传空的after
+    @GetMapping(value = "/customers", params = "after")
+    public PageResponse<CustomerResponse> getCustomerPage(@RequestParam String after,
+            @RequestParam(required = false) Integer limit) {
+        return service.customerPage(after, limit).map(dtoMapper::toCustomerResponse);
+    }
+
+    // 凭证放在请求体里，不会出现在访问日志和浏览器历史中
+    @PostMapping(value = "/customer/login", consumes = "application/json")
+    public CustomerResponse loginCustomer(@Valid @RequestBody CustomerLoginRequest request) {
+        Customer customer = service.vaildCustomer(request.getEmail(), request.getPassword());
+        return dtoMapper.toCustomerResponse(customer);
+    }
+
+    // 旧接口，密码会出现在URL里，请改用 POST /customer/login
+    @Deprecated
     @GetMapping("/customer/{email}/{password}")
     public CustomerResponse getCustomerByCredentials(
             @PathVariable("email") String email,
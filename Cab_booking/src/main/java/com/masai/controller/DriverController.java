@@ -1,13 +1,26 @@
 package com.masai.controller;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
+
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,13 +30,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.masai.dto.response.ImportReport;
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Driver;
+import com.masai.service.DriverImportService;
 import com.masai.service.DriverService;
 
 @RestController
+@Validated
 public class DriverController {
 @Autowired
 private DriverService dService;
+@Autowired
+private DriverImportService importService;
 
 @PostMapping("/drivers")
 public ResponseEntity<Driver> insertDriver(@Valid @RequestBody Driver driver){
@@ -42,13 +61,39 @@ public ResponseEntity<Driver> updateDriver(@RequestParam Integer id,
 	Driver driver=dService.updateDriver(id,lic,avail);
 	return new ResponseEntity<Driver>(driver,HttpStatus.ACCEPTED);
 }
+@PutMapping("/drivers/location")
+public ResponseEntity<Driver> updateDriverLocation(@RequestParam Integer id,
+							@RequestParam @DecimalMin("-90.0") @DecimalMax("90.0") Double lat,
+							@RequestParam @DecimalMin("-180.0") @DecimalMax("180.0") Double lon) {
+	Driver driver=dService.updateDriverLocation(id,lat,lon);
+	return new ResponseEntity<Driver>(driver,HttpStatus.ACCEPTED);
+}
 @DeleteMapping("/drivers/{id}")
 public String deleteDriverById(@PathVariable("id") Integer id) {
 	return dService.deleteDriverById(id);
 }
 @GetMapping("/topDrivers")
-public ResponseEntity<List<Driver>> viewBestDrivers(){
-	List<Driver> list=dService.viewBestDriver();
+public ResponseEntity<List<Driver>> viewBestDrivers(@RequestParam(defaultValue = "4.5") Double minRating,
+							@RequestParam(defaultValue = "20") @Min(1) @Max(500) Integer limit){
+	List<Driver> list=dService.viewBestDriver(minRating,limit);
 	return new ResponseEntity<List<Driver>>(list,HttpStatus.ACCEPTED);
 }
+// 带after参数时分页返回，第一页传空的after
+@GetMapping(value = "/topDrivers", params = "after")
+public ResponseEntity<PageResponse<Driver>> viewBestDriversPage(@RequestParam(defaultValue = "4.5") Double minRating,
+							@RequestParam String after,
+							@RequestParam(required = false) Integer limit){
+	PageResponse<Driver> page=dService.viewBestDriverPage(minRating,after,limit);
+	return new ResponseEntity<PageResponse<Driver>>(page,HttpStatus.ACCEPTED);
+}
+// 批量导入司机，请求体是CSV（text/csv，第一行为列名）或NDJSON（application/x-ndjson），返回每一行的错误
+@PostMapping(value = "/drivers/import", consumes = { "text/csv", "application/x-ndjson" })
+public ResponseEntity<ImportReport> importDrivers(HttpServletRequest request) throws IOException {
+	MediaType type = MediaType.parseMediaType(request.getContentType());
+	Charset charset = type.getCharset() == null ? StandardCharsets.UTF_8 : type.getCharset();
+	try (Reader body = new InputStreamReader(request.getInputStream(), charset)) {
+		ImportReport report = importService.importDrivers(body, type.isCompatibleWith(MediaType.valueOf("text/csv")));
+		return new ResponseEntity<ImportReport>(report,HttpStatus.OK);
+	}
+}
 }
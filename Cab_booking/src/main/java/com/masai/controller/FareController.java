@@ -0,0 +1,30 @@
+package com.masai.controller;
+
+import java.util.List;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.masai.dto.request.FareQuoteRequest;
+import com.masai.dto.response.FareQuote;
+import com.masai.service.FareService;
+
+@RestController
+public class FareController {
+
+	@Autowired
+	private FareService fareService;
+
+	@PostMapping("/fares/quote")
+	public ResponseEntity<List<FareQuote>> quoteHandler(@Valid @RequestBody FareQuoteRequest request) {
+
+		List<FareQuote> quotes = fareService.quote(request);
+		return new ResponseEntity<List<FareQuote>>(quotes, HttpStatus.OK);
+	}
+}
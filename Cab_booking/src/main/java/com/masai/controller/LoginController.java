@@ -3,6 +3,7 @@ package com.masai.controller;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.masai.dto.request.LoginRequest;
+import com.masai.dto.response.SessionResponse;
 import com.masai.service.UserLogInImpl;
 
 @RestController
@@ -29,4 +31,10 @@ public class LoginController {
     public String logOutCustomer(@RequestParam(required = false) String key) {
         return userLogIn.logOutFromAccount(key);
     }
-}
\ No newline at end of file
+
+    // 校验会话，返回当前登录的用户
+    @GetMapping(value = "/session")
+    public SessionResponse currentSession(@RequestParam String key) {
+        return userLogIn.currentSession(key);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,10 +15,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.masai.dispatch.ShardForwarder;
+import com.masai.dto.response.BookingQueueStats;
+import com.masai.dto.response.BookingTicket;
+import com.masai.dto.response.PageResponse;
+import com.masai.dto.response.TripResponse;
 import com.masai.entity.Customer;
 import com.masai.entity.TripBooking;
+import com.masai.service.AsyncBookingService;
+import com.masai.service.TripExportService;
 import com.masai.service.TripService;
 
 @RestController
@@ -26,18 +36,74 @@ public class TripbookingController {
 	@Autowired
 	TripService service;
 	
+	@Autowired
+	AsyncBookingService asyncService;
+	
+	@Autowired
+	TripExportService exportService;
+	
 	
 	@PostMapping("/trip")
 	public TripBooking Add( @Valid @RequestBody TripBooking trip)
 	{
 		return service.AddTrip(trip);
 	}
+
+	// 按城市分片时其它节点转发预约的入口，只在本节点派单；密钥由 ShardWebConfig 在进入之前校验
+	@PostMapping(ShardForwarder.BOOK_PATH)
+	public TripBooking addOwned( @Valid @RequestBody TripBooking trip)
+	{
+		return service.AddOwnedTrip(trip);
+	}
+    
+	// 异步预约：校验后入队立即返回回执，由派单线程池完成派单
+	@PostMapping("/trip/async")
+	public ResponseEntity<BookingTicket> addAsync(@Valid @RequestBody TripBooking trip)
+	{
+		BookingTicket ticket = asyncService.submit(trip);
+		return new ResponseEntity<BookingTicket>(ticket,HttpStatus.ACCEPTED);
+	}
+
+	@GetMapping("/trip/ticket/{ticketId}")
+	public BookingTicket ticket(@PathVariable("ticketId") String ticketId)
+	{
+		return asyncService.findTicket(ticketId);
+	}
+
+	@GetMapping("/trip/queue")
+	public BookingQueueStats queueStats()
+	{
+		return asyncService.queueStats();
+	}
     
 	@GetMapping("/trips")
 	public List<TripBooking> getAllCustomer()
 	{    
 		return service.alltrip() ;
 	}
+	// 带after参数时分页返回，第一页传空的after
+	@GetMapping(value = "/trips", params = "after")
+	public PageResponse<TripBooking> getTripPage(@RequestParam String after,
+			@RequestParam(required = false) Integer limit)
+	{
+		return service.tripPage(after, limit);
+	}
+	// 行程摘要，分页返回，每页一条SQL
+	@GetMapping("/trips/summary")
+	public PageResponse<TripResponse> getTripSummaryPage(@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit)
+	{
+		return service.tripSummaryPage(after, limit);
+	}
+	// 流式导出全部行程，每行一个JSON对象
+	@GetMapping(value = "/trips/export", produces = "application/x-ndjson")
+	public ResponseEntity<StreamingResponseBody> exportTrips()
+	{
+		StreamingResponseBody body = out -> exportService.exportTrips(out);
+		return ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trips.ndjson\"")
+				.body(body);
+	}
 	@PutMapping("/tripupdate/{id}")
 	public TripBooking updateStudent(@Valid @RequestBody TripBooking trip,@PathVariable("id")Integer id)
 	{
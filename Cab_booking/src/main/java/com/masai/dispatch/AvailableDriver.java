@@ -0,0 +1,79 @@
+package com.masai.dispatch;
+
+import java.util.Objects;
+
+import com.masai.entity.Driver;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 可用司机在内存索引中的快照，只保存派单需要的字段
+ */
+@Getter
+@ToString
+public class AvailableDriver {
+
+	private final Integer driverId;
+
+	private final Double latitude;
+
+	private final Double longitude;
+
+	private final String carType;
+
+	private final Double rating;
+
+	// 计价用，派单时不必再加载Cab
+	private final Integer ratePerKm;
+
+	private final String city;
+
+	// 车型、城市在放进索引时归一化一次，按车型筛选和计价时直接比较，不再逐次 trim/toLowerCase
+	private final String carTypeKey;
+
+	private final String cityKey;
+
+	public AvailableDriver(Integer driverId, Double latitude, Double longitude, String carType, Double rating,
+			Integer ratePerKm, String city) {
+		this.driverId = driverId;
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.carType = carType;
+		this.rating = rating;
+		this.ratePerKm = ratePerKm;
+		this.city = city;
+		this.carTypeKey = CabTypeRegistry.key(carType);
+		this.cityKey = city == null ? null : CabTypeRegistry.key(city);
+	}
+
+	public static AvailableDriver of(Driver driver) {
+		String carType = driver.getCab() == null ? null : driver.getCab().getCarType();
+		Integer ratePerKm = driver.getCab() == null ? null : driver.getCab().getRatePerKm();
+		String city = driver.getAddress() == null ? null : driver.getAddress().getCity();
+		return new AvailableDriver(driver.getUserId(), driver.getLatitude(), driver.getLongitude(), carType,
+				driver.getRating(), ratePerKm, city);
+	}
+
+	public AvailableDriver withLocation(Double latitude, Double longitude) {
+		return new AvailableDriver(driverId, latitude, longitude, carType, rating, ratePerKm, city);
+	}
+
+	public AvailableDriver withCab(String carType, Integer ratePerKm) {
+		return new AvailableDriver(driverId, latitude, longitude, carType, rating, ratePerKm, city);
+	}
+
+	/**
+	 * 派单和计价用到的字段是否都相同，对账时只替换有变化的司机
+	 */
+	public boolean sameAs(AvailableDriver other) {
+		return other != null && Objects.equals(driverId, other.driverId) && Objects.equals(latitude, other.latitude)
+				&& Objects.equals(longitude, other.longitude) && Objects.equals(carType, other.carType)
+				&& Objects.equals(rating, other.rating) && Objects.equals(ratePerKm, other.ratePerKm)
+				&& Objects.equals(city, other.city);
+	}
+
+	public boolean isLocated() {
+		return latitude != null && longitude != null;
+	}
+}
@@ -0,0 +1,264 @@
+package com.masai.dispatch;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.entity.Driver;
+import com.masai.entity.TripBooking;
+import com.masai.exception.DriverNotFoundException;
+import com.masai.outbox.TripEventType;
+import com.masai.outbox.TripOutbox;
+import com.masai.pricing.PricingEngine;
+import com.masai.readmodel.TripViewProjector;
+import com.masai.repository.DriverDao;
+import com.masai.repository.TripDao;
+
+/**
+ * 微批派单：把一个时间窗口内到达的预约攒起来，一次性和可用司机做匹配
+ * 按代价（上车点距离）从小到大贪心配对，司机占用和行程写入都各只有一次批量数据库往返
+ * 只在 dispatch.mode=batch 时启用
+ */
+@Component
+public class BatchDispatcher {
+
+	private static final int QUEUED = 0;
+	private static final int IN_FLIGHT = 1;
+	private static final int CANCELLED = 2;
+
+	@Autowired
+	private DriverAvailabilityTracker tracker;
+
+	@Autowired
+	private DriverDao driverDao;
+
+	@Autowired
+	private TripDao tripDao;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private PricingEngine pricing;
+
+	@Autowired
+	private TripViewProjector tripViews;
+
+	@Autowired
+	private TripOutbox outbox;
+
+	@Value("${dispatch.mode:immediate}")
+	private String mode;
+
+	@Value("${dispatch.batch.max-size:200}")
+	private int maxBatchSize;
+
+	@Value("${dispatch.batch.candidates:5}")
+	private int candidatesPerBooking;
+
+	@Value("${dispatch.batch.max-attempts:3}")
+	private int maxAttempts;
+
+	@Value("${dispatch.batch.wait-timeout-ms:10000}")
+	private long waitTimeoutMs;
+
+	private final ConcurrentLinkedQueue<PendingBooking> queue = new ConcurrentLinkedQueue<>();
+
+	public boolean isEnabled() {
+		return "batch".equalsIgnoreCase(mode);
+	}
+
+	/**
+	 * 把预约放进下一个匹配窗口后立即返回，不占用调用线程
+	 * 不会因为等待超时被撤回，最多重试 max-attempts 个窗口后以成功或失败结束
+	 * @param customerName 调用方已取到的客户名，写 trip_view 时直接用
+	 * @return 行程保存成功后完成的future
+	 */
+	public CompletableFuture<TripBooking> submit(TripBooking booking, String customerName) {
+		PendingBooking pending = new PendingBooking(booking, customerName);
+		queue.add(pending);
+		return pending.result;
+	}
+
+	/**
+	 * 提交预约并等待匹配结果，超时还没进入匹配的预约会被撤回
+	 */
+	public TripBooking dispatch(TripBooking booking, String customerName) {
+		PendingBooking pending = new PendingBooking(booking, customerName);
+		queue.add(pending);
+		try {
+			return pending.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			if (pending.state.compareAndSet(QUEUED, CANCELLED))
+				throw new DriverNotFoundException("Dispatch timed out, please retry");
+			// 已经进入匹配，结果很快就会出来
+			return await(pending);
+		} catch (ExecutionException e) {
+			throw unwrap(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pending.state.compareAndSet(QUEUED, CANCELLED);
+			throw new DriverNotFoundException("Dispatch interrupted");
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${dispatch.batch.window-ms:1000}")
+	public void flush() {
+		if (!isEnabled())
+			return;
+		List<PendingBooking> batch = drain();
+		if (batch.isEmpty())
+			return;
+
+		List<PendingBooking> retry = new ArrayList<>();
+		List<PendingBooking> booked;
+		try {
+			booked = transactionTemplate.execute(status -> assign(batch, retry));
+		} catch (RuntimeException e) {
+			batch.forEach(pending -> pending.result.completeExceptionally(e));
+			return;
+		}
+		// 事务提交之后再通知等待方
+		booked.forEach(pending -> pending.result.complete(pending.booking));
+		for (PendingBooking pending : retry) {
+			pending.state.set(QUEUED);
+			queue.add(pending);
+		}
+	}
+
+	private List<PendingBooking> drain() {
+		List<PendingBooking> batch = new ArrayList<>();
+		PendingBooking pending;
+		while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+			if (pending.state.compareAndSet(QUEUED, IN_FLIGHT))
+				batch.add(pending);
+		}
+		return batch;
+	}
+
+	private List<PendingBooking> assign(List<PendingBooking> batch, List<PendingBooking> retry) {
+		List<Edge> edges = new ArrayList<>();
+		for (PendingBooking pending : batch) {
+			TripBooking booking = pending.booking;
+			for (AvailableDriver driver : tracker.nearestAvailable(booking.getPickupLatitude(), booking.getPickupLongitude(),
+					booking.getCarType(), candidatesPerBooking))
+				edges.add(new Edge(pending, driver.getDriverId(), cost(booking, driver)));
+		}
+		edges.sort(Comparator.comparingDouble(edge -> edge.cost));
+
+		// 贪心：代价最小的边优先，预约和司机都还没被配对时才成交
+		Map<Integer, PendingBooking> assignment = new LinkedHashMap<>();
+		Map<PendingBooking, Boolean> matched = new IdentityHashMap<>();
+		for (Edge edge : edges) {
+			if (matched.containsKey(edge.pending) || assignment.containsKey(edge.driverId))
+				continue;
+			assignment.put(edge.driverId, edge.pending);
+			matched.put(edge.pending, Boolean.TRUE);
+		}
+
+		Map<Integer, AvailableDriver> reserved = tracker.reserveAll(assignment.keySet());
+		Map<Integer, Driver> drivers = driverDao.findAllById(reserved.keySet()).stream()
+				.collect(Collectors.toMap(Driver::getUserId, Function.identity()));
+
+		LocalDateTime now = LocalDateTime.now();
+		List<PendingBooking> booked = new ArrayList<>();
+		List<TripBooking> trips = new ArrayList<>();
+		List<String> customerNames = new ArrayList<>();
+		for (Map.Entry<Integer, PendingBooking> entry : assignment.entrySet()) {
+			PendingBooking pending = entry.getValue();
+			Driver driver = drivers.get(entry.getKey());
+			if (driver == null) {
+				retryOrFail(pending, retry);
+				continue;
+			}
+			TripBooking booking = pending.booking;
+			booking.setTotalamount(pricing.fare(reserved.get(entry.getKey()), booking.getKm(), booking.getPickupCity(), now));
+			booking.setDriver(driver);
+			trips.add(booking);
+			customerNames.add(pending.customerName);
+			booked.add(pending);
+		}
+		for (PendingBooking pending : batch) {
+			if (!matched.containsKey(pending))
+				retryOrFail(pending, retry);
+		}
+		tripDao.saveAll(trips);
+		for (int i = 0; i < trips.size(); i++)
+			tripViews.booked(trips.get(i), customerNames.get(i));
+		outbox.recordAll(TripEventType.BOOKED, trips);
+		return booked;
+	}
+
+	private void retryOrFail(PendingBooking pending, List<PendingBooking> retry) {
+		if (++pending.attempts < maxAttempts && tracker.availableCount() > 0)
+			retry.add(pending);
+		else
+			pending.result.completeExceptionally(new DriverNotFoundException("Sorry No driver Available just now..."));
+	}
+
+	private static double cost(TripBooking booking, AvailableDriver driver) {
+		if (booking.getPickupLatitude() == null || booking.getPickupLongitude() == null || !driver.isLocated())
+			return Double.MAX_VALUE;
+		return DriverSpatialIndex.distanceKm(booking.getPickupLatitude(), booking.getPickupLongitude(),
+				driver.getLatitude(), driver.getLongitude());
+	}
+
+	private static TripBooking await(PendingBooking pending) {
+		try {
+			return pending.result.join();
+		} catch (CompletionException | CancellationException e) {
+			throw unwrap(e.getCause() != null ? e.getCause() : e);
+		}
+	}
+
+	private static RuntimeException unwrap(Throwable cause) {
+		if (cause instanceof RuntimeException)
+			return (RuntimeException) cause;
+		return new IllegalStateException(cause);
+	}
+
+	private static class PendingBooking {
+		private final TripBooking booking;
+		private final String customerName;
+		private final CompletableFuture<TripBooking> result = new CompletableFuture<>();
+		private final AtomicInteger state = new AtomicInteger(QUEUED);
+		private int attempts;
+
+		private PendingBooking(TripBooking booking, String customerName) {
+			this.booking = booking;
+			this.customerName = customerName;
+		}
+	}
+
+	private static class Edge {
+		private final PendingBooking pending;
+		private final Integer driverId;
+		private final double cost;
+
+		private Edge(PendingBooking pending, Integer driverId, double cost) {
+			this.pending = pending;
+			this.driverId = driverId;
+			this.cost = cost;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.masai.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.masai.repository.CabDao;
+
+/**
+ * 按车型分区的车辆与可用司机登记表
+ * 每个车型一个分区，保存车辆计数和当前可用司机集合，车型统计和按车型派单都不需要查表
+ */
+@Component
+public class CabTypeRegistry {
+
+	@Autowired
+	private CabDao cabDao;
+
+	private final ConcurrentHashMap<String, Partition> partitions = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void load() {
+		for (Object[] row : cabDao.countByCarType())
+			partition((String) row[0]).cabs.add((Long) row[1]);
+	}
+
+	/**
+	 * 车型是自由文本，忽略首尾空格和大小写后归为同一分区
+	 * 已经归一化过的值原样返回，不创建新字符串
+	 */
+	public static String key(String carType) {
+		if (carType == null)
+			return "";
+		return isKey(carType) ? carType : carType.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean isKey(String value) {
+		int length = value.length();
+		if (length > 0 && (value.charAt(0) <= ' ' || value.charAt(length - 1) <= ' '))
+			return false;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (Character.toLowerCase(c) != c)
+				return false;
+		}
+		return true;
+	}
+
+	public void cabAdded(String carType) {
+		partition(carType).cabs.increment();
+	}
+
+	public void cabRemoved(String carType) {
+		partition(carType).cabs.decrement();
+	}
+
+	public void driverAvailable(AvailableDriver driver) {
+		partitions.computeIfAbsent(driver.getCarTypeKey(), k -> new Partition(name(driver.getCarType())))
+				.available.add(driver.getDriverId());
+	}
+
+	public void driverUnavailable(AvailableDriver driver) {
+		Partition partition = partitions.get(driver.getCarTypeKey());
+		if (partition != null)
+			partition.available.remove(driver.getDriverId());
+	}
+
+	public long cabCount() {
+		long total = 0;
+		for (Partition partition : partitions.values())
+			total += partition.cabs.sum();
+		return total;
+	}
+
+	public long cabCount(String carType) {
+		Partition partition = partitions.get(key(carType));
+		return partition == null ? 0 : partition.cabs.sum();
+	}
+
+	public int availableCount(String carType) {
+		Partition partition = partitions.get(key(carType));
+		return partition == null ? 0 : partition.available.size();
+	}
+
+	/**
+	 * 某车型当前可用司机id的只读视图
+	 */
+	public Set<Integer> availableDrivers(String carType) {
+		Partition partition = partitions.get(key(carType));
+		return partition == null ? Collections.<Integer>emptySet() : Collections.unmodifiableSet(partition.available);
+	}
+
+	/**
+	 * 至少还有一辆车的车型名称
+	 */
+	public List<String> carTypes() {
+		List<String> types = new ArrayList<>();
+		for (Partition partition : partitions.values()) {
+			if (partition.cabs.sum() > 0 && !partition.name.isEmpty())
+				types.add(partition.name);
+		}
+		Collections.sort(types);
+		return types;
+	}
+
+	private Partition partition(String carType) {
+		return partitions.computeIfAbsent(key(carType), k -> new Partition(name(carType)));
+	}
+
+	private static String name(String carType) {
+		return carType == null ? "" : carType.trim();
+	}
+
+	private static class Partition {
+		private final String name;
+		private final LongAdder cabs = new LongAdder();
+		private final Set<Integer> available = ConcurrentHashMap.newKeySet();
+
+		private Partition(String name) {
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.masai.dispatch;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.masai.config.ShardProperties;
+import com.masai.exception.ShardAccessDeniedException;
+
+/**
+ * 本节点负责哪些城市的派单
+ * 每个城市的可用司机和预约队列只在它的主节点上，别的节点收到该城市的预约时转发过去；
+ * 没有城市的司机和预约不分片，任何节点都可以处理，靠带条件的 UPDATE 防止重复占用
+ */
+@Component
+public class CityShards {
+
+	@Autowired
+	private ShardProperties properties;
+
+	private ShardRing ring;
+
+	private String self;
+
+	@PostConstruct
+	public void init() {
+		if (!properties.isEnabled())
+			return;
+		ring = new ShardRing(properties.getNodes(), properties.getVirtualNodes());
+		self = properties.getSelf() == null ? "" : properties.getSelf().trim();
+		if (!ring.getNodes().contains(self))
+			throw new IllegalStateException("shard.self " + self + " is not one of shard.nodes " + ring.getNodes());
+		if (properties.getSecret() == null || properties.getSecret().isEmpty())
+			throw new IllegalStateException("shard.secret must be set when shard.nodes is configured");
+	}
+
+	/**
+	 * 校验其它节点转发来的预约，不分片时没有合法的转发方，一律拒绝
+	 */
+	public void checkForwarded(String secret) {
+		if (!isEnabled() || secret == null || !MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+				properties.getSecret().getBytes(StandardCharsets.UTF_8)))
+			throw new ShardAccessDeniedException("Only dispatch nodes may call " + ShardForwarder.BOOK_PATH);
+	}
+
+	public boolean isEnabled() {
+		return ring != null;
+	}
+
+	public boolean owns(String city) {
+		String owner = ownerOf(city);
+		return owner == null || owner.equals(self);
+	}
+
+	/**
+	 * @return 负责该城市的节点地址，不分片或城市为空时返回null
+	 */
+	public String ownerOf(String city) {
+		return ring == null ? null : ring.ownerOf(city);
+	}
+}
@@ -0,0 +1,307 @@
+package com.masai.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.masai.entity.Driver;
+import com.masai.repository.DriverDao;
+
+/**
+ * 维护可用司机的内存视图
+ * 启动时加载一次，之后由司机、行程相关的service在available变化时同步通知
+ * 按城市分片时只保存本节点负责的城市和没有城市的司机，排行榜和车型可用数也随之只统计本分片
+ */
+@Component
+public class DriverAvailabilityTracker {
+
+	@Autowired
+	private DriverDao driverDao;
+
+	@Autowired
+	private CabTypeRegistry cabTypes;
+
+	@Autowired
+	private DriverLeaderboard leaderboard;
+
+	@Autowired
+	private CityShards shards;
+
+	@Value("${dispatch.grid.cell-degrees:0.01}")
+	private double cellDegrees;
+
+	@Value("${dispatch.grid.max-rings:50}")
+	private int maxRings;
+
+	@Value("${dispatch.reserve.candidates:5}")
+	private int reserveCandidates;
+
+	private DriverSpatialIndex index;
+
+	// 空间索引和车型分区必须一起变：放入、移出持写锁，查找持读锁，读方不会看到只在其中一边的司机
+	// 写锁只在改内存的瞬间持有，占用司机时的数据库 UPDATE 在锁外
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	@PostConstruct
+	public void load() {
+		index = new DriverSpatialIndex(cellDegrees, maxRings);
+		for (Driver driver : ownedAvailable())
+			add(AvailableDriver.of(driver));
+	}
+
+	/**
+	 * 分片时定期和数据库对账：在其它节点上结束行程、修改司机时，只有那个节点自己的索引收到了通知
+	 * 只查快照需要的列，和索引逐个比较，只放入新出现或字段有变化的司机、移出已不可用的司机，没变化的不动
+	 * 重新放回的司机如果其实已被占用，占用时带条件的 UPDATE 会失败并把它丢掉
+	 * @return 放入和移出的司机数
+	 */
+	@Scheduled(fixedDelayString = "${shard.resync-ms:30000}", initialDelayString = "${shard.resync-ms:30000}")
+	public int resync() {
+		if (!shards.isEnabled())
+			return 0;
+		int changed = 0;
+		Set<Integer> current = new HashSet<>();
+		for (AvailableDriver snapshot : ownedSnapshots()) {
+			current.add(snapshot.getDriverId());
+			if (!snapshot.sameAs(indexed(snapshot.getDriverId()))) {
+				add(snapshot);
+				changed++;
+			}
+		}
+		for (Integer driverId : indexedIds()) {
+			if (!current.contains(driverId) && take(driverId) != null)
+				changed++;
+		}
+		return changed;
+	}
+
+	private List<AvailableDriver> ownedSnapshots() {
+		List<String> cities = driverDao.findAvailableCities().stream().filter(shards::owns).collect(Collectors.toList());
+		List<AvailableDriver> snapshots = new ArrayList<>(driverDao.findAvailableSnapshotsWithoutCity());
+		if (!cities.isEmpty())
+			snapshots.addAll(driverDao.findAvailableSnapshotsInCities(cities));
+		return snapshots;
+	}
+
+	private AvailableDriver indexed(Integer driverId) {
+		lock.readLock().lock();
+		try {
+			return index.get(driverId);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<Integer> indexedIds() {
+		lock.readLock().lock();
+		try {
+			return new ArrayList<>(index.driverIds());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// 不分片时就是全部可用司机
+	private List<Driver> ownedAvailable() {
+		if (!shards.isEnabled())
+			return driverDao.findByAvailable();
+		List<String> cities = driverDao.findAvailableCities().stream().filter(shards::owns).collect(Collectors.toList());
+		List<Driver> drivers = new ArrayList<>(driverDao.findAvailableWithoutCity());
+		if (!cities.isEmpty())
+			drivers.addAll(driverDao.findAvailableInCities(cities));
+		return drivers;
+	}
+
+	/**
+	 * 司机新增或修改后调用，根据available和所在城市决定放入还是移出索引
+	 */
+	public void driverChanged(Driver driver) {
+		String city = driver.getAddress() == null ? null : driver.getAddress().getCity();
+		if (Boolean.TRUE.equals(driver.getAvailable()) && shards.owns(city))
+			add(AvailableDriver.of(driver));
+		else
+			take(driver.getUserId());
+	}
+
+	/**
+	 * 司机上报位置后调用，只移动已在索引里的司机
+	 * 不在索引里说明不可用或已被占用，不能凭位置更新把它放回来
+	 */
+	public void driverMoved(Integer driverId, Double latitude, Double longitude) {
+		replaceIfIndexed(driverId, driver -> driver.withLocation(latitude, longitude));
+	}
+
+	/**
+	 * 司机的车辆改了车型或费率后调用，同样只处理已在索引里的司机，换到新车型的分区
+	 */
+	public void cabChanged(Integer driverId, String carType, Integer ratePerKm) {
+		replaceIfIndexed(driverId, driver -> driver.withCab(carType, ratePerKm));
+	}
+
+	public void driverRemoved(Integer driverId) {
+		take(driverId);
+	}
+
+	/**
+	 * 离上车点最近的k个可用司机，上车点没有坐标时任取
+	 * @param carType 指定车型时只在该车型分区里找，为null表示不限车型
+	 */
+	public List<AvailableDriver> nearestAvailable(Double latitude, Double longitude, String carType, int k) {
+		lock.readLock().lock();
+		try {
+			if (carType == null)
+				return index.nearest(latitude, longitude, k);
+			if (cabTypes.availableCount(carType) == 0)
+				return Collections.emptyList();
+			if (latitude == null || longitude == null)
+				return anyOfType(carType, k);
+			String key = CabTypeRegistry.key(carType);
+			return index.nearest(latitude, longitude, k, driver -> key.equals(driver.getCarTypeKey()));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<AvailableDriver> anyOfType(String carType, int k) {
+		List<AvailableDriver> result = new ArrayList<>(k);
+		for (Integer driverId : cabTypes.availableDrivers(carType)) {
+			if (result.size() >= k)
+				break;
+			AvailableDriver driver = index.get(driverId);
+			if (driver != null)
+				result.add(driver);
+		}
+		return result;
+	}
+
+	/**
+	 * 原子地占用离上车点最近的可用司机
+	 * 先从索引里 remove 抢占（同一节点上只有一个线程能拿到），再用带条件的 UPDATE 落库防止其它节点重复占用，
+	 * 只在改索引的瞬间持锁，数据库往返不持锁。需要在事务中调用，事务回滚时司机会放回索引
+	 * @return 占到的司机快照，没有可用司机时返回null
+	 */
+	public AvailableDriver reserveNearest(Double latitude, Double longitude, String carType) {
+		while (true) {
+			List<AvailableDriver> candidates = nearestAvailable(latitude, longitude, carType, reserveCandidates);
+			if (candidates.isEmpty())
+				return null;
+			for (AvailableDriver candidate : candidates) {
+				AvailableDriver reserved = reserve(candidate.getDriverId());
+				if (reserved != null)
+					return reserved;
+			}
+		}
+	}
+
+	/**
+	 * 占用指定司机，内存或数据库任一处已不可用时返回null
+	 */
+	public AvailableDriver reserve(Integer driverId) {
+		AvailableDriver claimed = take(driverId);
+		if (claimed == null)
+			return null;
+		// 数据库里已经不可用（被其它节点占用或索引过期），直接丢弃
+		if (driverDao.reserveDriver(driverId) != 1)
+			return null;
+		restoreOnRollback(claimed);
+		return claimed;
+	}
+
+	/**
+	 * 批量占用一组司机：先逐个在内存里抢占，再用一次批量 UPDATE 落库
+	 * @return 实际占用成功的司机快照，按id索引
+	 */
+	public Map<Integer, AvailableDriver> reserveAll(Collection<Integer> driverIds) {
+		List<AvailableDriver> claimed = new ArrayList<>(driverIds.size());
+		for (Integer driverId : driverIds) {
+			AvailableDriver driver = take(driverId);
+			if (driver != null)
+				claimed.add(driver);
+		}
+		List<Integer> claimedIds = claimed.stream().map(AvailableDriver::getDriverId).collect(Collectors.toList());
+		Set<Integer> reservedIds = driverDao.reserveDrivers(claimedIds);
+		Map<Integer, AvailableDriver> reserved = new HashMap<>();
+		for (AvailableDriver driver : claimed) {
+			if (reservedIds.contains(driver.getDriverId())) {
+				restoreOnRollback(driver);
+				reserved.put(driver.getDriverId(), driver);
+			}
+		}
+		return reserved;
+	}
+
+	private void restoreOnRollback(AvailableDriver claimed) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+			return;
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status != STATUS_COMMITTED)
+					add(claimed);
+			}
+		});
+	}
+
+	public int availableCount() {
+		return index.size();
+	}
+
+	private void add(AvailableDriver driver) {
+		lock.writeLock().lock();
+		try {
+			AvailableDriver previous = index.put(driver);
+			if (previous != null)
+				cabTypes.driverUnavailable(previous);
+			cabTypes.driverAvailable(driver);
+			if (driver.getRating() != null)
+				leaderboard.put(driver.getDriverId(), driver.getRating());
+			else
+				leaderboard.remove(driver.getDriverId());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 检查和替换在同一个写锁里，和占用时的 take 互斥
+	private void replaceIfIndexed(Integer driverId, UnaryOperator<AvailableDriver> change) {
+		lock.writeLock().lock();
+		try {
+			AvailableDriver current = index.get(driverId);
+			if (current != null)
+				add(change.apply(current));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private AvailableDriver take(Integer driverId) {
+		lock.writeLock().lock();
+		try {
+			AvailableDriver removed = index.remove(driverId);
+			if (removed != null) {
+				cabTypes.driverUnavailable(removed);
+				leaderboard.remove(driverId);
+			}
+			return removed;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
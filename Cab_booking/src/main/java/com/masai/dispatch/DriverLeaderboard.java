@@ -0,0 +1,97 @@
+package com.masai.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 可用司机按评分排序的排行榜
+ * 跳表按（评分降序，id升序）排列，前K名和评分阈值查询只遍历需要返回的那部分
+ */
+@Component
+public class DriverLeaderboard {
+
+	private static final Comparator<Entry> ORDER = Comparator.comparingDouble((Entry e) -> e.rating).reversed()
+			.thenComparing(e -> e.driverId);
+
+	private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+	private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * 加入或更新司机评分，同一个司机的修改由 compute 串行化
+	 */
+	public void put(Integer driverId, double rating) {
+		entries.compute(driverId, (id, previous) -> {
+			if (previous != null)
+				ranking.remove(previous);
+			Entry entry = new Entry(id, rating);
+			ranking.add(entry);
+			return entry;
+		});
+	}
+
+	public void remove(Integer driverId) {
+		entries.computeIfPresent(driverId, (id, previous) -> {
+			ranking.remove(previous);
+			return null;
+		});
+	}
+
+	/**
+	 * 评分不低于minRating的前limit名司机id，按评分从高到低
+	 */
+	public List<Integer> top(double minRating, int limit) {
+		if (limit <= 0)
+			return Collections.emptyList();
+		List<Integer> result = new ArrayList<>(Math.min(limit, 64));
+		for (Entry entry : ranking) {
+			if (result.size() >= limit || entry.rating < minRating)
+				break;
+			result.add(entry.driverId);
+		}
+		return result;
+	}
+
+	/**
+	 * 键集分页：排在（afterRating, afterId）之后、评分不低于minRating的limit名司机
+	 */
+	public List<Integer> after(double minRating, double afterRating, Integer afterId, int limit) {
+		if (limit <= 0)
+			return Collections.emptyList();
+		List<Integer> result = new ArrayList<>(Math.min(limit, 64));
+		for (Entry entry : ranking.tailSet(new Entry(afterId, afterRating), false)) {
+			if (result.size() >= limit || entry.rating < minRating)
+				break;
+			result.add(entry.driverId);
+		}
+		return result;
+	}
+
+	/**
+	 * 当前评分，不在榜上时返回null
+	 */
+	public Double ratingOf(Integer driverId) {
+		Entry entry = entries.get(driverId);
+		return entry == null ? null : entry.rating;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private static class Entry {
+		private final Integer driverId;
+		private final double rating;
+
+		private Entry(Integer driverId, double rating) {
+			this.driverId = driverId;
+			this.rating = rating;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.masai.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 可用司机的网格空间索引
+ * 按经纬度把司机放进固定大小的网格，最近邻查询只扫描查询点周围的几圈网格，不需要全表扫描
+ */
+public class DriverSpatialIndex {
+
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+
+	private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+	private final double cellDegrees;
+
+	private final int maxRings;
+
+	private final ConcurrentHashMap<Integer, AvailableDriver> drivers = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Long, Set<Integer>> cells = new ConcurrentHashMap<>();
+
+	// 没有上报位置的司机，只在附近找不到人时兜底
+	private final Set<Integer> unlocated = ConcurrentHashMap.newKeySet();
+
+	public DriverSpatialIndex(double cellDegrees, int maxRings) {
+		if (cellDegrees <= 0 || maxRings < 0)
+			throw new IllegalArgumentException("cellDegrees must be positive and maxRings non-negative");
+		this.cellDegrees = cellDegrees;
+		this.maxRings = maxRings;
+	}
+
+	/**
+	 * 新增或更新司机位置，同一个司机的并发修改由 compute 串行化
+	 * @return 被替换掉的旧快照，之前不在索引中时返回null
+	 */
+	public AvailableDriver put(AvailableDriver driver) {
+		AvailableDriver[] replaced = new AvailableDriver[1];
+		drivers.compute(driver.getDriverId(), (id, previous) -> {
+			if (previous != null)
+				unlink(previous);
+			link(driver);
+			replaced[0] = previous;
+			return driver;
+		});
+		return replaced[0];
+	}
+
+	/**
+	 * 从索引中移除司机
+	 * @return 被移除的快照，司机不在索引中时返回null
+	 */
+	public AvailableDriver remove(Integer driverId) {
+		AvailableDriver[] removed = new AvailableDriver[1];
+		drivers.computeIfPresent(driverId, (id, previous) -> {
+			unlink(previous);
+			removed[0] = previous;
+			return null;
+		});
+		return removed[0];
+	}
+
+	public boolean contains(Integer driverId) {
+		return drivers.containsKey(driverId);
+	}
+
+	public AvailableDriver get(Integer driverId) {
+		return drivers.get(driverId);
+	}
+
+	public Set<Integer> driverIds() {
+		return Collections.unmodifiableSet(drivers.keySet());
+	}
+
+	public int size() {
+		return drivers.size();
+	}
+
+	public List<AvailableDriver> nearest(Double latitude, Double longitude, int k) {
+		return nearest(latitude, longitude, k, driver -> true);
+	}
+
+	/**
+	 * 按距离从近到远返回最多k个满足条件的司机
+	 * 查询点没有坐标时退化为任取k个；附近网格不够k个时用未定位的司机补齐
+	 */
+	public List<AvailableDriver> nearest(Double latitude, Double longitude, int k, Predicate<AvailableDriver> filter) {
+		if (k <= 0)
+			return Collections.emptyList();
+		if (latitude == null || longitude == null)
+			return any(k, filter);
+
+		PriorityQueue<Candidate> best = new PriorityQueue<>(k, Comparator.comparingDouble((Candidate c) -> c.distanceKm).reversed());
+		long row = cellOf(latitude);
+		long col = cellOf(longitude);
+		// 经度方向的网格会随纬度变窄，按较窄的一边估算未扫描网格的最近距离
+		double ringKm = cellDegrees * KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(Math.abs(latitude))), 0.01);
+
+		for (int ring = 0; ring <= maxRings; ring++) {
+			for (long r = row - ring; r <= row + ring; r++) {
+				boolean edgeRow = r == row - ring || r == row + ring;
+				long step = edgeRow || ring == 0 ? 1 : 2L * ring;
+				for (long c = col - ring; c <= col + ring; c += step)
+					scan(key(r, c), latitude, longitude, k, filter, best);
+			}
+			if (best.size() == k && best.peek().distanceKm <= ring * ringKm)
+				break;
+		}
+
+		List<AvailableDriver> result = new ArrayList<>(best.size());
+		while (!best.isEmpty())
+			result.add(best.poll().driver);
+		Collections.reverse(result);
+
+		for (Integer id : unlocated) {
+			if (result.size() >= k)
+				break;
+			AvailableDriver driver = drivers.get(id);
+			if (driver != null && !driver.isLocated() && filter.test(driver))
+				result.add(driver);
+		}
+		return result;
+	}
+
+	private List<AvailableDriver> any(int k, Predicate<AvailableDriver> filter) {
+		List<AvailableDriver> result = new ArrayList<>(k);
+		for (AvailableDriver driver : drivers.values()) {
+			if (result.size() >= k)
+				break;
+			if (filter.test(driver))
+				result.add(driver);
+		}
+		return result;
+	}
+
+	private void scan(long cell, double latitude, double longitude, int k, Predicate<AvailableDriver> filter,
+			PriorityQueue<Candidate> best) {
+		Set<Integer> ids = cells.get(cell);
+		if (ids == null)
+			return;
+		for (Integer id : ids) {
+			AvailableDriver driver = drivers.get(id);
+			if (driver == null || !driver.isLocated() || !filter.test(driver))
+				continue;
+			double distance = distanceKm(latitude, longitude, driver.getLatitude(), driver.getLongitude());
+			if (best.size() < k) {
+				best.add(new Candidate(driver, distance));
+			} else if (distance < best.peek().distanceKm) {
+				best.poll();
+				best.add(new Candidate(driver, distance));
+			}
+		}
+	}
+
+	private void link(AvailableDriver driver) {
+		if (!driver.isLocated()) {
+			unlocated.add(driver.getDriverId());
+			return;
+		}
+		cells.computeIfAbsent(cellKey(driver), key -> ConcurrentHashMap.newKeySet()).add(driver.getDriverId());
+	}
+
+	private void unlink(AvailableDriver driver) {
+		if (!driver.isLocated()) {
+			unlocated.remove(driver.getDriverId());
+			return;
+		}
+		cells.computeIfPresent(cellKey(driver), (key, ids) -> {
+			ids.remove(driver.getDriverId());
+			return ids.isEmpty() ? null : ids;
+		});
+	}
+
+	private long cellKey(AvailableDriver driver) {
+		return key(cellOf(driver.getLatitude()), cellOf(driver.getLongitude()));
+	}
+
+	private long cellOf(double degrees) {
+		return (long) Math.floor(degrees / cellDegrees);
+	}
+
+	private static long key(long row, long col) {
+		return (row << 32) | (col & 0xffffffffL);
+	}
+
+	/**
+	 * 两点间球面距离（haversine），单位公里
+	 */
+	public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	private static class Candidate {
+		private final AvailableDriver driver;
+		private final double distanceKm;
+
+		private Candidate(AvailableDriver driver, double distanceKm) {
+			this.driver = driver;
+			this.distanceKm = distanceKm;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.masai.dispatch;
+
+import java.time.Duration;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.masai.config.ShardProperties;
+import com.masai.entity.TripBooking;
+import com.masai.exception.ShardUnavailableException;
+
+/**
+ * 把预约转发给负责该城市的节点
+ * 对方返回的错误（找不到司机、参数不对等）以 HttpStatusCodeException 原样抛出，由全局异常处理转回给客户端
+ */
+@Component
+public class ShardForwarder {
+
+	// 对方只在本分片内派单，不会再转发，节点配置不一致时也不会来回转
+	public static final String BOOK_PATH = "/shard/trip";
+
+	// 转发时带上 shard.secret，接收方据此确认请求来自派单节点
+	public static final String SECRET_HEADER = "X-Shard-Secret";
+
+	@Autowired
+	private ShardProperties properties;
+
+	@Autowired
+	private RestTemplateBuilder restTemplateBuilder;
+
+	private RestTemplate restTemplate;
+
+	@PostConstruct
+	public void init() {
+		restTemplate = restTemplateBuilder
+				.setConnectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+				.setReadTimeout(Duration.ofMillis(properties.getReadTimeoutMs()))
+				.build();
+	}
+
+	public TripBooking book(String owner, TripBooking tb) {
+		try {
+			HttpHeaders headers = new HttpHeaders();
+			headers.set(SECRET_HEADER, properties.getSecret());
+			return restTemplate.postForObject(owner + BOOK_PATH, new HttpEntity<>(tb, headers), TripBooking.class);
+		} catch (ResourceAccessException e) {
+			throw new ShardUnavailableException("Dispatch node " + owner + " for city " + tb.getPickupCity() + " is unreachable");
+		}
+	}
+}
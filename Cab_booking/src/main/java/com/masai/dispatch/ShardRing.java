@@ -0,0 +1,80 @@
+package com.masai.dispatch;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 城市到节点的一致性哈希环
+ * 每个节点在环上放 virtualNodes 个虚拟节点，城市顺时针归属遇到的第一个虚拟节点；
+ * 增删一个节点时只有约 1/n 的城市换主。只依赖节点列表，所有节点按同样的配置算出同样的归属
+ */
+public class ShardRing {
+
+	private final TreeMap<Long, String> ring = new TreeMap<>();
+
+	private final Set<String> nodes;
+
+	public ShardRing(Collection<String> nodes, int virtualNodes) {
+		if (nodes == null || nodes.isEmpty())
+			throw new IllegalArgumentException("ShardRing needs at least one node");
+		if (virtualNodes <= 0)
+			throw new IllegalArgumentException("virtualNodes must be positive");
+		Set<String> distinct = new LinkedHashSet<>();
+		for (String node : nodes)
+			distinct.add(node.trim());
+		for (String node : distinct) {
+			for (int i = 0; i < virtualNodes; i++) {
+				// 极少数哈希冲突时按节点名取较小的一个，保证结果和节点列表的顺序无关
+				ring.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+			}
+		}
+		this.nodes = Collections.unmodifiableSet(distinct);
+	}
+
+	/**
+	 * @return 负责该城市的节点，城市为空时返回null
+	 */
+	public String ownerOf(String city) {
+		String key = cityKey(city);
+		if (key == null)
+			return null;
+		Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+		return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	public Set<String> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * 城市名忽略大小写和首尾空白，"Pune" 和 " pune" 落在同一个分片
+	 */
+	public static String cityKey(String city) {
+		if (city == null)
+			return null;
+		String key = city.trim().toLowerCase(Locale.ROOT);
+		return key.isEmpty() ? null : key;
+	}
+
+	// 取MD5的前8个字节，分布均匀且各节点、各JVM结果一致（String.hashCode 的分布太集中）
+	private static long hash(String value) {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		long h = 0;
+		for (int i = 0; i < 8; i++)
+			h = (h << 8) | (digest[i] & 0xff);
+		return h;
+	}
+}
@@ -0,0 +1,34 @@
+package com.masai.dto.request;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+
+import lombok.Data;
+
+@Data
+public class FareQuoteRequest {
+
+    // 用于区域加价，可以为空
+    private String city;
+
+    @Valid
+    @NotEmpty(message = "报价项不能为空")
+    @Size(max = 500, message = "一次最多报价500项")
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+
+        // 为空时报出所有车型的价格
+        private String carType;
+
+        @NotNull(message = "距离不能为空")
+        @PositiveOrZero(message = "距离不能为负数")
+        private Integer km;
+    }
+}
@@ -0,0 +1,16 @@
+package com.masai.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingQueueStats {
+    private int queued;
+    private int capacity;
+    private int activeWorkers;
+    private long completed;
+    private long rejected;
+}
@@ -0,0 +1,5 @@
+package com.masai.dto.response;
+
+public enum BookingStatus {
+	PENDING,BOOKED,FAILED;
+}
@@ -0,0 +1,22 @@
+package com.masai.dto.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 异步预约的回执，客户端凭ticketId轮询结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingTicket {
+    private String ticketId;
+    private BookingStatus status;
+    private Integer tripBookingId;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,14 @@
+package com.masai.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CabTypeCount {
+    private String carType;
+    private long cabs;
+    private int availableDrivers;
+}
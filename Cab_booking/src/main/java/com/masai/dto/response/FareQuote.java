@@ -0,0 +1,15 @@
+package com.masai.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareQuote {
+    private String carType;
+    private Integer km;
+    // 未知车型为null
+    private Integer fare;
+}
@@ -0,0 +1,18 @@
+package com.masai.dto.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ImportReport {
+    private long received;
+    private long imported;
+    private long failed;
+    private long elapsedMs;
+    // 最多保留 import.max-errors 条，超出的只计入failed
+    private List<ImportRowError> errors = new ArrayList<>();
+}
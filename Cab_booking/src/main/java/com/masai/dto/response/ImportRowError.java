@@ -0,0 +1,14 @@
+package com.masai.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowError {
+    // 文件中的行号，从1开始，CSV表头是第1行
+    private int line;
+    private String message;
+}
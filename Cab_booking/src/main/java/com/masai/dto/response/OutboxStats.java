@@ -0,0 +1,16 @@
+package com.masai.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStats {
+    private long pending;
+    private long failed;
+    private long delivered;
+    private long deliveryFailures;
+    private int subscribers;
+}
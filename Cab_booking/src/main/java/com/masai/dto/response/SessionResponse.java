@@ -0,0 +1,16 @@
+package com.masai.dto.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionResponse {
+    private Integer userId;
+    private String userType;
+    private LocalDateTime loginTime;
+}
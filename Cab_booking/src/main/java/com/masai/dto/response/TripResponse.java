@@ -2,9 +2,13 @@ package com.masai.dto.response;
 
 import java.time.LocalDate;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TripResponse {
     private Integer tripBookingId;
     private Integer customerId;
@@ -13,6 +17,9 @@ public class TripResponse {
     private LocalDate fromdateTime;
     private LocalDate todateTime;
     private Integer km;
+    private Integer etaMinutes;
     private Integer totalAmount;
     private Boolean payment;
-}
\ No newline at end of file
+    private Integer driverId;
+    private String carType;
+}
@@ -7,16 +7,22 @@ import java.io.Serializable;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -26,13 +32,18 @@ import lombok.ToString;
 
 @Entity
 @Inheritance(strategy=InheritanceType.JOINED)
+// 二级缓存的区域只能定义在继承树的根上，子类默认继承，不需要缓存的子类用 @Cacheable(false) 关掉，目前只缓存 Driver
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@Table(indexes = @Index(name = "uk_user_email", columnList = "Email", unique = true))
 @Data
 @ToString
 @AllArgsConstructor
 @NoArgsConstructor
 public abstract class Abstractuser implements Serializable {
 	
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = "user_seq")
+	@GenericGenerator(name = "user_seq", strategy = "com.masai.config.PooledIdGenerator",
+			parameters = @Parameter(name = "sequence_name", value = "user_seq"))
 	@Id
 	@EqualsAndHashCode.Include
 	private Integer userId;
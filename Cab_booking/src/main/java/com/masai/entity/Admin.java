@@ -1,5 +1,6 @@
 package com.masai.entity;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.PrimaryKeyJoinColumn;
 
@@ -11,7 +12,7 @@ import lombok.NoArgsConstructor;
 @Entity
 @Data
 @NoArgsConstructor
-
+@Cacheable(false)
 @PrimaryKeyJoinColumn(name="adminId")
 public class Admin extends Abstractuser {
 
@@ -0,0 +1,114 @@
+package com.masai.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 已完成并超过保留期的行程，从 trip_booking 搬过来后不再修改
+ * 主键带上结束月份，MySQL上可以按 archive_month 做 RANGE 分区，过期的月份整区删除
+ * 归档条件要求结束日期非空，出发日期可能为空，所以按结束日期分月
+ * 司机只保存id和车型快照，不再关联 driver 表
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(ArchivedTrip.Key.class)
+@Table(indexes = @Index(name = "idx_archive_customer_date", columnList = "CustomerId, Fromdate_time, TripBookingId"))
+public class ArchivedTrip {
+
+	// 结束日期的年月，如202610
+	@Id
+	private Integer archiveMonth;
+
+	@Id
+	private Integer TripBookingId;
+
+	private Integer CustomerId;
+
+	private Integer driverId;
+
+	private String From_location;
+
+	private String To_location;
+
+	private LocalDate Fromdate_time;
+
+	private LocalDate Todate_time;
+
+	private Double pickupLatitude;
+	private Double pickupLongitude;
+	private Double dropoffLatitude;
+	private Double dropoffLongitude;
+	private String pickupCity;
+
+	private String carType;
+
+	private Integer km;
+	private Integer etaMinutes;
+	private Integer Totalamount;
+	private Boolean Payment;
+
+	private LocalDateTime archivedAt;
+
+	public static int monthOf(LocalDate date) {
+		return date.getYear() * 100 + date.getMonthValue();
+	}
+
+	public static ArchivedTrip of(TripBooking trip, LocalDateTime archivedAt) {
+		Driver driver = trip.getDriver();
+		return new ArchivedTrip(monthOf(trip.getTodate_time()), trip.getTripBookingId(), trip.getCustomerId(),
+				driver == null ? null : driver.getUserId(), trip.getFrom_location(), trip.getTo_location(),
+				trip.getFromdate_time(), trip.getTodate_time(), trip.getPickupLatitude(), trip.getPickupLongitude(),
+				trip.getDropoffLatitude(), trip.getDropoffLongitude(), trip.getPickupCity(), trip.getCarType(),
+				trip.getKm(), trip.getEtaMinutes(), trip.getTotalamount(), trip.getPayment(), archivedAt);
+	}
+
+	/**
+	 * 还原成行程返回给历史查询，司机已删除时为null
+	 */
+	public TripBooking toTrip(Driver driver) {
+		TripBooking trip = new TripBooking();
+		trip.setTripBookingId(TripBookingId);
+		trip.setCustomerId(CustomerId);
+		trip.setDriver(driver);
+		trip.setFrom_location(From_location);
+		trip.setTo_location(To_location);
+		trip.setFromdate_time(Fromdate_time);
+		trip.setTodate_time(Todate_time);
+		trip.setPickupLatitude(pickupLatitude);
+		trip.setPickupLongitude(pickupLongitude);
+		trip.setDropoffLatitude(dropoffLatitude);
+		trip.setDropoffLongitude(dropoffLongitude);
+		trip.setPickupCity(pickupCity);
+		trip.setCarType(carType);
+		trip.setKm(km);
+		trip.setEtaMinutes(etaMinutes);
+		trip.setTotalamount(Totalamount);
+		trip.setPayment(Payment);
+		return trip;
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Key implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private Integer archiveMonth;
+
+		private Integer TripBookingId;
+	}
+}
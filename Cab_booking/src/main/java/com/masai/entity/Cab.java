@@ -1,13 +1,18 @@
 package com.masai.entity;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.AllArgsConstructor;
@@ -20,10 +25,14 @@ import lombok.ToString;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cab")
 
 public class Cab {
 @Id
-@GeneratedValue(strategy=GenerationType.AUTO)
+@GeneratedValue(generator = "cab_seq")
+@GenericGenerator(name = "cab_seq", strategy = "com.masai.config.PooledIdGenerator",
+		parameters = @Parameter(name = "sequence_name", value = "cab_seq"))
 private Integer cabId;
 private String carType;
 private Integer ratePerKm;
@@ -5,9 +5,11 @@ import java.time.LocalDateTime;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -20,7 +22,9 @@ import lombok.ToString;
 @ToString
 public class CurrentUserSession {
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = "session_seq")
+	@GenericGenerator(name = "session_seq", strategy = "com.masai.config.PooledIdGenerator",
+			parameters = @Parameter(name = "sequence_name", value = "session_seq"))
 	private Integer id;
 	
 	@Column(unique = true)
@@ -30,6 +34,10 @@ public class CurrentUserSession {
 	
 	private LocalDateTime localDateTime;
 
+	// customer 或 driver，重启后恢复会话时使用
+	@ToString.Exclude
+	private String userType;
+
 	public CurrentUserSession(Integer userId, String uuid, LocalDateTime localDateTime) {
 		super();
 		this.userId = userId;
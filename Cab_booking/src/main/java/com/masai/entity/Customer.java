@@ -1,5 +1,6 @@
 package com.masai.entity;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.validation.constraints.Email;
@@ -16,6 +17,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Cacheable(false)
 @PrimaryKeyJoinColumn(name="customerId")
 public class Customer extends Abstractuser {
 
@@ -2,6 +2,7 @@ package com.masai.entity;
 
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
@@ -27,6 +28,7 @@ import lombok.ToString;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
+@Cacheable
 @PrimaryKeyJoinColumn(name="driverId")
 public class Driver extends Abstractuser {
 
@@ -43,6 +45,15 @@ public class Driver extends Abstractuser {
     @NotNull(message = "可用状态不能为空")
     private Boolean available;
 
+    // 司机当前位置，用于就近派单，未上报时为null
+    @DecimalMin(value = "-90.0", message = "纬度不能低于-90")
+    @DecimalMax(value = "90.0", message = "纬度不能高于90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180.0", message = "经度不能低于-180")
+    @DecimalMax(value = "180.0", message = "经度不能高于180")
+    private Double longitude;
+
     @NotNull(message = "车辆信息不能为空")
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "cabId")
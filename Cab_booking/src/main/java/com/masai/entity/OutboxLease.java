@@ -0,0 +1,28 @@
+package com.masai.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 发件箱中继的租约，同一时间只有持有者投递事件，到期不续就由别的节点接手
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxLease {
+
+	@Id
+	private String name;
+
+	// 持有租约的中继，为null表示还没人取得过
+	private String holder;
+
+	private LocalDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.masai.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 提前登出的无状态令牌，令牌本身过期后这一行就可以删掉
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_revoked_expires", columnList = "expiresAt"))
+public class RevokedToken {
+
+	@Id
+	private Long tokenId;
+
+	private LocalDateTime expiresAt;
+}
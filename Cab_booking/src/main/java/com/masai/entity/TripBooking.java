@@ -5,15 +5,22 @@ import java.time.LocalDate;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToOne;
 import javax.persistence.SecondaryTable;
+import javax.persistence.Table;
 import javax.validation.constraints.FutureOrPresent;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import org.springframework.format.annotation.DateTimeFormat;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -33,9 +40,17 @@ import lombok.ToString;
 @NoArgsConstructor
 @ToString
 @EqualsAndHashCode
+@NamedEntityGraph(name = "TripBooking.driver", attributeNodes = @NamedAttributeNode(value = "driver", subgraph = "driver"),
+		subgraphs = @NamedSubgraph(name = "driver", attributeNodes = { @NamedAttributeNode("cab"), @NamedAttributeNode("address") }))
+@Table(indexes = {
+		@Index(name = "idx_trip_customer", columnList = "CustomerId, TripBookingId"),
+		@Index(name = "idx_trip_fromdate", columnList = "Fromdate_time, TripBookingId"),
+		@Index(name = "idx_trip_customer_date", columnList = "CustomerId, Fromdate_time, TripBookingId") })
 public class TripBooking {
 	   @Id
-	   @GeneratedValue(strategy = GenerationType.AUTO)
+	   @GeneratedValue(generator = "trip_booking_seq")
+	   @GenericGenerator(name = "trip_booking_seq", strategy = "com.masai.config.PooledIdGenerator",
+	   		parameters = @Parameter(name = "sequence_name", value = "trip_booking_seq"))
 	   private Integer TripBookingId;
 	   @NonNull
 	   private Integer CustomerId; 
@@ -62,7 +77,23 @@ public class TripBooking {
 	    @DateTimeFormat(pattern = "yyyy-MM-dd")
        private LocalDate Todate_time;
 	   
+       // 上车点坐标，可选，有坐标时按距离就近派单
+       private Double pickupLatitude;
+       private Double pickupLongitude;
+
+       // 终点坐标，可选，没有时由目的地名称解析
+       private Double dropoffLatitude;
+       private Double dropoffLongitude;
+
+       // 上车点所在城市，由出发地名称解析，用于区域加价
+       private String pickupCity;
+
+       // 指定车型，可选，为空时不限车型
+       private String carType;
+
        private Integer km;
+       // 预计用时（分钟），有路网时由服务端计算
+       private Integer etaMinutes;
        private Integer  Totalamount;
        private Boolean Payment;
    
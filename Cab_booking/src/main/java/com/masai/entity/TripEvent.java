@@ -0,0 +1,70 @@
+package com.masai.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.masai.outbox.TripEventType;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 行程事件发件箱，和行程修改在同一个事务里写入，由 OutboxRelay 投递后打上 publishedAt
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_event_pending", columnList = "publishedAt, id"))
+public class TripEvent {
+
+	@Id
+	@GeneratedValue(generator = "trip_event_seq")
+	@GenericGenerator(name = "trip_event_seq", strategy = "com.masai.config.PooledIdGenerator",
+			parameters = @Parameter(name = "sequence_name", value = "trip_event_seq"))
+	private Long id;
+
+	@Enumerated(EnumType.STRING)
+	private TripEventType type;
+
+	private Integer tripBookingId;
+
+	private Integer customerId;
+
+	private Integer driverId;
+
+	private Integer fare;
+
+	private Boolean payment;
+
+	private LocalDateTime occurredAt;
+
+	// 投递成功或放弃投递的时间，为null表示待投递
+	private LocalDateTime publishedAt;
+
+	private int attempts;
+
+	// 超过重试次数后放弃投递
+	private boolean failed;
+
+	public static TripEvent of(TripEventType type, TripBooking trip, LocalDateTime occurredAt) {
+		TripEvent event = new TripEvent();
+		event.setType(type);
+		event.setTripBookingId(trip.getTripBookingId());
+		event.setCustomerId(trip.getCustomerId());
+		event.setDriverId(trip.getDriver() == null ? null : trip.getDriver().getUserId());
+		event.setFare(trip.getTotalamount());
+		event.setPayment(trip.getPayment());
+		event.setOccurredAt(occurredAt);
+		return event;
+	}
+}
@@ -0,0 +1,81 @@
+package com.masai.entity;
+
+import java.time.LocalDate;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 行程报表用的扁平读模型，一行包含客户名、司机名、车型和车费，查询时不再连表
+ * 和行程在同一个事务里由 TripViewProjector 维护；行程归档后这里的行保留
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties({ "id", "new", "fresh" })
+@Table(indexes = {
+		@Index(name = "idx_view_customer", columnList = "customerId, tripBookingId"),
+		@Index(name = "idx_view_driver", columnList = "driverId, tripBookingId"),
+		@Index(name = "idx_view_fromdate", columnList = "fromdateTime, tripBookingId"),
+		@Index(name = "idx_view_customer_date", columnList = "customerId, fromdateTime, tripBookingId") })
+public class TripView implements Persistable<Integer> {
+
+	@Id
+	private Integer tripBookingId;
+
+	private Integer customerId;
+
+	private String customerName;
+
+	private Integer driverId;
+
+	private String driverName;
+
+	// 派单时司机的车型
+	private String carType;
+
+	private String fromLocation;
+
+	private String toLocation;
+
+	private LocalDate fromdateTime;
+
+	private LocalDate todateTime;
+
+	private Integer km;
+
+	private Integer etaMinutes;
+
+	private Integer fare;
+
+	private Boolean payment;
+
+	// 新建的行直接insert，不用先按主键查一次
+	@Transient
+	private boolean fresh;
+
+	public TripView(Integer tripBookingId) {
+		this.tripBookingId = tripBookingId;
+		this.fresh = true;
+	}
+
+	@Override
+	public Integer getId() {
+		return tripBookingId;
+	}
+
+	@Override
+	public boolean isNew() {
+		return fresh;
+	}
+}
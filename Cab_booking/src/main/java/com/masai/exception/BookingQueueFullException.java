@@ -0,0 +1,10 @@
+package com.masai.exception;
+
+public class BookingQueueFullException extends RuntimeException {
+	public BookingQueueFullException() {
+		
+	}
+	public BookingQueueFullException(String message) {
+		super(message);
+	}
+}
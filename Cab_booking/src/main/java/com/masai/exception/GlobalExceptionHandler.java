@@ -3,13 +3,18 @@ package com.masai.exception;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
+import javax.validation.ConstraintViolationException;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.context.request.WebRequest;
 
 @ControllerAdvice
@@ -45,5 +50,66 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(err, HttpStatus.BAD_REQUEST);
     }
 
+    // 异步派单队列已满，返回503让客户端稍后重试
+    @ExceptionHandler(BookingQueueFullException.class)
+    public ResponseEntity<MyErrorDetails> bookingQueueFullHandler(BookingQueueFullException be, WebRequest wr) {
+        MyErrorDetails err = new MyErrorDetails(LocalDateTime.now(), be.getMessage(), wr.getDescription(false));
+        return new ResponseEntity<>(err, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // 分页游标无法解析或不属于当前接口
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<MyErrorDetails> invalidCursorHandler(InvalidCursorException ce, WebRequest wr) {
+        MyErrorDetails err = new MyErrorDetails(LocalDateTime.now(), ce.getMessage(), wr.getDescription(false));
+        return new ResponseEntity<>(err, HttpStatus.BAD_REQUEST);
+    }
+
+    // 用户已存在（邮箱重复注册、重复登录），返回409
+    @ExceptionHandler(UserAlreadyExistWithuserId.class)
+    public ResponseEntity<MyErrorDetails> userExistsHandler(UserAlreadyExistWithuserId ue, WebRequest wr) {
+        MyErrorDetails err = new MyErrorDetails(LocalDateTime.now(), ue.getMessage(), wr.getDescription(false));
+        return new ResponseEntity<>(err, HttpStatus.CONFLICT);
+    }
+
+    // 导入文件格式不对（缺少表头、未知列、不支持的类型），整个文件都无法处理
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<MyErrorDetails> invalidImportHandler(InvalidImportException ie, WebRequest wr) {
+        MyErrorDetails err = new MyErrorDetails(LocalDateTime.now(), ie.getMessage(), wr.getDescription(false));
+        return new ResponseEntity<>(err, HttpStatus.BAD_REQUEST);
+    }
+
+    // 负责该城市的派单节点连不上，返回503让客户端稍后重试
+    @ExceptionHandler(ShardUnavailableException.class)
+    public ResponseEntity<MyErrorDetails> shardUnavailableHandler(ShardUnavailableException se, WebRequest wr) {
+        MyErrorDetails err = new MyErrorDetails(LocalDateTime.now(), se.getMessage(), wr.getDescription(false));
+        return new ResponseEntity<>(err, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // /shard/trip 只给派单节点之间转发用，密钥不对时返回403
+    @ExceptionHandler(ShardAccessDeniedException.class)
+    public ResponseEntity<MyErrorDetails> shardAccessDeniedHandler(ShardAccessDeniedException se, WebRequest wr) {
+        MyErrorDetails err = new MyErrorDetails(LocalDateTime.now(), se.getMessage(), wr.getDescription(false));
+        return new ResponseEntity<>(err, HttpStatus.FORBIDDEN);
+    }
+
+    // 转发给其它派单节点的请求出错时，把对方的状态码和响应体原样返回
+    @ExceptionHandler(HttpStatusCodeException.class)
+    public ResponseEntity<String> forwardedErrorHandler(HttpStatusCodeException he) {
+        HttpHeaders headers = new HttpHeaders();
+        if (he.getResponseHeaders() != null && he.getResponseHeaders().getContentType() != null)
+            headers.setContentType(he.getResponseHeaders().getContentType());
+        return new ResponseEntity<>(he.getResponseBodyAsString(), headers, he.getStatusCode());
+    }
+
+    // 请求参数（@RequestParam、@PathVariable）上的约束不满足，如 limit 超出范围
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<MyErrorDetails> constraintViolationHandler(ConstraintViolationException ce, WebRequest wr) {
+        String message = ce.getConstraintViolations().stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .collect(Collectors.joining(", "));
+        MyErrorDetails err = new MyErrorDetails(LocalDateTime.now(), message, wr.getDescription(false));
+        return new ResponseEntity<>(err, HttpStatus.BAD_REQUEST);
+    }
+
     // ... 其他异常处理方法
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.masai.exception;
+
+public class InvalidCursorException extends RuntimeException {
+	public InvalidCursorException() {
+		
+	}
+	public InvalidCursorException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,10 @@
+package com.masai.exception;
+
+public class InvalidImportException extends RuntimeException {
+	public InvalidImportException() {
+		
+	}
+	public InvalidImportException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,10 @@
+package com.masai.exception;
+
+public class ShardAccessDeniedException extends RuntimeException {
+	public ShardAccessDeniedException() {
+		
+	}
+	public ShardAccessDeniedException(String message) {
+		super(message);
+	}
+}
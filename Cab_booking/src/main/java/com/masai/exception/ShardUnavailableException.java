@@ -0,0 +1,10 @@
+package com.masai.exception;
+
+public class ShardUnavailableException extends RuntimeException {
+	public ShardUnavailableException() {
+		
+	}
+	public ShardUnavailableException(String message) {
+		super(message);
+	}
+}
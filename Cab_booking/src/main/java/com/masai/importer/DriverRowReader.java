@@ -0,0 +1,217 @@
+package com.masai.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.masai.dto.request.DriverRequest;
+import com.masai.entity.Address;
+import com.masai.entity.Cab;
+import com.masai.exception.InvalidImportException;
+
+/**
+ * 逐行读取司机导入文件，不把整个文件读进内存
+ * CSV第一行是列名，列的顺序不限；NDJSON每行一个和 POST /drivers 相同结构的JSON对象。空行跳过
+ */
+public class DriverRowReader {
+
+	public static final String[] CSV_COLUMNS = { "username", "password", "mobile", "email", "licenseNo", "rating",
+			"available", "state", "city", "pincode", "carType", "ratePerKm" };
+
+	private final BufferedReader reader;
+
+	private final ObjectMapper objectMapper;
+
+	// CSV列名 -> 列下标，NDJSON时为null
+	private final Map<String, Integer> columns;
+
+	private int line;
+
+	private DriverRowReader(Reader reader, ObjectMapper objectMapper, boolean csv) throws IOException {
+		this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		this.objectMapper = objectMapper;
+		this.columns = csv ? readHeader() : null;
+	}
+
+	public static DriverRowReader csv(Reader reader) throws IOException {
+		return new DriverRowReader(reader, null, true);
+	}
+
+	public static DriverRowReader ndjson(Reader reader, ObjectMapper objectMapper) throws IOException {
+		return new DriverRowReader(reader, objectMapper, false);
+	}
+
+	/**
+	 * @return 下一行，文件读完时返回null；解析失败的行带着错误信息返回，不中断读取
+	 */
+	public Row next() throws IOException {
+		String text;
+		do {
+			text = reader.readLine();
+			line++;
+			if (text == null)
+				return null;
+		} while (text.trim().isEmpty());
+		try {
+			return new Row(line, columns == null ? objectMapper.readValue(text, DriverRequest.class) : fromCsv(text), null);
+		} catch (JsonProcessingException e) {
+			return new Row(line, null, "Invalid JSON: " + e.getOriginalMessage());
+		} catch (IllegalArgumentException e) {
+			return new Row(line, null, e.getMessage());
+		}
+	}
+
+	private Map<String, Integer> readHeader() throws IOException {
+		String header = reader.readLine();
+		line++;
+		if (header == null)
+			throw new InvalidImportException("CSV header is missing");
+		// 去掉Excel导出时带的BOM
+		if (header.startsWith("\uFEFF"))
+			header = header.substring(1);
+		Map<String, Integer> result = new HashMap<>();
+		List<String> names = split(header);
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i).trim();
+			if (!isColumn(name))
+				throw new InvalidImportException("Unknown CSV column: " + name);
+			result.put(name, i);
+		}
+		return result;
+	}
+
+	private static boolean isColumn(String name) {
+		for (String column : CSV_COLUMNS) {
+			if (column.equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	private DriverRequest fromCsv(String text) {
+		List<String> values = split(text);
+		if (values.size() != columns.size())
+			throw new IllegalArgumentException("Expected " + columns.size() + " columns but found " + values.size());
+		DriverRequest request = new DriverRequest();
+		request.setUsername(value(values, "username"));
+		request.setPassword(value(values, "password"));
+		request.setMobile(value(values, "mobile"));
+		request.setEmail(value(values, "email"));
+		request.setLicenseNo(value(values, "licenseNo"));
+		request.setRating(decimal(values, "rating"));
+		request.setAvailable(bool(values, "available"));
+
+		Address address = new Address();
+		address.setState(value(values, "state"));
+		address.setCity(value(values, "city"));
+		address.setPincode(value(values, "pincode"));
+		request.setAddress(address);
+
+		Cab cab = new Cab();
+		cab.setCarType(value(values, "carType"));
+		cab.setRatePerKm(integer(values, "ratePerKm"));
+		request.setCab(cab);
+		return request;
+	}
+
+	private String value(List<String> values, String column) {
+		Integer index = columns.get(column);
+		if (index == null)
+			return null;
+		String value = values.get(index).trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	private Double decimal(List<String> values, String column) {
+		String value = value(values, column);
+		try {
+			return value == null ? null : Double.valueOf(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Column " + column + " is not a number: " + value);
+		}
+	}
+
+	private Boolean bool(List<String> values, String column) {
+		String value = value(values, column);
+		if (value == null)
+			return null;
+		if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))
+			return Boolean.valueOf(value);
+		throw new IllegalArgumentException("Column " + column + " must be true or false: " + value);
+	}
+
+	private Integer integer(List<String> values, String column) {
+		String value = value(values, column);
+		try {
+			return value == null ? null : Integer.valueOf(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Column " + column + " is not an integer: " + value);
+		}
+	}
+
+	/**
+	 * 按逗号拆分一行，支持双引号包起来的值和 "" 转义
+	 */
+	static List<String> split(String text) {
+		List<String> values = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+					current.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					current.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(current.toString());
+				current.setLength(0);
+			} else {
+				current.append(c);
+			}
+		}
+		if (quoted)
+			throw new IllegalArgumentException("Unterminated quoted value");
+		values.add(current.toString());
+		return values;
+	}
+
+	/**
+	 * 读出的一行，request和error有且只有一个不为null
+	 */
+	public static class Row {
+		private final int line;
+		private final DriverRequest request;
+		private final String error;
+
+		private Row(int line, DriverRequest request, String error) {
+			this.line = line;
+			this.request = request;
+			this.error = error;
+		}
+
+		public int getLine() {
+			return line;
+		}
+
+		public DriverRequest getRequest() {
+			return request;
+		}
+
+		public String getError() {
+			return error;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.masai.location;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 离线地名录
+ * 每行格式为 name,city,latitude,longitude,aliases，别名之间用 | 分隔，# 开头的行是注释
+ * 地名和别名归一化后作为查找键，归一化会忽略大小写、空白、标点以及全角半角差异
+ */
+public class Gazetteer {
+
+	private static final Pattern COORDINATES = Pattern.compile("\\s*(-?\\d{1,2}(?:\\.\\d+)?)\\s*[,，]\\s*(-?\\d{1,3}(?:\\.\\d+)?)\\s*");
+
+	private static final Pattern IGNORED = Pattern.compile("[\\s\\p{Punct}\\p{IsPunctuation}]+");
+
+	private final Map<String, ResolvedLocation> places;
+
+	private Gazetteer(Map<String, ResolvedLocation> places) {
+		this.places = Collections.unmodifiableMap(places);
+	}
+
+	public static Gazetteer load(Reader source) throws IOException {
+		Map<String, ResolvedLocation> places = new HashMap<>();
+		// 城市名大量重复，加载时去重，所有地点共享同一个字符串
+		Map<String, String> cities = new HashMap<>();
+		BufferedReader reader = new BufferedReader(source);
+		String line;
+		int lineNo = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNo++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String[] columns = line.split(",", -1);
+			if (columns.length < 4)
+				throw new IllegalArgumentException("Malformed gazetteer line " + lineNo + ": " + line);
+			String name = columns[0].trim();
+			String city = cities.computeIfAbsent(columns[1].trim(), c -> c);
+			ResolvedLocation place;
+			try {
+				place = new ResolvedLocation(name, city, Double.parseDouble(columns[2].trim()),
+						Double.parseDouble(columns[3].trim()));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Malformed gazetteer line " + lineNo + ": " + line, e);
+			}
+			places.putIfAbsent(normalize(name), place);
+			if (columns.length > 4) {
+				for (String alias : columns[4].split("\\|")) {
+					String key = normalize(alias);
+					if (!key.isEmpty())
+						places.putIfAbsent(key, place);
+				}
+			}
+		}
+		return new Gazetteer(places);
+	}
+
+	/**
+	 * 查找地名，也接受 "纬度,经度" 形式的坐标
+	 * @return 找不到时返回null
+	 */
+	public ResolvedLocation lookup(String raw) {
+		if (raw == null)
+			return null;
+		Matcher matcher = COORDINATES.matcher(raw);
+		if (matcher.matches()) {
+			double latitude = Double.parseDouble(matcher.group(1));
+			double longitude = Double.parseDouble(matcher.group(2));
+			if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180)
+				return new ResolvedLocation(raw.trim(), null, latitude, longitude);
+		}
+		return places.get(normalize(raw));
+	}
+
+	public int size() {
+		return places.size();
+	}
+
+	static String normalize(String raw) {
+		String folded = Normalizer.normalize(raw, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		return IGNORED.matcher(folded).replaceAll("");
+	}
+}
@@ -0,0 +1,73 @@
+package com.masai.location;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把行程里的起终点文本解析成坐标
+ * 原始文本到解析结果的映射放在有界的LRU缓存里，热门地点不用每次都重新归一化，查不到的文本也会缓存
+ */
+@Component
+public class LocationResolver {
+
+	private static final ResolvedLocation MISS = new ResolvedLocation("", null, 0, 0);
+
+	@Value("${location.gazetteer:classpath:gazetteer.csv}")
+	private Resource source;
+
+	@Value("${location.cache-size:10000}")
+	private int cacheSize;
+
+	private volatile Gazetteer gazetteer;
+
+	private Map<String, ResolvedLocation> cache;
+
+	@PostConstruct
+	public void load() throws IOException {
+		try (Reader reader = new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8)) {
+			gazetteer = Gazetteer.load(reader);
+		}
+		cache = new LinkedHashMap<String, ResolvedLocation>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ResolvedLocation> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * @return 解析不出来时返回null
+	 */
+	public ResolvedLocation resolve(String raw) {
+		if (raw == null)
+			return null;
+		ResolvedLocation cached;
+		synchronized (cache) {
+			cached = cache.get(raw);
+		}
+		if (cached == null) {
+			ResolvedLocation found = gazetteer.lookup(raw);
+			cached = found == null ? MISS : found;
+			synchronized (cache) {
+				cache.put(raw, cached);
+			}
+		}
+		return cached == MISS ? null : cached;
+	}
+
+	public int cachedCount() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.masai.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 地名解析结果，同一个地名的所有别名共享同一个实例
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ResolvedLocation {
+
+	// 规范名，地名录里的第一列
+	private final String name;
+
+	// 输入的是经纬度时为null
+	private final String city;
+
+	private final double latitude;
+
+	private final double longitude;
+}
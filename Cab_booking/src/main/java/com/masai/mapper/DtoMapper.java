@@ -8,8 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.masai.dto.request.CustomerRequest;
+import com.masai.dto.request.DriverRequest;
 import com.masai.dto.response.CustomerResponse;
 import com.masai.entity.Customer;
+import com.masai.entity.Driver;
 
 @Component
 public class DtoMapper {
@@ -34,4 +36,8 @@ public class DtoMapper {
     public CustomerRequest toCustomerRequest(Customer customer) {
         return modelMapper.map(customer, CustomerRequest.class);
     }
+
+    public Driver toDriverEntity(DriverRequest request) {
+        return modelMapper.map(request, Driver.class);
+    }
 }
\ No newline at end of file
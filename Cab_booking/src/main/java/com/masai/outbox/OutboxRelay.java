@@ -0,0 +1,160 @@
+package com.masai.outbox;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.entity.TripEvent;
+import com.masai.repository.OutboxLeaseDao;
+import com.masai.repository.TripEventDao;
+
+/**
+ * 把发件箱里的行程事件按id顺序分批投递给进程内订阅者
+ * 一批投递完后一次性打上 publishedAt 作为检查点，进程在检查点之前退出的话这批会重投，所以是至少一次。
+ * 某个事件处理失败时本批停在它前面，保证后面的事件不会越过它；重试 max-attempts 次后放弃并标记 failed。
+ * 多个节点都开着中继时靠 outbox_lease 里的租约选出一个投递，其它节点空转，持有者停掉后租约过期由别的节点接手
+ */
+@Component
+public class OutboxRelay {
+
+	private static final String LEASE = "outbox-relay";
+
+	@Autowired
+	private TripEventDao tripEventDao;
+
+	@Autowired
+	private OutboxLeaseDao outboxLeaseDao;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired(required = false)
+	private List<TripEventSubscriber> subscribers = Collections.emptyList();
+
+	@Value("${outbox.relay.enabled:true}")
+	private boolean enabled;
+
+	@Value("${outbox.relay.batch-size:200}")
+	private int batchSize;
+
+	@Value("${outbox.relay.max-attempts:10}")
+	private int maxAttempts;
+
+	@Value("${outbox.relay.lease-ms:30000}")
+	private long leaseMs;
+
+	@Value("${outbox.retention-hours:24}")
+	private int retentionHours;
+
+	private final AtomicLong delivered = new AtomicLong();
+
+	private final AtomicLong failures = new AtomicLong();
+
+	// 租约持有者的标识，每个进程不同
+	private final String holder = UUID.randomUUID().toString();
+
+	@Scheduled(fixedDelayString = "${outbox.relay.poll-ms:500}")
+	public void relay() {
+		if (!enabled)
+			return;
+		int moved;
+		do {
+			moved = relayBatch();
+		} while (moved == batchSize);
+	}
+
+	/**
+	 * @return 本批成功投递的事件数，小于批大小时说明暂时没有更多事件或遇到了失败
+	 */
+	int relayBatch() {
+		// 每批开始前续期，没有租约的节点不投递
+		if (!holdLease())
+			return 0;
+		// 读写事务走主库，不会从有延迟的副本读到已经投递过的事件
+		List<TripEvent> batch = transactionTemplate.execute(status -> tripEventDao.findPending(PageRequest.of(0, batchSize)));
+		if (batch.isEmpty())
+			return 0;
+		List<Long> done = new ArrayList<>(batch.size());
+		for (TripEvent event : batch) {
+			if (!deliver(event))
+				break;
+			done.add(event.getId());
+		}
+		if (!done.isEmpty()) {
+			tripEventDao.markPublished(done, LocalDateTime.now());
+			delivered.addAndGet(done.size());
+		}
+		return done.size();
+	}
+
+	/**
+	 * 取得或续期租约，租约行不存在时先插入一行已过期的
+	 */
+	private boolean holdLease() {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime until = now.plus(leaseMs, ChronoUnit.MILLIS);
+		if (outboxLeaseDao.acquire(LEASE, holder, now, until) == 1)
+			return true;
+		if (outboxLeaseDao.existsById(LEASE))
+			return false;
+		try {
+			outboxLeaseDao.create(LEASE, now.minus(leaseMs, ChronoUnit.MILLIS));
+		} catch (DataIntegrityViolationException e) {
+			// 别的节点同时插入了，下面照样去抢
+		}
+		return outboxLeaseDao.acquire(LEASE, holder, now, until) == 1;
+	}
+
+	// 正常停机时交出租约，别的节点不用等到过期
+	@PreDestroy
+	public void releaseLease() {
+		if (enabled)
+			outboxLeaseDao.release(LEASE, holder, LocalDateTime.now());
+	}
+
+	private boolean deliver(TripEvent event) {
+		try {
+			for (TripEventSubscriber subscriber : subscribers)
+				subscriber.onEvent(event);
+			return true;
+		} catch (RuntimeException e) {
+			failures.incrementAndGet();
+			if (event.getAttempts() + 1 >= maxAttempts)
+				tripEventDao.markFailed(event.getId(), LocalDateTime.now());
+			else
+				tripEventDao.incrementAttempts(event.getId());
+			return false;
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${outbox.purge-ms:3600000}")
+	public void purge() {
+		tripEventDao.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours));
+	}
+
+	public long getDelivered() {
+		return delivered.get();
+	}
+
+	public long getFailures() {
+		return failures.get();
+	}
+
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+}
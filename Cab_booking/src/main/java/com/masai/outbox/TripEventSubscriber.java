@@ -0,0 +1,12 @@
+package com.masai.outbox;
+
+import com.masai.entity.TripEvent;
+
+/**
+ * 行程事件的进程内订阅者，注册成Spring bean即可
+ * 投递至少一次：同一事件可能重复收到，实现需要按事件id幂等；抛出异常表示处理失败，稍后重投
+ */
+public interface TripEventSubscriber {
+
+	public void onEvent(TripEvent event);
+}
@@ -0,0 +1,8 @@
+package com.masai.outbox;
+
+/**
+ * 行程生命周期事件
+ */
+public enum TripEventType {
+	BOOKED, UPDATED, ENDED, DELETED
+}
@@ -0,0 +1,35 @@
+package com.masai.outbox;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.masai.entity.TripBooking;
+import com.masai.entity.TripEvent;
+import com.masai.repository.TripEventDao;
+
+/**
+ * 写入行程事件，必须在修改行程的同一个事务里调用，事务回滚时事件一起消失
+ */
+@Component
+public class TripOutbox {
+
+	@Autowired
+	private TripEventDao tripEventDao;
+
+	public void record(TripEventType type, TripBooking trip) {
+		tripEventDao.save(TripEvent.of(type, trip, LocalDateTime.now()));
+	}
+
+	public void recordAll(TripEventType type, Collection<TripBooking> trips) {
+		LocalDateTime now = LocalDateTime.now();
+		List<TripEvent> events = new ArrayList<>(trips.size());
+		for (TripBooking trip : trips)
+			events.add(TripEvent.of(type, trip, now));
+		tripEventDao.saveAll(events);
+	}
+}
@@ -0,0 +1,117 @@
+package com.masai.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.masai.dto.response.PageResponse;
+import com.masai.exception.InvalidCursorException;
+
+/**
+ * 键集分页的公共部分：页大小限制、游标编解码、判断是否还有下一页
+ * 游标是上一页最后一行的排序键，Base64编码后对客户端不透明，并带上接口标识防止串用
+ */
+@Component
+public class KeysetPaging {
+
+	private static final String SEPARATOR = "|";
+
+	@Value("${paging.default-limit:50}")
+	private int defaultLimit;
+
+	@Value("${paging.max-limit:500}")
+	private int maxLimit;
+
+	public int limit(Integer requested) {
+		if (requested == null || requested <= 0)
+			return defaultLimit;
+		return Math.min(requested, maxLimit);
+	}
+
+	/**
+	 * 多取一行用来判断是否还有下一页，查询始终从偏移量0开始
+	 */
+	public Pageable probe(int limit) {
+		return PageRequest.of(0, limit + 1);
+	}
+
+	/**
+	 * @param rows 按limit + 1查出来的行
+	 * @param cursorOf 生成指向某一行之后的游标
+	 */
+	public <T> PageResponse<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+		if (rows.size() <= limit)
+			return new PageResponse<>(rows, null);
+		List<T> items = rows.subList(0, limit);
+		return new PageResponse<>(items, cursorOf.apply(items.get(limit - 1)));
+	}
+
+	public static String encode(String kind, Object... keys) {
+		StringBuilder raw = new StringBuilder(kind);
+		for (Object key : keys)
+			raw.append(SEPARATOR).append(key);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return 空游标表示第一页，返回null
+	 */
+	public static Cursor decode(String cursor, String kind, int keys) {
+		if (cursor == null || cursor.isEmpty())
+			return null;
+		String[] parts;
+		try {
+			parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\" + SEPARATOR, -1);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException("Invalid cursor: " + cursor);
+		}
+		if (parts.length != keys + 1 || !kind.equals(parts[0]))
+			throw new InvalidCursorException("Invalid cursor: " + cursor);
+		return new Cursor(cursor, parts);
+	}
+
+	/**
+	 * 解码后的游标，按位置取排序键，第0位是接口标识
+	 */
+	public static class Cursor {
+		private final String raw;
+		private final String[] parts;
+
+		private Cursor(String raw, String[] parts) {
+			this.raw = raw;
+			this.parts = parts;
+		}
+
+		public Integer intAt(int index) {
+			try {
+				return Integer.valueOf(parts[index + 1]);
+			} catch (NumberFormatException e) {
+				throw new InvalidCursorException("Invalid cursor: " + raw);
+			}
+		}
+
+		public Double doubleAt(int index) {
+			try {
+				return Double.valueOf(parts[index + 1]);
+			} catch (NumberFormatException e) {
+				throw new InvalidCursorException("Invalid cursor: " + raw);
+			}
+		}
+
+		public LocalDate dateAt(int index) {
+			try {
+				return LocalDate.parse(parts[index + 1]);
+			} catch (DateTimeParseException e) {
+				throw new InvalidCursorException("Invalid cursor: " + raw);
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.masai.pricing;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.masai.config.PricingProperties;
+import com.masai.dispatch.AvailableDriver;
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.repository.CabDao;
+
+/**
+ * 计价引擎，持有当前生效的费率快照
+ * 快照由车型平均费率和 pricing.* 配置编译而成；车辆增删改时在内存里调整该车型的费率合计后重新编译，
+ * 只有启动和定时刷新才对cab表做聚合
+ */
+@Component
+public class PricingEngine {
+
+	@Autowired
+	private CabDao cabDao;
+
+	@Autowired
+	private PricingProperties properties;
+
+	private volatile RateTable table;
+
+	// 归一化车型 -> 费率合计，只在持有this锁时读写
+	private final Map<String, RateTotals> totals = new HashMap<>();
+
+	@PostConstruct
+	public synchronized void refresh() {
+		totals.clear();
+		for (Object[] row : cabDao.rateTotalsByCarType()) {
+			if (row[1] == null)
+				continue;
+			RateTotals total = totals.computeIfAbsent(CabTypeRegistry.key((String) row[0]), key -> new RateTotals());
+			total.sum += ((Number) row[1]).longValue();
+			total.count += ((Number) row[2]).longValue();
+		}
+		rebuild();
+	}
+
+	@Scheduled(initialDelayString = "${pricing.refresh-ms:300000}", fixedDelayString = "${pricing.refresh-ms:300000}")
+	public void scheduledRefresh() {
+		refresh();
+	}
+
+	public synchronized void cabAdded(String carType, Integer ratePerKm) {
+		adjust(carType, ratePerKm, 1);
+		rebuild();
+	}
+
+	public synchronized void cabRemoved(String carType, Integer ratePerKm) {
+		adjust(carType, ratePerKm, -1);
+		rebuild();
+	}
+
+	public synchronized void cabChanged(String oldType, Integer oldRate, String newType, Integer newRate) {
+		adjust(oldType, oldRate, -1);
+		adjust(newType, newRate, 1);
+		rebuild();
+	}
+
+	private void adjust(String carType, Integer ratePerKm, int sign) {
+		if (ratePerKm == null)
+			return;
+		String key = CabTypeRegistry.key(carType);
+		RateTotals total = totals.computeIfAbsent(key, k -> new RateTotals());
+		total.sum += sign * ratePerKm;
+		total.count += sign;
+		if (total.count <= 0)
+			totals.remove(key);
+	}
+
+	// 车型只有几个到几十个，重新编译快照的开销可以忽略
+	private void rebuild() {
+		List<Object[]> averages = new ArrayList<>(totals.size());
+		totals.forEach((key, total) -> averages.add(new Object[] { key, (double) total.sum / total.count }));
+		table = RateTable.build(averages, properties);
+	}
+
+	/**
+	 * 按占到的司机快照计价，车型和司机所在城市在快照里已经归一化
+	 * @param city 上车点所在城市，为null时取司机所在城市
+	 */
+	public int fare(AvailableDriver driver, int km, String city, LocalDateTime at) {
+		RateTable current = table;
+		String cityKey = city == null ? driver.getCityKey() : CabTypeRegistry.key(city);
+		if (driver.getRatePerKm() == null) {
+			int quote = current.quote(driver.getCarTypeKey(), km, cityKey, at.getHour());
+			return quote < 0 ? current.fare(0, km, driver.getCarTypeKey(), cityKey, at.getHour()) : quote;
+		}
+		return current.fare(driver.getRatePerKm(), km, driver.getCarTypeKey(), cityKey, at.getHour());
+	}
+
+	/**
+	 * 已确定车辆的行程计价
+	 */
+	public int fare(int ratePerKm, int km, String carType, String city, LocalDateTime at) {
+		return table.fare(ratePerKm, km, carType == null ? null : CabTypeRegistry.key(carType), city == null ? null : CabTypeRegistry.key(city),
+				at.getHour());
+	}
+
+	/**
+	 * 按车型报价
+	 * @return 未知车型返回null
+	 */
+	public Integer quote(String carType, int km, String city, LocalDateTime at) {
+		if (carType == null)
+			return null;
+		int fare = table.quote(CabTypeRegistry.key(carType), km, city == null ? null : CabTypeRegistry.key(city),
+				at.getHour());
+		return fare < 0 ? null : fare;
+	}
+
+	private static class RateTotals {
+		private long sum;
+		private long count;
+	}
+}
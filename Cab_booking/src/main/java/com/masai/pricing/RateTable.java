@@ -0,0 +1,111 @@
+package com.masai.pricing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.masai.config.PricingProperties;
+import com.masai.dispatch.CabTypeRegistry;
+
+/**
+ * 预先编译好的费率快照，构建后不再修改
+ * 车型费率、最低消费放在数组里，计价时只做查表和乘法，不创建对象
+ */
+public final class RateTable {
+
+	private final Map<String, Integer> slots;
+
+	private final int[] ratePerKm;
+
+	private final int[] minFare;
+
+	private final int defaultMinFare;
+
+	private final double[] hourMultiplier = new double[24];
+
+	private final Map<String, Double> citySurge;
+
+	private RateTable(Map<String, Integer> slots, int[] ratePerKm, int[] minFare, int defaultMinFare,
+			Map<String, Double> citySurge) {
+		this.slots = slots;
+		this.ratePerKm = ratePerKm;
+		this.minFare = minFare;
+		this.defaultMinFare = defaultMinFare;
+		this.citySurge = citySurge;
+	}
+
+	/**
+	 * @param averageRates 每行为 {车型, 该车型平均每公里费率}
+	 */
+	public static RateTable build(List<Object[]> averageRates, PricingProperties properties) {
+		Map<String, Integer> minFares = new HashMap<>();
+		properties.getMinFares().forEach((type, fare) -> minFares.put(CabTypeRegistry.key(type), fare));
+
+		Map<String, Integer> slots = new HashMap<>();
+		int[] rates = new int[averageRates.size()];
+		int[] mins = new int[averageRates.size()];
+		for (Object[] row : averageRates) {
+			String key = CabTypeRegistry.key((String) row[0]);
+			if (slots.containsKey(key) || row[1] == null)
+				continue;
+			int slot = slots.size();
+			slots.put(key, slot);
+			rates[slot] = (int) Math.round(((Number) row[1]).doubleValue());
+			mins[slot] = minFares.getOrDefault(key, properties.getMinFare());
+		}
+
+		Map<String, Double> surge = new HashMap<>();
+		properties.getCitySurge().forEach((city, multiplier) -> surge.put(CabTypeRegistry.key(city), multiplier));
+
+		RateTable table = new RateTable(Collections.unmodifiableMap(slots), rates, mins, properties.getMinFare(),
+				Collections.unmodifiableMap(surge));
+		Arrays.fill(table.hourMultiplier, 1.0);
+		for (String range : properties.getPeakHours().split(",")) {
+			if (range.trim().isEmpty())
+				continue;
+			String[] bounds = range.trim().split("-");
+			int from = Integer.parseInt(bounds[0].trim());
+			int to = Integer.parseInt(bounds[bounds.length - 1].trim());
+			if (from < 0 || from > 23 || to < 0 || to > 23)
+				throw new IllegalArgumentException("pricing.peak-hours range must be within 0-23: " + range.trim());
+			// 起点大于终点表示跨零点，如 22-2 为 22、23、0、1、2 点
+			for (int hour = from;; hour = (hour + 1) % 24) {
+				table.hourMultiplier[hour] = properties.getPeakMultiplier();
+				if (hour == to)
+					break;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * 按指定的每公里费率计价，适用于已经确定司机（车辆）的行程
+	 * @param carTypeKey 归一化后的车型，用来取最低消费，可以为null
+	 * @param cityKey 归一化后的城市，用来取区域加价，可以为null
+	 */
+	public int fare(int ratePerKm, int km, String carTypeKey, String cityKey, int hourOfDay) {
+		double multiplier = hourMultiplier[hourOfDay];
+		if (cityKey != null) {
+			Double surge = citySurge.get(cityKey);
+			if (surge != null)
+				multiplier *= surge;
+		}
+		long amount = Math.round((long) ratePerKm * km * multiplier);
+		Integer slot = carTypeKey == null ? null : slots.get(carTypeKey);
+		int min = slot == null ? defaultMinFare : minFare[slot];
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(amount, min));
+	}
+
+	/**
+	 * 按车型平均费率报价
+	 * @return 未知车型返回-1
+	 */
+	public int quote(String carTypeKey, int km, String cityKey, int hourOfDay) {
+		Integer slot = slots.get(carTypeKey);
+		if (slot == null)
+			return -1;
+		return fare(ratePerKm[slot], km, carTypeKey, cityKey, hourOfDay);
+	}
+}
@@ -0,0 +1,128 @@
+package com.masai.readmodel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.entity.Driver;
+import com.masai.entity.TripBooking;
+import com.masai.entity.TripView;
+import com.masai.repository.CustomerDao;
+import com.masai.repository.TripViewDao;
+
+/**
+ * 把行程的写操作同步投影到 trip_view
+ * 在行程写入的同一个事务里调用，行程和读模型一起提交或一起回滚
+ */
+@Component
+public class TripViewProjector {
+
+	@Autowired
+	private TripViewDao tripViewDao;
+
+	@Autowired
+	private CustomerDao customerDao;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${tripview.backfill-on-startup:true}")
+	private boolean backfillOnStartup;
+
+	/**
+	 * 新预约的行程还没有对应的行，直接insert；客户名由调用方从已取到的客户实体传入，不再查库
+	 */
+	public void booked(TripBooking trip, String customerName) {
+		TripView view = new TripView(trip.getTripBookingId());
+		fill(view, trip, customerName);
+		tripViewDao.save(view);
+	}
+
+	public void project(TripBooking trip) {
+		projectAll(Collections.singletonList(trip));
+	}
+
+	/**
+	 * 修改已有行程时覆盖对应的行，客户名一次查询取回
+	 */
+	public void projectAll(Collection<TripBooking> trips) {
+		if (trips.isEmpty())
+			return;
+		Set<Integer> customerIds = new HashSet<>();
+		for (TripBooking trip : trips)
+			customerIds.add(trip.getCustomerId());
+		Map<Integer, String> names = new HashMap<>();
+		for (Object[] row : customerDao.findUsernames(customerIds))
+			names.put((Integer) row[0], (String) row[1]);
+
+		List<Integer> tripIds = new ArrayList<>(trips.size());
+		for (TripBooking trip : trips)
+			tripIds.add(trip.getTripBookingId());
+		Map<Integer, TripView> existing = new HashMap<>();
+		for (TripView view : tripViewDao.findAllById(tripIds))
+			existing.put(view.getTripBookingId(), view);
+
+		// 已有的行是托管对象，改字段即可；新行带fresh标记直接insert
+		List<TripView> created = new ArrayList<>();
+		for (TripBooking trip : trips) {
+			TripView view = existing.get(trip.getTripBookingId());
+			if (view == null) {
+				view = new TripView(trip.getTripBookingId());
+				created.add(view);
+			}
+			fill(view, trip, names.get(trip.getCustomerId()));
+		}
+		tripViewDao.saveAll(created);
+	}
+
+	public void removed(Integer tripId) {
+		if (tripViewDao.existsById(tripId))
+			tripViewDao.deleteById(tripId);
+	}
+
+	public void customerRenamed(Integer customerId, String name) {
+		tripViewDao.renameCustomer(customerId, name);
+	}
+
+	/**
+	 * 补齐读模型上线之前的行程，已有的行不动，重复执行没有副作用
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		if (!backfillOnStartup)
+			return;
+		transactionTemplate.executeWithoutResult(status -> {
+			tripViewDao.backfillFromTrips();
+			tripViewDao.backfillFromArchive();
+		});
+	}
+
+	private static void fill(TripView view, TripBooking trip, String customerName) {
+		Driver driver = trip.getDriver();
+		view.setCustomerId(trip.getCustomerId());
+		view.setCustomerName(customerName);
+		view.setDriverId(driver == null ? null : driver.getUserId());
+		view.setDriverName(driver == null ? null : driver.getUsername());
+		view.setCarType(driver != null && driver.getCab() != null ? driver.getCab().getCarType() : trip.getCarType());
+		view.setFromLocation(trip.getFrom_location());
+		view.setToLocation(trip.getTo_location());
+		view.setFromdateTime(trip.getFromdate_time());
+		view.setTodateTime(trip.getTodate_time());
+		view.setKm(trip.getKm());
+		view.setEtaMinutes(trip.getEtaMinutes());
+		view.setFare(trip.getTotalamount());
+		view.setPayment(trip.getPayment());
+	}
+}
@@ -2,9 +2,14 @@ package com.masai.repository;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.masai.entity.Cab;
 import com.masai.entity.Driver;
@@ -13,8 +18,23 @@ import com.masai.entity.Driver;
 public interface CabDao extends JpaRepository<Cab, Integer> {
 
 	
+	// 车型列表走查询缓存，cab表有写入时自动失效
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	@Query("select distinct carType from Cab")
 	public List<String> viewCarType();
+	
+	@Query("select c.carType, count(c) from Cab c group by c.carType")
+	public List<Object[]> countByCarType();
+
+	// 计价按 {车型, 费率合计, 有费率的车辆数} 加载，之后车辆增删改时在内存里增量调整
+	@Query("select c.carType, sum(c.ratePerKm), count(c.ratePerKm) from Cab c group by c.carType")
+	public List<Object[]> rateTotalsByCarType();
+
+	// 只改车辆两列，不经过 Cab -> Driver 的级联 merge，不会把读到的司机 available 写回去
+	@Modifying
+	@Transactional
+	@Query("update Cab c set c.carType = :carType, c.ratePerKm = :ratePerKm where c.cabId = :cabId")
+	public int updateCab(Integer cabId, String carType, Integer ratePerKm);
 
 
 }
@@ -2,7 +2,14 @@ package com.masai.repository;
 
 
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.masai.entity.Customer;
 
@@ -10,7 +17,33 @@ import com.masai.entity.Customer;
 
 @Repository
 public interface CustomerDao extends JpaRepository<Customer,Integer>{
-	
+
+	@Override
+	@EntityGraph(attributePaths = "address")
+	public List<Customer> findAll();
+
+	// 键集分页，按主键顺序翻页
+	@EntityGraph(attributePaths = "address")
+	@Query("from Customer c order by c.userId")
+	public List<Customer> findFirstPage(Pageable page);
+
+	@EntityGraph(attributePaths = "address")
+	@Query("from Customer c where c.userId > :afterId order by c.userId")
+	public List<Customer> findPageAfter(Integer afterId, Pageable page);
+
+	// 走 uk_user_email 唯一索引，登录时不再全表加载
+	@EntityGraph(attributePaths = "address")
+	@Query("from Customer c where c.Email = :email")
+	public Optional<Customer> findByEmail(String email);
+
+	// 只读子表主键，供 UserTypeDirectory 启动时加载
+	@Query(value = "select customer_id from customer", nativeQuery = true)
+	public List<Integer> findAllIds();
+
+	// 只取 [userId, username]，维护行程读模型时用
+	@Query("select c.userId, c.Username from Customer c where c.userId in :ids")
+	public List<Object[]> findUsernames(Collection<Integer> ids);
+
 }
 
 
@@ -1,18 +1,61 @@
 package com.masai.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.masai.dispatch.AvailableDriver;
 import com.masai.entity.Driver;
 @Repository
-public interface DriverDao extends JpaRepository<Driver,Integer> {
-	@Query("from Driver d where d.rating>=4.5 AND d.available='1'")
+public interface DriverDao extends JpaRepository<Driver,Integer>, DriverDaoCustom {
+
+	// 排行榜、批量派单按id批量取司机时连同车辆和地址一起取回
+	@Override
+	@EntityGraph(attributePaths = { "cab", "address" })
+	public List<Driver> findAllById(Iterable<Integer> ids);
+
+	@Query("from Driver d where d.rating>=4.5 AND d.available = true")
 	public List<Driver> viewBestDriver();
 	
-	@Query("from Driver d where d.available='1'")
+	@EntityGraph(attributePaths = { "cab", "address" })
+	@Query("from Driver d where d.available = true")
 	public List<Driver> findByAvailable();
+	
+	@Query("select d.userId from Driver d where d.cab.cabId = :cabId")
+	public Optional<Integer> findIdByCabId(Integer cabId);
+
+	// 只读子表主键，供 UserTypeDirectory 启动时加载
+	@Query(value = "select driver_id from driver", nativeQuery = true)
+	public List<Integer> findAllIds();
+
+	// 批量导入前检查哪些邮箱已被客户或司机占用，走 uk_user_email 索引
+	@Query("select u.Email from Abstractuser u where u.Email in :emails")
+	public List<String> findExistingEmails(Collection<String> emails);
+
+	// 按城市分片时先取有可用司机的城市，再只加载本节点负责的那部分
+	@Query("select distinct a.city from Driver d join d.address a where d.available = true and a.city is not null")
+	public List<String> findAvailableCities();
+
+	@EntityGraph(attributePaths = { "cab", "address" })
+	@Query("select d from Driver d join d.address a where d.available = true and a.city in :cities")
+	public List<Driver> findAvailableInCities(Collection<String> cities);
+
+	// 没有城市的司机不属于任何分片，每个节点都加载
+	@EntityGraph(attributePaths = { "cab", "address" })
+	@Query("select d from Driver d left join d.address a where d.available = true and a.city is null")
+	public List<Driver> findAvailableWithoutCity();
+
+	// 分片定期对账只取索引快照需要的列，不加载实体
+	@Query("select new com.masai.dispatch.AvailableDriver(d.userId, d.latitude, d.longitude, c.carType, d.rating, c.ratePerKm, a.city) "
+			+ "from Driver d left join d.cab c join d.address a where d.available = true and a.city in :cities")
+	public List<AvailableDriver> findAvailableSnapshotsInCities(Collection<String> cities);
+
+	@Query("select new com.masai.dispatch.AvailableDriver(d.userId, d.latitude, d.longitude, c.carType, d.rating, c.ratePerKm, a.city) "
+			+ "from Driver d left join d.cab c left join d.address a where d.available = true and a.city is null")
+	public List<AvailableDriver> findAvailableSnapshotsWithoutCity();
 }
@@ -0,0 +1,25 @@
+package com.masai.repository;
+
+import java.util.List;
+import java.util.Set;
+
+public interface DriverDaoCustom {
+
+	/**
+	 * 条件更新，只有仍然可用的司机才会被占用
+	 * @return 1表示占用成功
+	 */
+	public int reserveDriver(Integer driverId);
+
+	/**
+	 * 一次批量提交多条带条件的占用 UPDATE
+	 * @return 实际占用成功的司机id
+	 */
+	public Set<Integer> reserveDrivers(List<Integer> driverIds);
+
+	/**
+	 * 只更新位置两列，不会把读到的 available 写回去覆盖并发的占用
+	 * @return 1表示司机存在
+	 */
+	public int updateLocation(Integer driverId, Double latitude, Double longitude);
+}
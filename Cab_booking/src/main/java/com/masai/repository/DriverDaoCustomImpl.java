@@ -0,0 +1,82 @@
+package com.masai.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.masai.entity.Driver;
+
+/**
+ * 占用司机、上报位置的 UPDATE 直接走 JDBC，Hibernate 不知道这些写入，
+ * 所以由这里按id清掉二级缓存里对应的司机，而不是让整个缓存区域失效
+ */
+public class DriverDaoCustomImpl implements DriverDaoCustom {
+
+	private static final String RESERVE_SQL = "update driver set available = 0 where driver_id = ? and available = 1";
+
+	private static final String LOCATION_SQL = "update driver set latitude = ?, longitude = ? where driver_id = ?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Override
+	public int reserveDriver(Integer driverId) {
+		int count = jdbcTemplate.update(RESERVE_SQL, driverId);
+		if (count == 1)
+			evict(Collections.singleton(driverId));
+		return count;
+	}
+
+	@Override
+	public Set<Integer> reserveDrivers(List<Integer> driverIds) {
+		Set<Integer> reserved = new HashSet<>();
+		if (driverIds.isEmpty())
+			return reserved;
+		int[] counts = jdbcTemplate.batchUpdate(RESERVE_SQL,
+				driverIds, driverIds.size(), (ps, driverId) -> ps.setInt(1, driverId))[0];
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == 1)
+				reserved.add(driverIds.get(i));
+		}
+		evict(reserved);
+		return reserved;
+	}
+
+	@Override
+	public int updateLocation(Integer driverId, Double latitude, Double longitude) {
+		int count = jdbcTemplate.update(LOCATION_SQL, latitude, longitude, driverId);
+		if (count == 1)
+			evict(Collections.singleton(driverId));
+		return count;
+	}
+
+	/**
+	 * 立即清一次；事务结束后再清一次，防止提交前被其它事务读到旧值放回缓存
+	 */
+	private void evict(Collection<Integer> driverIds) {
+		if (driverIds.isEmpty())
+			return;
+		javax.persistence.Cache cache = entityManagerFactory.getCache();
+		driverIds.forEach(id -> cache.evict(Driver.class, id));
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+			return;
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				driverIds.forEach(id -> cache.evict(Driver.class, id));
+			}
+		});
+	}
+}
@@ -0,0 +1,33 @@
+package com.masai.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masai.entity.OutboxLease;
+
+@Repository
+public interface OutboxLeaseDao extends JpaRepository<OutboxLease, String> {
+
+	// 自己持有或者已经过期时才能取得，返回1表示取得或续期成功
+	@Modifying
+	@Transactional
+	@Query("update OutboxLease l set l.holder = :holder, l.expiresAt = :until where l.name = :name "
+			+ "and (l.holder = :holder or l.expiresAt <= :now)")
+	public int acquire(String name, String holder, LocalDateTime now, LocalDateTime until);
+
+	// 只插入不合并，几个节点同时创建时只有一个成功，其它的抛 DataIntegrityViolationException
+	@Modifying
+	@Transactional
+	@Query(value = "insert into outbox_lease (name, expires_at) values (:name, :expiresAt)", nativeQuery = true)
+	public int create(String name, LocalDateTime expiresAt);
+
+	@Modifying
+	@Transactional
+	@Query("update OutboxLease l set l.expiresAt = :now where l.name = :name and l.holder = :holder")
+	public int release(String name, String holder, LocalDateTime now);
+}
@@ -0,0 +1,24 @@
+package com.masai.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masai.entity.RevokedToken;
+
+@Repository
+public interface RevokedTokenDao extends JpaRepository<RevokedToken, Long> {
+
+	@Query("from RevokedToken r where r.expiresAt > :now")
+	public List<RevokedToken> findUnexpired(LocalDateTime now);
+
+	@Modifying
+	@Transactional
+	@Query("delete from RevokedToken r where r.expiresAt <= :now")
+	public int deleteExpired(LocalDateTime now);
+}
@@ -1,9 +1,13 @@
 package com.masai.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.masai.entity.CurrentUserSession;
 
@@ -13,4 +17,20 @@ public interface SessionDao extends JpaRepository<CurrentUserSession, Integer>{
 	public Optional<CurrentUserSession> findById(Integer userId);
 	
 	public Optional<CurrentUserSession> findByUuid(String uuid);
+
+	// 以下由 SessionStore 的写线程调用，直接按条件删除，不先加载实体
+	@Modifying
+	@Transactional
+	@Query("delete from CurrentUserSession s where s.uuid = :uuid")
+	public int deleteByUuid(String uuid);
+
+	@Modifying
+	@Transactional
+	@Query("delete from CurrentUserSession s where s.userId = :userId")
+	public int deleteByUserId(Integer userId);
+
+	@Modifying
+	@Transactional
+	@Query("delete from CurrentUserSession s where s.localDateTime < :before")
+	public int deleteOlderThan(LocalDateTime before);
 }
@@ -3,23 +3,69 @@ package com.masai.repository;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.masai.dto.response.TripResponse;
 import com.masai.entity.TripBooking;
 
 
 @Repository
-public interface TripDao extends JpaRepository<TripBooking,Integer> {
+public interface TripDao extends JpaRepository<TripBooking,Integer>, TripDaoCustom {
+
+	// 列表查询一次连接取回司机、车辆和地址，不再每个行程单独查询
+	String TRIP_GRAPH = "TripBooking.driver";
+
+	@Override
+	@EntityGraph(TRIP_GRAPH)
+	public List<TripBooking> findAll();
+
+	// 以下为原有的管理员报表，返回完整行程；扁平的 v2 报表读 TripViewDao
+	@EntityGraph(TRIP_GRAPH)
 	@Query("from TripBooking order by CustomerId")
 	public List<TripBooking> findByCustomeridAsce();
+	@EntityGraph(TRIP_GRAPH)
 	@Query("from TripBooking  order by fromdate_time")
 	public List<TripBooking> findByFromdate_timeAsce();
 	
-	@Query("from TripBooking where CustomerId=:customerId AND Fromdate_time=:date")
-	public List<TripBooking> findByCustomerIdAndFromdate_time(Integer customerId, LocalDate date);
-	
 	@Query("from TripBooking Group by driver_id ORDER by driver_id")
 	public List<TripBooking> findByDriverAscs();
+
+	// 以下为键集分页查询，排序键都以TripBookingId收尾保证顺序唯一，翻页时从上一页最后一行之后接着读
+	@EntityGraph(TRIP_GRAPH)
+	@Query("from TripBooking t order by t.TripBookingId")
+	public List<TripBooking> findFirstPage(Pageable page);
+
+	@EntityGraph(TRIP_GRAPH)
+	@Query("from TripBooking t where t.TripBookingId > :afterId order by t.TripBookingId")
+	public List<TripBooking> findPageAfter(Integer afterId, Pageable page);
+
+	@EntityGraph(TRIP_GRAPH)
+	@Query("from TripBooking t order by t.CustomerId, t.TripBookingId")
+	public List<TripBooking> findFirstPageByCustomer(Pageable page);
+
+	@EntityGraph(TRIP_GRAPH)
+	@Query("from TripBooking t where t.CustomerId > :customerId or (t.CustomerId = :customerId and t.TripBookingId > :afterId) "
+			+ "order by t.CustomerId, t.TripBookingId")
+	public List<TripBooking> findPageByCustomerAfter(Integer customerId, Integer afterId, Pageable page);
+
+	@EntityGraph(TRIP_GRAPH)
+	@Query("from TripBooking t order by t.Fromdate_time, t.TripBookingId")
+	public List<TripBooking> findFirstPageByDate(Pageable page);
+
+	@EntityGraph(TRIP_GRAPH)
+	@Query("from TripBooking t where t.Fromdate_time > :date or (t.Fromdate_time = :date and t.TripBookingId > :afterId) "
+			+ "order by t.Fromdate_time, t.TripBookingId")
+	public List<TripBooking> findPageByDateAfter(LocalDate date, Integer afterId, Pageable page);
+
+	// 客户行程历史要合并归档表，见 TripDaoCustom.findCustomerHistory
+
+	// 直接投影成TripResponse，一页只有一条SQL，也不加载实体
+	@Query("select new com.masai.dto.response.TripResponse(t.TripBookingId, t.CustomerId, t.From_location, t.To_location, "
+			+ "t.Fromdate_time, t.Todate_time, t.km, t.etaMinutes, t.Totalamount, t.Payment, d.userId, c.carType) "
+			+ "from TripBooking t left join t.driver d left join d.cab c where t.TripBookingId > :afterId order by t.TripBookingId")
+	public List<TripResponse> findResponsePageAfter(Integer afterId, Pageable page);
 }
@@ -0,0 +1,35 @@
+package com.masai.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.masai.entity.TripBooking;
+
+public interface TripDaoCustom {
+
+	/**
+	 * 按id顺序流式读取全部行程，司机、车辆、地址一起取回
+	 * 必须在事务内使用并在用完后关闭
+	 * @param fetchSize 每次从数据库取回的行数
+	 */
+	public Stream<TripBooking> streamAll(int fetchSize);
+
+	/**
+	 * 客户行程历史，合并在线表和归档表，按出发日期从新到旧、同一天按id从大到小
+	 * @param from 出发日期下限（含）
+	 * @param to 出发日期上限（含）
+	 * @param afterDate 上一页最后一行的出发日期，第一页传null
+	 * @param afterId 上一页最后一行的id
+	 * @param limit 最多返回的行数
+	 */
+	public List<TripBooking> findCustomerHistory(Integer customerId, LocalDate from, LocalDate to, LocalDate afterDate,
+			Integer afterId, int limit);
+
+	/**
+	 * 把出发日期早于before的已付款行程搬到归档表，需要在事务中调用
+	 * @return 本次搬走的行数，最多limit行
+	 */
+	public int archiveCompleted(LocalDate before, int limit, LocalDateTime archivedAt);
+}
@@ -0,0 +1,114 @@
+package com.masai.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.jpa.QueryHints;
+
+import com.masai.entity.ArchivedTrip;
+import com.masai.entity.Driver;
+import com.masai.entity.TripBooking;
+
+public class TripDaoCustomImpl implements TripDaoCustom {
+
+	// 在线表和归档表的字段同名，历史查询共用一个条件
+	private static final String HISTORY_WHERE = " where t.CustomerId = :customerId and t.Fromdate_time between :from and :to";
+
+	private static final String HISTORY_AFTER = " and (t.Fromdate_time < :date or (t.Fromdate_time = :date and t.TripBookingId < :afterId))";
+
+	private static final String HISTORY_ORDER = " order by t.Fromdate_time desc, t.TripBookingId desc";
+
+	private static final Comparator<TripBooking> NEWEST_FIRST = Comparator
+			.comparing(TripBooking::getFromdate_time, Comparator.reverseOrder())
+			.thenComparing(TripBooking::getTripBookingId, Comparator.reverseOrder());
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Stream<TripBooking> streamAll(int fetchSize) {
+		return entityManager.createQuery("select t from TripBooking t left join fetch t.driver d "
+				+ "left join fetch d.cab left join fetch d.address order by t.TripBookingId", TripBooking.class)
+				.setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+				.setHint(QueryHints.HINT_READONLY, true)
+				.getResultStream();
+	}
+
+	@Override
+	public List<TripBooking> findCustomerHistory(Integer customerId, LocalDate from, LocalDate to, LocalDate afterDate,
+			Integer afterId, int limit) {
+		String where = HISTORY_WHERE + (afterDate == null ? "" : HISTORY_AFTER) + HISTORY_ORDER;
+		TypedQuery<TripBooking> hot = entityManager.createQuery("select t from TripBooking t" + where, TripBooking.class)
+				.setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(TripDao.TRIP_GRAPH));
+		TypedQuery<ArchivedTrip> archived = entityManager.createQuery("select t from ArchivedTrip t" + where, ArchivedTrip.class);
+		bindHistory(hot, customerId, from, to, afterDate, afterId, limit);
+		bindHistory(archived, customerId, from, to, afterDate, afterId, limit);
+
+		// 两边各自有序且最多limit行，合并后再截断
+		List<TripBooking> rows = new ArrayList<>(hot.getResultList());
+		List<ArchivedTrip> old = archived.getResultList();
+		if (old.isEmpty())
+			return rows;
+		Map<Integer, Driver> drivers = driversOf(old);
+		for (ArchivedTrip trip : old)
+			rows.add(trip.toTrip(trip.getDriverId() == null ? null : drivers.get(trip.getDriverId())));
+		rows.sort(NEWEST_FIRST);
+		return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+	}
+
+	private static void bindHistory(TypedQuery<?> query, Integer customerId, LocalDate from, LocalDate to,
+			LocalDate afterDate, Integer afterId, int limit) {
+		query.setParameter("customerId", customerId).setParameter("from", from).setParameter("to", to);
+		if (afterDate != null)
+			query.setParameter("date", afterDate).setParameter("afterId", afterId);
+		if (limit < Integer.MAX_VALUE)
+			query.setMaxResults(limit);
+	}
+
+	private Map<Integer, Driver> driversOf(List<ArchivedTrip> trips) {
+		List<Integer> ids = trips.stream().map(ArchivedTrip::getDriverId).filter(id -> id != null).distinct()
+				.collect(Collectors.toList());
+		if (ids.isEmpty())
+			return Collections.emptyMap();
+		return entityManager.createQuery("select d from Driver d left join fetch d.cab left join fetch d.address "
+				+ "where d.userId in :ids", Driver.class)
+				.setParameter("ids", ids)
+				.getResultList().stream()
+				.collect(Collectors.toMap(Driver::getUserId, Function.identity()));
+	}
+
+	@Override
+	public int archiveCompleted(LocalDate before, int limit, LocalDateTime archivedAt) {
+		List<TripBooking> trips = entityManager.createQuery("select t from TripBooking t left join fetch t.driver "
+				+ "where t.Payment = true and t.Todate_time < :before order by t.TripBookingId", TripBooking.class)
+				.setParameter("before", before)
+				.setMaxResults(limit)
+				.getResultList();
+		if (trips.isEmpty())
+			return 0;
+		List<Integer> ids = new ArrayList<>(trips.size());
+		for (TripBooking trip : trips) {
+			entityManager.persist(ArchivedTrip.of(trip, archivedAt));
+			ids.add(trip.getTripBookingId());
+		}
+		entityManager.flush();
+		// 批量删除不会级联到司机，也不经过持久化上下文
+		int deleted = entityManager.createQuery("delete from TripBooking t where t.TripBookingId in :ids")
+				.setParameter("ids", ids)
+				.executeUpdate();
+		entityManager.clear();
+		return deleted;
+	}
+}
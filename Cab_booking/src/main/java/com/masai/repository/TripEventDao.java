@@ -0,0 +1,47 @@
+package com.masai.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masai.entity.TripEvent;
+
+@Repository
+public interface TripEventDao extends JpaRepository<TripEvent, Long> {
+
+	// 待投递的事件按id顺序取，走 idx_event_pending
+	@Query("from TripEvent e where e.publishedAt is null order by e.id")
+	public List<TripEvent> findPending(Pageable page);
+
+	public long countByPublishedAtIsNull();
+
+	public long countByFailedTrue();
+
+	@Modifying
+	@Transactional
+	@Query("update TripEvent e set e.publishedAt = :at where e.id in :ids")
+	public int markPublished(Collection<Long> ids, LocalDateTime at);
+
+	@Modifying
+	@Transactional
+	@Query("update TripEvent e set e.attempts = e.attempts + 1 where e.id = :id")
+	public int incrementAttempts(Long id);
+
+	@Modifying
+	@Transactional
+	@Query("update TripEvent e set e.attempts = e.attempts + 1, e.failed = true, e.publishedAt = :at where e.id = :id")
+	public int markFailed(Long id, LocalDateTime at);
+
+	// 已投递的事件过了保留期就删掉，放弃投递的留着排查
+	@Modifying
+	@Transactional
+	@Query("delete from TripEvent e where e.publishedAt < :before and e.failed = false")
+	public int deletePublishedBefore(LocalDateTime before);
+}
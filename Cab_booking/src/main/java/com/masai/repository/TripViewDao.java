@@ -0,0 +1,81 @@
+package com.masai.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masai.entity.TripView;
+
+/**
+ * 报表查询都只读 trip_view 一张表，排序键以tripBookingId收尾，可以键集分页
+ */
+@Repository
+public interface TripViewDao extends JpaRepository<TripView, Integer> {
+
+	@Query("from TripView v order by v.driverId, v.tripBookingId")
+	public List<TripView> findAllByDriver();
+
+	@Query("from TripView v order by v.customerId, v.tripBookingId")
+	public List<TripView> findAllByCustomer();
+
+	@Query("from TripView v order by v.fromdateTime, v.tripBookingId")
+	public List<TripView> findAllByDate();
+
+	@Query("from TripView v order by v.customerId, v.tripBookingId")
+	public List<TripView> findFirstPageByCustomer(Pageable page);
+
+	@Query("from TripView v where v.customerId > :customerId or (v.customerId = :customerId and v.tripBookingId > :afterId) "
+			+ "order by v.customerId, v.tripBookingId")
+	public List<TripView> findPageByCustomerAfter(Integer customerId, Integer afterId, Pageable page);
+
+	@Query("from TripView v order by v.fromdateTime, v.tripBookingId")
+	public List<TripView> findFirstPageByDate(Pageable page);
+
+	@Query("from TripView v where v.fromdateTime > :date or (v.fromdateTime = :date and v.tripBookingId > :afterId) "
+			+ "order by v.fromdateTime, v.tripBookingId")
+	public List<TripView> findPageByDateAfter(LocalDate date, Integer afterId, Pageable page);
+
+	@Query("from TripView v where v.customerId = :customerId and v.fromdateTime = :date order by v.tripBookingId")
+	public List<TripView> findByCustomerOn(Integer customerId, LocalDate date);
+
+	// 客户行程历史，按出发日期从新到旧
+	@Query("from TripView v where v.customerId = :customerId and v.fromdateTime between :from and :to "
+			+ "order by v.fromdateTime desc, v.tripBookingId desc")
+	public List<TripView> findHistoryFirstPage(Integer customerId, LocalDate from, LocalDate to, Pageable page);
+
+	@Query("from TripView v where v.customerId = :customerId and v.fromdateTime >= :from "
+			+ "and (v.fromdateTime < :date or (v.fromdateTime = :date and v.tripBookingId < :afterId)) "
+			+ "order by v.fromdateTime desc, v.tripBookingId desc")
+	public List<TripView> findHistoryPageAfter(Integer customerId, LocalDate from, LocalDate date, Integer afterId,
+			Pageable page);
+
+	@Modifying
+	@Transactional
+	@Query("update TripView v set v.customerName = :name where v.customerId = :customerId")
+	public int renameCustomer(Integer customerId, String name);
+
+	// 补齐缺失的行，在线表和归档表各一条 insert ... select
+	@Modifying
+	@Query("insert into TripView (tripBookingId, customerId, customerName, driverId, driverName, carType, fromLocation, "
+			+ "toLocation, fromdateTime, todateTime, km, etaMinutes, fare, payment) "
+			+ "select t.TripBookingId, t.CustomerId, cu.Username, d.userId, d.Username, coalesce(c.carType, t.carType), "
+			+ "t.From_location, t.To_location, t.Fromdate_time, t.Todate_time, t.km, t.etaMinutes, t.Totalamount, t.Payment "
+			+ "from TripBooking t left join t.driver d left join d.cab c left join Customer cu on cu.userId = t.CustomerId "
+			+ "where not exists (select 1 from TripView v where v.tripBookingId = t.TripBookingId)")
+	public int backfillFromTrips();
+
+	@Modifying
+	@Query("insert into TripView (tripBookingId, customerId, customerName, driverId, driverName, carType, fromLocation, "
+			+ "toLocation, fromdateTime, todateTime, km, etaMinutes, fare, payment) "
+			+ "select t.TripBookingId, t.CustomerId, cu.Username, t.driverId, d.Username, coalesce(c.carType, t.carType), "
+			+ "t.From_location, t.To_location, t.Fromdate_time, t.Todate_time, t.km, t.etaMinutes, t.Totalamount, t.Payment "
+			+ "from ArchivedTrip t left join Driver d on d.userId = t.driverId left join d.cab c left join Customer cu on cu.userId = t.CustomerId "
+			+ "where not exists (select 1 from TripView v where v.tripBookingId = t.TripBookingId)")
+	public int backfillFromArchive();
+}
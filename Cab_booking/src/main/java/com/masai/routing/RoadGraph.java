@@ -0,0 +1,344 @@
+package com.masai.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.masai.dispatch.DriverSpatialIndex;
+
+/**
+ * 只读的路网图，邻接表按CSR（压缩稀疏行）存放在基本类型数组里
+ * 节点 u 的出边是 edgeTarget[firstEdge[u] .. firstEdge[u+1])
+ *
+ * 文件格式：
+ *   N <lat> <lon>                       节点，id为出现顺序，从0开始
+ *   E <from> <to> <meters> <km/h> [1]   道路，末尾为1表示单行道
+ * # 开头的行是注释
+ */
+public class RoadGraph {
+
+	private static final double GRID_DEGREES = 0.01;
+
+	private final double[] latitudes;
+
+	private final double[] longitudes;
+
+	private final int[] firstEdge;
+
+	private final int[] edgeTarget;
+
+	private final int[] edgeMeters;
+
+	private final float[] edgeSeconds;
+
+	// A*启发函数用：直线距离按最高车速走完的时间不会超过真实时间
+	private final double maxMetersPerSecond;
+
+	private final Map<Long, int[]> grid = new HashMap<>();
+
+	// 空闲的搜索状态，最多留 searchStates 份，并发超出时临时分配，用完多出来的直接丢弃
+	private final BlockingQueue<SearchState> idleStates;
+
+	private RoadGraph(double[] latitudes, double[] longitudes, int[] firstEdge, int[] edgeTarget, int[] edgeMeters,
+			float[] edgeSeconds, double maxMetersPerSecond, int searchStates) {
+		this.latitudes = latitudes;
+		this.longitudes = longitudes;
+		this.firstEdge = firstEdge;
+		this.edgeTarget = edgeTarget;
+		this.edgeMeters = edgeMeters;
+		this.edgeSeconds = edgeSeconds;
+		this.maxMetersPerSecond = maxMetersPerSecond;
+		this.idleStates = new ArrayBlockingQueue<>(Math.max(searchStates, 1));
+
+		Map<Long, List<Integer>> cells = new HashMap<>();
+		for (int node = 0; node < latitudes.length; node++)
+			cells.computeIfAbsent(cellKey(latitudes[node], longitudes[node]), key -> new ArrayList<>()).add(node);
+		cells.forEach((key, ids) -> grid.put(key, ids.stream().mapToInt(Integer::intValue).toArray()));
+	}
+
+	public static RoadGraph load(Reader source) throws IOException {
+		return load(source, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param searchStates 最多保留几份搜索状态（每份是几个节点数长度的数组），一般取CPU核数
+	 */
+	public static RoadGraph load(Reader source, int searchStates) throws IOException {
+		double[] lats = new double[1024];
+		double[] lons = new double[1024];
+		int nodes = 0;
+		// 临时边表，每条道路按方向拆成有向边
+		int[] from = new int[1024];
+		int[] to = new int[1024];
+		int[] meters = new int[1024];
+		float[] seconds = new float[1024];
+		int edges = 0;
+		double maxSpeed = 0;
+
+		BufferedReader reader = new BufferedReader(source);
+		String line;
+		int lineNo = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNo++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String[] parts = line.split("\\s+");
+			try {
+				if ("N".equals(parts[0]) && parts.length >= 3) {
+					if (nodes == lats.length) {
+						lats = Arrays.copyOf(lats, nodes * 2);
+						lons = Arrays.copyOf(lons, nodes * 2);
+					}
+					lats[nodes] = Double.parseDouble(parts[1]);
+					lons[nodes] = Double.parseDouble(parts[2]);
+					nodes++;
+				} else if ("E".equals(parts[0]) && parts.length >= 5) {
+					int a = Integer.parseInt(parts[1]);
+					int b = Integer.parseInt(parts[2]);
+					int length = Integer.parseInt(parts[3]);
+					double speed = Double.parseDouble(parts[4]) / 3.6;
+					if (a < 0 || a >= nodes || b < 0 || b >= nodes || speed <= 0 || length < 0)
+						throw new IllegalArgumentException("Invalid road graph edge at line " + lineNo + ": " + line);
+					boolean oneway = parts.length > 5 && "1".equals(parts[5]);
+					if (edges + 2 > from.length) {
+						from = Arrays.copyOf(from, from.length * 2);
+						to = Arrays.copyOf(to, to.length * 2);
+						meters = Arrays.copyOf(meters, meters.length * 2);
+						seconds = Arrays.copyOf(seconds, seconds.length * 2);
+					}
+					for (int direction = 0; direction < (oneway ? 1 : 2); direction++) {
+						from[edges] = direction == 0 ? a : b;
+						to[edges] = direction == 0 ? b : a;
+						meters[edges] = length;
+						seconds[edges] = (float) (length / speed);
+						edges++;
+					}
+					maxSpeed = Math.max(maxSpeed, speed);
+				} else {
+					throw new IllegalArgumentException("Malformed road graph line " + lineNo + ": " + line);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Malformed road graph line " + lineNo + ": " + line, e);
+			}
+		}
+
+		// 按起点做计数排序，得到CSR数组
+		int[] firstEdge = new int[nodes + 1];
+		for (int e = 0; e < edges; e++)
+			firstEdge[from[e] + 1]++;
+		for (int n = 0; n < nodes; n++)
+			firstEdge[n + 1] += firstEdge[n];
+		int[] next = Arrays.copyOf(firstEdge, nodes);
+		int[] edgeTarget = new int[edges];
+		int[] edgeMeters = new int[edges];
+		float[] edgeSeconds = new float[edges];
+		for (int e = 0; e < edges; e++) {
+			int slot = next[from[e]]++;
+			edgeTarget[slot] = to[e];
+			edgeMeters[slot] = meters[e];
+			edgeSeconds[slot] = seconds[e];
+		}
+		return new RoadGraph(Arrays.copyOf(lats, nodes), Arrays.copyOf(lons, nodes), firstEdge, edgeTarget,
+				edgeMeters, edgeSeconds, maxSpeed, searchStates);
+	}
+
+	public int nodeCount() {
+		return latitudes.length;
+	}
+
+	public int edgeCount() {
+		return edgeTarget.length;
+	}
+
+	public double latitude(int node) {
+		return latitudes[node];
+	}
+
+	public double longitude(int node) {
+		return longitudes[node];
+	}
+
+	/**
+	 * 离给定点最近的节点
+	 * @return 在maxKm范围内没有节点时返回-1
+	 */
+	public int nearestNode(double latitude, double longitude, double maxKm) {
+		long row = cellOf(latitude);
+		long col = cellOf(longitude);
+		double cellKm = GRID_DEGREES * 111.19 * Math.max(Math.cos(Math.toRadians(Math.abs(latitude))), 0.01);
+		int rings = (int) Math.min(Math.ceil(maxKm / cellKm), 1000);
+
+		int best = -1;
+		double bestKm = maxKm;
+		for (long r = row - rings; r <= row + rings; r++) {
+			for (long c = col - rings; c <= col + rings; c++) {
+				int[] ids = grid.get(key(r, c));
+				if (ids == null)
+					continue;
+				for (int node : ids) {
+					double km = DriverSpatialIndex.distanceKm(latitude, longitude, latitudes[node], longitudes[node]);
+					if (km <= bestKm) {
+						bestKm = km;
+						best = node;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * A*搜索两点间用时最短的路线
+	 * @return 不连通时返回null
+	 */
+	public Route route(int source, int target) {
+		SearchState state = idleStates.poll();
+		if (state == null)
+			state = new SearchState(latitudes.length);
+		try {
+			return search(state, source, target);
+		} finally {
+			idleStates.offer(state);
+		}
+	}
+
+	// 当前空闲的搜索状态份数，测试用
+	int idleSearchStates() {
+		return idleStates.size();
+	}
+
+	private Route search(SearchState state, int source, int target) {
+		state.reset();
+		state.open(source, 0, 0, heuristic(source, target));
+
+		while (state.size > 0) {
+			int node = state.pop();
+			if (state.isClosed(node))
+				continue;
+			if (node == target)
+				return new Route(state.meters[node] / 1000.0, state.seconds[node] / 60.0);
+			state.close(node);
+			for (int e = firstEdge[node]; e < firstEdge[node + 1]; e++) {
+				int next = edgeTarget[e];
+				if (state.isClosed(next))
+					continue;
+				double seconds = state.seconds[node] + edgeSeconds[e];
+				if (!state.isSeen(next) || seconds < state.seconds[next])
+					state.open(next, seconds, state.meters[node] + edgeMeters[e], seconds + heuristic(next, target));
+			}
+		}
+		return null;
+	}
+
+	private double heuristic(int node, int target) {
+		return DriverSpatialIndex.distanceKm(latitudes[node], longitudes[node], latitudes[target], longitudes[target])
+				* 1000 / maxMetersPerSecond;
+	}
+
+	private static long cellKey(double latitude, double longitude) {
+		return key(cellOf(latitude), cellOf(longitude));
+	}
+
+	private static long cellOf(double degrees) {
+		return (long) Math.floor(degrees / GRID_DEGREES);
+	}
+
+	private static long key(long row, long col) {
+		return (row << 32) | (col & 0xffffffffL);
+	}
+
+	/**
+	 * 在搜索之间复用的搜索状态，用版本号代替每次清空数组
+	 * 二叉堆允许同一节点重复入堆，出堆时跳过已关闭的节点
+	 */
+	private static class SearchState {
+		private final int[] seen;
+		private final int[] closed;
+		private final double[] seconds;
+		private final double[] meters;
+		private int version;
+
+		private int[] heapNodes = new int[64];
+		private double[] heapKeys = new double[64];
+		private int size;
+
+		private SearchState(int nodes) {
+			seen = new int[nodes];
+			closed = new int[nodes];
+			seconds = new double[nodes];
+			meters = new double[nodes];
+		}
+
+		private void reset() {
+			if (++version == Integer.MAX_VALUE) {
+				Arrays.fill(seen, 0);
+				Arrays.fill(closed, 0);
+				version = 1;
+			}
+			size = 0;
+		}
+
+		private boolean isSeen(int node) {
+			return seen[node] == version;
+		}
+
+		private boolean isClosed(int node) {
+			return closed[node] == version;
+		}
+
+		private void close(int node) {
+			closed[node] = version;
+		}
+
+		private void open(int node, double nodeSeconds, double nodeMeters, double key) {
+			seen[node] = version;
+			seconds[node] = nodeSeconds;
+			meters[node] = nodeMeters;
+			if (size == heapNodes.length) {
+				heapNodes = Arrays.copyOf(heapNodes, size * 2);
+				heapKeys = Arrays.copyOf(heapKeys, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (heapKeys[parent] <= key)
+					break;
+				heapNodes[i] = heapNodes[parent];
+				heapKeys[i] = heapKeys[parent];
+				i = parent;
+			}
+			heapNodes[i] = node;
+			heapKeys[i] = key;
+		}
+
+		private int pop() {
+			int top = heapNodes[0];
+			int lastNode = heapNodes[--size];
+			double lastKey = heapKeys[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && heapKeys[child + 1] < heapKeys[child])
+					child++;
+				if (lastKey <= heapKeys[child])
+					break;
+				heapNodes[i] = heapNodes[child];
+				heapKeys[i] = heapKeys[child];
+				i = child;
+			}
+			heapNodes[i] = lastNode;
+			heapKeys[i] = lastKey;
+			return top;
+		}
+	}
+}
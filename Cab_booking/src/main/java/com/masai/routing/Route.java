@@ -0,0 +1,18 @@
+package com.masai.routing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 最短路查询结果
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class Route {
+
+	private final double distanceKm;
+
+	private final double durationMinutes;
+}
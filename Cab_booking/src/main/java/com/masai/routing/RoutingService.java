@@ -0,0 +1,102 @@
+package com.masai.routing;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.masai.dispatch.DriverSpatialIndex;
+
+/**
+ * 服务端计算行程距离和预计用时
+ * 起终点先吸附到最近的路网节点，节点对之间的结果放在有界的LRU缓存里，热门起终点不用重复搜索
+ * 没有配置路网文件时不启用，调用方沿用客户端传来的距离
+ */
+@Component
+public class RoutingService {
+
+	// 起终点到路网节点之间的接驳路段按这个速度估算
+	private static final double ACCESS_SPEED_KMH = 20;
+
+	private static final Route NO_ROUTE = new Route(-1, -1);
+
+	@Value("${routing.graph:classpath:roads.graph}")
+	private Resource source;
+
+	@Value("${routing.cache-size:50000}")
+	private int cacheSize;
+
+	@Value("${routing.snap-max-km:2}")
+	private double snapMaxKm;
+
+	// 同时保留的A*搜索状态份数，每份约 24 字节 × 路网节点数；默认取CPU核数
+	@Value("${routing.search-states:0}")
+	private int searchStates;
+
+	private RoadGraph graph;
+
+	private Map<Long, Route> cache;
+
+	@PostConstruct
+	public void load() throws IOException {
+		cache = new LinkedHashMap<Long, Route>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Route> eldest) {
+				return size() > cacheSize;
+			}
+		};
+		if (!source.exists())
+			return;
+		try (Reader reader = new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8)) {
+			graph = RoadGraph.load(reader, searchStates > 0 ? searchStates : Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	public boolean isEnabled() {
+		return graph != null;
+	}
+
+	/**
+	 * @return 没有路网、起终点离路网太远或不连通时返回null
+	 */
+	public Route route(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+		if (graph == null)
+			return null;
+		int from = graph.nearestNode(fromLatitude, fromLongitude, snapMaxKm);
+		int to = graph.nearestNode(toLatitude, toLongitude, snapMaxKm);
+		if (from < 0 || to < 0)
+			return null;
+
+		Route between = between(from, to);
+		if (between == null)
+			return null;
+		double accessKm = DriverSpatialIndex.distanceKm(fromLatitude, fromLongitude, graph.latitude(from), graph.longitude(from))
+				+ DriverSpatialIndex.distanceKm(toLatitude, toLongitude, graph.latitude(to), graph.longitude(to));
+		return new Route(between.getDistanceKm() + accessKm,
+				between.getDurationMinutes() + accessKm / ACCESS_SPEED_KMH * 60);
+	}
+
+	private Route between(int from, int to) {
+		long key = ((long) from << 32) | (to & 0xffffffffL);
+		Route cached;
+		synchronized (cache) {
+			cached = cache.get(key);
+		}
+		if (cached == null) {
+			Route found = graph.route(from, to);
+			cached = found == null ? NO_ROUTE : found;
+			synchronized (cache) {
+				cache.put(key, cached);
+			}
+		}
+		return cached == NO_ROUTE ? null : cached;
+	}
+}
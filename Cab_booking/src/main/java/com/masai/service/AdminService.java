@@ -3,9 +3,11 @@ package com.masai.service;
 import java.time.LocalDate;
 import java.util.List;
 
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Admin;
 import com.masai.entity.Cab;
 import com.masai.entity.TripBooking;
+import com.masai.entity.TripView;
 import com.masai.exception.AdminExceptions;
 
 
@@ -20,13 +22,36 @@ public interface AdminService {
 	
 	public List<TripBooking> getAllTrips(Integer customerid) throws AdminExceptions;
 	
+	public PageResponse<TripBooking> getCustomerTripHistory(Integer customerId, LocalDate from, LocalDate to, String after,
+			Integer limit) throws AdminExceptions;
+	
 	public List<TripBooking> getTripsDriverwise();
 	
 	public List<TripBooking> getTripsCustomerwise();
 	
 	public List<TripBooking> getTripsDatewise() throws AdminExceptions;
 	
+	public PageResponse<TripBooking> getTripsCustomerwisePage(String after, Integer limit);
+	
+	public PageResponse<TripBooking> getTripsDatewisePage(String after, Integer limit);
+	
 	public List<TripBooking> getTripsDatewiseAndCustomer(Integer customerId,LocalDate date) throws AdminExceptions;
+
+	// v2 报表返回扁平的 TripView
+	public PageResponse<TripView> getCustomerTripViews(Integer customerId, LocalDate from, LocalDate to, String after,
+			Integer limit) throws AdminExceptions;
+	
+	public List<TripView> getTripViewsDriverwise();
+	
+	public List<TripView> getTripViewsCustomerwise();
+	
+	public List<TripView> getTripViewsDatewise() throws AdminExceptions;
+	
+	public PageResponse<TripView> getTripViewsCustomerwisePage(String after, Integer limit);
+	
+	public PageResponse<TripView> getTripViewsDatewisePage(String after, Integer limit);
+	
+	public List<TripView> getTripViewsDatewiseAndCustomer(Integer customerId,LocalDate date) throws AdminExceptions;
 	
 	
 	
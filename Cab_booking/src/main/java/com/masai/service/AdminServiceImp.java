@@ -6,24 +6,34 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Admin;
 import com.masai.entity.Cab;
 import com.masai.entity.Customer;
 import com.masai.entity.Driver;
 import com.masai.entity.TripBooking;
+import com.masai.entity.TripView;
 import com.masai.exception.AdminExceptions;
 import com.masai.exception.NotFoundException;
+import com.masai.paging.KeysetPaging;
 import com.masai.repository.AdminDao;
 import com.masai.repository.CabDao;
 import com.masai.repository.CustomerDao;
 import com.masai.repository.DriverDao;
 
 import com.masai.repository.TripDao;
+import com.masai.repository.TripViewDao;
 
 
 @Service
 public class AdminServiceImp implements AdminService {
+
+	private static final LocalDate EARLIEST = LocalDate.of(1000, 1, 1);
+
+	private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
 	@Autowired
 	private AdminDao adminDao;
 
@@ -39,6 +49,13 @@ public class AdminServiceImp implements AdminService {
 	@Autowired
 	private TripDao tripDao;
 
+	// v2 报表只读扁平的 trip_view
+	@Autowired
+	private TripViewDao tripViewDao;
+
+	@Autowired
+	private KeysetPaging paging;
+
 	@Override
 	public Admin saveAdmin(Admin admin) throws AdminExceptions {
 		System.out.println(admin);
@@ -64,11 +81,12 @@ public class AdminServiceImp implements AdminService {
 	}
 
 	@Override //all trips detail of customer
+	@Transactional(readOnly = true)
 	public List<TripBooking> getAllTrips(Integer customerid) throws AdminExceptions {
 		//customer exception
 		Optional<Customer> opt = customerDao.findById(customerid);
 		if(opt.isPresent()) {
-			List<TripBooking> trips = tripDao.findAll();
+			List<TripBooking> trips = tripDao.findCustomerHistory(customerid, EARLIEST, LATEST, null, null, Integer.MAX_VALUE);
 			return trips;
 		
 		}
@@ -76,7 +94,24 @@ public class AdminServiceImp implements AdminService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<TripBooking> getCustomerTripHistory(Integer customerId, LocalDate from, LocalDate to, String after,
+			Integer limit) throws AdminExceptions {
+		if(!customerDao.existsById(customerId))
+			throw new AdminExceptions("Invalid Id");
+		// 不限日期时用MySQL DATE的取值范围
+		LocalDate start = from == null ? EARLIEST : from;
+		LocalDate end = to == null ? LATEST : to;
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "history", 2);
+		List<TripBooking> rows = cursor == null
+				? tripDao.findCustomerHistory(customerId, start, end, null, null, size + 1)
+				: tripDao.findCustomerHistory(customerId, start, end, cursor.dateAt(0), cursor.intAt(1), size + 1);
+		return paging.page(rows, size, t -> KeysetPaging.encode("history", t.getFromdate_time(), t.getTripBookingId()));
+	}
 
+	@Override
+	@Transactional(readOnly = true)
 	public List<TripBooking> getTripsDriverwise() {
 		
 		List<TripBooking> list = tripDao.findByDriverAscs();
@@ -90,6 +125,7 @@ public class AdminServiceImp implements AdminService {
 
 
 	@Override
+	@Transactional(readOnly = true)
 	public List<TripBooking> getTripsCustomerwise() {
 		List<TripBooking> list = tripDao.findByCustomeridAsce();
 		if(list.size() > 0)
@@ -100,6 +136,7 @@ public class AdminServiceImp implements AdminService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public List<TripBooking> getTripsDatewise() throws AdminExceptions {
 		List<TripBooking> list = tripDao.findByFromdate_timeAsce();
 		if(list.size() > 0)
@@ -109,8 +146,117 @@ public class AdminServiceImp implements AdminService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<TripBooking> getTripsCustomerwisePage(String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "customertrip", 2);
+		List<TripBooking> rows = cursor == null ? tripDao.findFirstPageByCustomer(paging.probe(size))
+				: tripDao.findPageByCustomerAfter(cursor.intAt(0), cursor.intAt(1), paging.probe(size));
+		return paging.page(rows, size,
+				t -> KeysetPaging.encode("customertrip", t.getCustomerId(), t.getTripBookingId()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<TripBooking> getTripsDatewisePage(String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "datetrip", 2);
+		List<TripBooking> rows = cursor == null ? tripDao.findFirstPageByDate(paging.probe(size))
+				: tripDao.findPageByDateAfter(cursor.dateAt(0), cursor.intAt(1), paging.probe(size));
+		return paging.page(rows, size,
+				t -> KeysetPaging.encode("datetrip", t.getFromdate_time(), t.getTripBookingId()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public List<TripBooking> getTripsDatewiseAndCustomer(Integer customerId, LocalDate date) throws AdminExceptions {
-		List<TripBooking> list = tripDao.findByCustomerIdAndFromdate_time(customerId, date);
+		List<TripBooking> list = tripDao.findCustomerHistory(customerId, date, date, null, null, Integer.MAX_VALUE);
+		if(list.size() > 0)
+			return list;
+		else
+			throw new AdminExceptions("No trips found for customer id "+customerId+" and date : "+date);
+	}
+
+	// 以下为 v2 报表，读扁平的 trip_view，不再连表
+
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<TripView> getCustomerTripViews(Integer customerId, LocalDate from, LocalDate to, String after,
+			Integer limit) throws AdminExceptions {
+		if(!customerDao.existsById(customerId))
+			throw new AdminExceptions("Invalid Id");
+		// 不限日期时用MySQL DATE的取值范围
+		LocalDate start = from == null ? EARLIEST : from;
+		LocalDate end = to == null ? LATEST : to;
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "history", 2);
+		List<TripView> rows = cursor == null
+				? tripViewDao.findHistoryFirstPage(customerId, start, end, paging.probe(size))
+				: tripViewDao.findHistoryPageAfter(customerId, start, cursor.dateAt(0), cursor.intAt(1), paging.probe(size));
+		return paging.page(rows, size, t -> KeysetPaging.encode("history", t.getFromdateTime(), t.getTripBookingId()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<TripView> getTripViewsDriverwise() {
+		
+		List<TripView> list = tripViewDao.findAllByDriver();
+		
+		if(list.size() > 0)
+			return list;
+		else
+			throw new AdminExceptions("No trips found");
+		
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<TripView> getTripViewsCustomerwise() {
+		List<TripView> list = tripViewDao.findAllByCustomer();
+		if(list.size() > 0)
+			return list;
+		else
+			throw new AdminExceptions("No trips found");
+		 
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<TripView> getTripViewsDatewise() throws AdminExceptions {
+		List<TripView> list = tripViewDao.findAllByDate();
+		if(list.size() > 0)
+			return list;
+		else
+			throw new AdminExceptions("No trips found");
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<TripView> getTripViewsCustomerwisePage(String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "customertrip", 2);
+		List<TripView> rows = cursor == null ? tripViewDao.findFirstPageByCustomer(paging.probe(size))
+				: tripViewDao.findPageByCustomerAfter(cursor.intAt(0), cursor.intAt(1), paging.probe(size));
+		return paging.page(rows, size,
+				t -> KeysetPaging.encode("customertrip", t.getCustomerId(), t.getTripBookingId()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<TripView> getTripViewsDatewisePage(String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "datetrip", 2);
+		List<TripView> rows = cursor == null ? tripViewDao.findFirstPageByDate(paging.probe(size))
+				: tripViewDao.findPageByDateAfter(cursor.dateAt(0), cursor.intAt(1), paging.probe(size));
+		return paging.page(rows, size,
+				t -> KeysetPaging.encode("datetrip", t.getFromdateTime(), t.getTripBookingId()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<TripView> getTripViewsDatewiseAndCustomer(Integer customerId, LocalDate date) throws AdminExceptions {
+		List<TripView> list = tripViewDao.findByCustomerOn(customerId, date);
 		if(list.size() > 0)
 			return list;
 		else
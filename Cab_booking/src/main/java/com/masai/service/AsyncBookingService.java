@@ -0,0 +1,14 @@
+package com.masai.service;
+
+import com.masai.dto.response.BookingQueueStats;
+import com.masai.dto.response.BookingTicket;
+import com.masai.entity.TripBooking;
+import com.masai.exception.BookingQueueFullException;
+import com.masai.exception.InvalidId;
+
+public interface AsyncBookingService {
+
+	public BookingTicket submit(TripBooking tb) throws InvalidId, BookingQueueFullException;
+	public BookingTicket findTicket(String ticketId) throws InvalidId;
+	public BookingQueueStats queueStats();
+}
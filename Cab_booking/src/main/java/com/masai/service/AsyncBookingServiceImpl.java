@@ -0,0 +1,128 @@
+package com.masai.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.masai.dto.response.BookingQueueStats;
+import com.masai.dto.response.BookingStatus;
+import com.masai.dto.response.BookingTicket;
+import com.masai.entity.Customer;
+import com.masai.entity.TripBooking;
+import com.masai.exception.BookingQueueFullException;
+import com.masai.exception.InvalidId;
+import com.masai.repository.CustomerDao;
+
+@Service
+public class AsyncBookingServiceImpl implements AsyncBookingService {
+
+	@Autowired
+	private TripService tripService;
+
+	@Autowired
+	private CustomerDao cdao;
+
+	@Autowired
+	private ThreadPoolExecutor bookingExecutor;
+
+	@Value("${booking.async.ticket-ttl-minutes:30}")
+	private long ticketTtlMinutes;
+
+	// 回执每次状态变化都换成新对象，轮询方读到的总是完整的一份
+	private final ConcurrentHashMap<String, BookingTicket> tickets = new ConcurrentHashMap<>();
+
+	private final LongAdder rejected = new LongAdder();
+
+	// 已受理但还没出结果的预约数
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	@Override
+	public BookingTicket submit(TripBooking tb) throws InvalidId, BookingQueueFullException {
+		Customer customer = cdao.findById(tb.getCustomerId()).orElseThrow(() -> new InvalidId("Customer with ID "+tb.getCustomerId()+" does not exit.."));
+
+		// 批量派单模式下工作线程入队后就空出来了，所以按还没出结果的回执数限流，而不只看线程池队列
+		if (outstanding.incrementAndGet() > capacity()) {
+			outstanding.decrementAndGet();
+			rejected.increment();
+			throw new BookingQueueFullException("Booking queue is full, please retry later");
+		}
+		String ticketId = UUID.randomUUID().toString();
+		BookingTicket ticket = new BookingTicket(ticketId, BookingStatus.PENDING, null, null, LocalDateTime.now(), null);
+		tickets.put(ticketId, ticket);
+		try {
+			bookingExecutor.execute(() -> book(ticket, tb, customer));
+		} catch (RejectedExecutionException e) {
+			tickets.remove(ticketId);
+			outstanding.decrementAndGet();
+			rejected.increment();
+			throw new BookingQueueFullException("Booking queue is full, please retry later");
+		}
+		return ticket;
+	}
+
+	// 客户在 submit 里已经校验过，这里直接派单；批量模式下不阻塞工作线程，匹配窗口出结果时再更新回执
+	private void book(BookingTicket pending, TripBooking tb, Customer customer) {
+		CompletableFuture<TripBooking> result;
+		try {
+			result = tripService.submitTrip(tb, customer);
+		} catch (RuntimeException e) {
+			finish(pending, null, e);
+			return;
+		}
+		result.whenComplete((saved, error) -> finish(pending, saved, error));
+	}
+
+	private void finish(BookingTicket pending, TripBooking saved, Throwable error) {
+		BookingTicket done;
+		if (error == null) {
+			done = new BookingTicket(pending.getTicketId(), BookingStatus.BOOKED, saved.getTripBookingId(), null,
+					pending.getCreatedAt(), LocalDateTime.now());
+		} else {
+			Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+			done = new BookingTicket(pending.getTicketId(), BookingStatus.FAILED, null, cause.getMessage(),
+					pending.getCreatedAt(), LocalDateTime.now());
+		}
+		tickets.put(pending.getTicketId(), done);
+		outstanding.decrementAndGet();
+	}
+
+	private int capacity() {
+		return bookingExecutor.getMaximumPoolSize() + bookingExecutor.getQueue().size()
+				+ bookingExecutor.getQueue().remainingCapacity();
+	}
+
+	@Override
+	public BookingTicket findTicket(String ticketId) throws InvalidId {
+		BookingTicket ticket = tickets.get(ticketId);
+		if (ticket == null)
+			throw new InvalidId("Booking ticket "+ticketId+" does not exit..");
+		return ticket;
+	}
+
+	@Override
+	public BookingQueueStats queueStats() {
+		return new BookingQueueStats(bookingExecutor.getQueue().size(),
+				bookingExecutor.getQueue().size() + bookingExecutor.getQueue().remainingCapacity(),
+				bookingExecutor.getActiveCount(), bookingExecutor.getCompletedTaskCount(), rejected.sum());
+	}
+
+	/**
+	 * 清理过期的已完成回执，避免回执表无限增长
+	 */
+	@Scheduled(fixedDelayString = "${booking.async.ticket-sweep-ms:60000}")
+	public void evictExpiredTickets() {
+		LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ticketTtlMinutes);
+		tickets.values().removeIf(ticket -> ticket.getCompletedAt() != null && ticket.getCompletedAt().isBefore(cutoff));
+	}
+}
@@ -2,6 +2,7 @@ package com.masai.service;
 
 import java.util.List;
 
+import com.masai.dto.response.CabTypeCount;
 import com.masai.entity.Cab;
 import com.masai.exception.NotFoundException;
 import com.masai.exception.InvalidId;
@@ -14,6 +15,7 @@ public Cab updateCab(Integer id,String type, Integer rate) throws NotFoundExcept
 	
 	public List<String> viewCabsOfType() throws NotFoundException;
 	public int countCabsOfType() throws NotFoundException;
+	public CabTypeCount countCabsOfType(String carType) throws NotFoundException;
 	
 }
 
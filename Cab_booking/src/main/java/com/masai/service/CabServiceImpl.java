@@ -5,10 +5,13 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.dispatch.DriverAvailabilityTracker;
+import com.masai.dto.response.CabTypeCount;
 import com.masai.entity.Cab;
-import com.masai.entity.Driver;
 import com.masai.exception.NotFoundException;
 import com.masai.exception.InvalidId;
+import com.masai.pricing.PricingEngine;
 import com.masai.repository.CabDao;
 import com.masai.repository.DriverDao;
 
@@ -24,6 +27,15 @@ public class CabServiceImpl implements CabService {
 	@Autowired
 	private DriverDao dDao;
 
+	@Autowired
+	private CabTypeRegistry cabTypes;
+
+	@Autowired
+	private DriverAvailabilityTracker tracker;
+
+	@Autowired
+	private PricingEngine pricing;
+
 
 
 
@@ -35,12 +47,20 @@ public class CabServiceImpl implements CabService {
 		  if(opt.isPresent())
 		  {
 			  Cab fCab=opt.get();
+				String oldType = fCab.getCarType();
+				Integer oldRate = fCab.getRatePerKm();
 				fCab.setCarType(type);
 				fCab.setRatePerKm(rate);
-				Driver fDriver= fCab.getDriver();
-				fDriver.setCab(fCab);;
-				dDao.save(fDriver);
-				return cDao.save(fCab);
+				// 保存整个司机会把读到的 available 写回去，盖掉这期间的占用，所以只更新车辆两列
+				cDao.updateCab(id, type, rate);
+				fCab.setCarType(type);
+				fCab.setRatePerKm(rate);
+				cabTypes.cabRemoved(oldType);
+				cabTypes.cabAdded(type);
+				// 车辆从二级缓存取出时反向的 driver 不一定有值，按车辆id查司机id
+				dDao.findIdByCabId(id).ifPresent(driverId -> tracker.cabChanged(driverId, type, rate));
+				pricing.cabChanged(oldType, oldRate, type, rate);
+				return fCab;
 			  
 			  
 			  /*
@@ -68,15 +88,21 @@ public class CabServiceImpl implements CabService {
 	@Override
 	public List<String> viewCabsOfType() throws NotFoundException {
 		// TODO Auto-generated method stub
-		List<String> cabs = cDao.viewCarType();
-		return cabs;
+		return cabTypes.carTypes();
 	}
 
 	@Override
 	public int countCabsOfType() throws NotFoundException {
 		// TODO Auto-generated method stub
-		List<Cab> listcab = cDao.findAll();
-		return listcab.size();
+		return (int) cabTypes.cabCount();
+	}
+
+	@Override
+	public CabTypeCount countCabsOfType(String carType) throws NotFoundException {
+		long cabs = cabTypes.cabCount(carType);
+		if (cabs == 0)
+			throw new NotFoundException("No Cab found of type "+carType);
+		return new CabTypeCount(carType, cabs, cabTypes.availableCount(carType));
 	}
 	
 	
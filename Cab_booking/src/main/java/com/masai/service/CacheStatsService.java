@@ -0,0 +1,13 @@
+package com.masai.service;
+
+import java.util.List;
+
+import com.masai.dto.response.CacheRegionStats;
+
+public interface CacheStatsService {
+
+	/**
+	 * 各二级缓存区域和查询缓存的命中情况，需要开启 hibernate.generate_statistics
+	 */
+	public List<CacheRegionStats> regionStats();
+}
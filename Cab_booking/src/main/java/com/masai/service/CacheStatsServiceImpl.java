@@ -0,0 +1,41 @@
+package com.masai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.masai.dto.response.CacheRegionStats;
+
+@Service
+public class CacheStatsServiceImpl implements CacheStatsService {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Override
+	public List<CacheRegionStats> regionStats() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		List<CacheRegionStats> result = new ArrayList<>();
+		// 实体区域、查询缓存区域和更新时间戳区域都在里面
+		for (String region : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+			if (stats != null)
+				result.add(toStats(region, stats));
+		}
+		return result;
+	}
+
+	private static CacheRegionStats toStats(String region, CacheRegionStatistics stats) {
+		long hits = stats.getHitCount();
+		long misses = stats.getMissCount();
+		double ratio = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+		return new CacheRegionStats(region, hits, misses, stats.getPutCount(), ratio);
+	}
+}
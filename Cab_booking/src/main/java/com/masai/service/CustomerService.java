@@ -4,6 +4,7 @@ package com.masai.service;
 
 import java.util.List;
 
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Customer;
 import com.masai.exception.InvalidId;
 import com.masai.exception.Nullexception;
@@ -15,6 +16,7 @@ public interface CustomerService {
 	public Customer updateCustomer(Customer customer,Integer id)throws InvalidId;
 	public String deleteCustomer(Integer id)throws InvalidId;
 	public List<Customer> allCustomer()throws Nullexception;
+	public PageResponse<Customer> customerPage(String after, Integer limit);
 	public Customer vaildCustomer(String Email,String Password)throws InvalidId;
 	
 }
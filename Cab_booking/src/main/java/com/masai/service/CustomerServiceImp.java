@@ -1,16 +1,24 @@
 package com.masai.service;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.masai.auth.CredentialCache;
+import com.masai.auth.UserType;
+import com.masai.auth.UserTypeDirectory;
 import com.masai.repository.AddressDao;
 import com.masai.repository.CustomerDao;
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Address;
 import com.masai.entity.Customer;
 import com.masai.exception.InvalidId;
 import com.masai.exception.Nullexception;
+import com.masai.exception.UserAlreadyExistWithuserId;
+import com.masai.paging.KeysetPaging;
+import com.masai.readmodel.TripViewProjector;
 
 
 @Service
@@ -20,11 +28,24 @@ public class CustomerServiceImp implements CustomerService {
 	private CustomerDao cdao;
     @Autowired
     private AddressDao Adao;
+    @Autowired
+    private KeysetPaging paging;
+    @Autowired
+    private CredentialCache credentials;
+    @Autowired
+    private UserTypeDirectory userTypes;
+    @Autowired
+    private TripViewProjector tripViews;
 	
 	
 	@Override
     	public Customer saveCustomer(Customer customer) {
-		return cdao.save(customer);
+		// 邮箱有唯一索引，提前检查给出明确的错误，并发重复注册仍由索引兜底
+		if (cdao.findByEmail(customer.getEmail()).isPresent())
+			throw new UserAlreadyExistWithuserId("Customer with Email "+customer.getEmail()+" already exists");
+		Customer saved = cdao.save(customer);
+		userTypes.put(saved.getUserId(), UserType.CUSTOMER);
+		return saved;
 	}
 
 
@@ -44,6 +65,8 @@ public class CustomerServiceImp implements CustomerService {
 		Customer c1=cdao.findById(id).orElseThrow(() -> new InvalidId("Customer with ID "+id+" does not exit.."));
 		
 	Integer aid=	c1.getAddress().getId();
+		credentials.invalidate(c1.getEmail());
+		credentials.invalidate(customer.getEmail());
 		
 		c1.setAddress(customer.getAddress());
 		c1.setEmail(customer.getEmail());
@@ -53,17 +76,29 @@ public class CustomerServiceImp implements CustomerService {
 		Address a1=Adao.findById(aid).orElseThrow(() -> new InvalidId("Address with ID "+aid+" does not exit.."));
 		Adao.delete(a1);
 		Adao.save(customer.getAddress());
+		tripViews.customerRenamed(id, customer.getUsername());
 		
 		return c1;
 	}
 
+	@Override
+	public PageResponse<Customer> customerPage(String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "customer", 1);
+		List<Customer> rows = cursor == null ? cdao.findFirstPage(paging.probe(size))
+				: cdao.findPageAfter(cursor.intAt(0), paging.probe(size));
+		return paging.page(rows, size, c -> KeysetPaging.encode("customer", c.getUserId()));
+	}
+
 
 	@Override
 	public String deleteCustomer(Integer id) throws InvalidId {
 		// TODO Auto-generated method stub
 		Customer ct=cdao.findById(id).orElseThrow(() -> new InvalidId("Customer with ID "+id+" does not exit.."));
+		credentials.invalidate(ct.getEmail());
 		Adao.delete(ct.getAddress());
 		cdao.delete(ct);
+		userTypes.remove(id);
 		
 		return "delete...";
 	}
@@ -80,14 +115,20 @@ public class CustomerServiceImp implements CustomerService {
 
 	@Override
 	public Customer vaildCustomer(String Email, String Password) throws InvalidId {
-		// TODO Auto-generated method stub
-		
-		List<Customer> c1  =cdao.findAll();
-		for(int i= 0; i < c1.size(); i++) {
-			if(c1.get(i).getEmail().equals(Email) && c1.get(i).getPassword().equals(Password))
-			     return c1.get(i);
-			}
-		 throw new InvalidId("Invalid Email and password");
+		// 缓存只确认密码，命中后按主键取客户；客户已被删除时清掉缓存，按邮箱重新校验
+		Integer cachedId = credentials.verify(Email, Password);
+		if (cachedId != null) {
+			Optional<Customer> cached = cdao.findById(cachedId);
+			if (cached.isPresent())
+				return cached.get();
+			credentials.invalidate(Email);
+		}
+
+		Customer ct = cdao.findByEmail(Email)
+				.filter(c -> c.getPassword().equals(Password))
+				.orElseThrow(() -> new InvalidId("Invalid Email and password"));
+		credentials.put(Email, Password, ct.getUserId());
+		return ct;
 	}
 
 
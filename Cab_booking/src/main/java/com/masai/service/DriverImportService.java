@@ -0,0 +1,15 @@
+package com.masai.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.masai.dto.response.ImportReport;
+
+public interface DriverImportService {
+
+	/**
+	 * 流式导入司机，校验不通过或写入失败的行记入报告，不影响其它行
+	 * @param csv true为CSV，false为NDJSON
+	 */
+	public ImportReport importDrivers(Reader body, boolean csv) throws IOException;
+}
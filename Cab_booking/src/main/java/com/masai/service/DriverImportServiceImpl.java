@@ -0,0 +1,216 @@
+package com.masai.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.masai.auth.UserType;
+import com.masai.auth.UserTypeDirectory;
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.dispatch.DriverAvailabilityTracker;
+import com.masai.dto.request.DriverRequest;
+import com.masai.dto.response.ImportReport;
+import com.masai.dto.response.ImportRowError;
+import com.masai.entity.Driver;
+import com.masai.importer.DriverRowReader;
+import com.masai.mapper.DtoMapper;
+import com.masai.pricing.PricingEngine;
+import com.masai.repository.DriverDao;
+
+/**
+ * 司机批量导入
+ * 边读边校验，攒够 batch-size 行在一个事务里写入，地址、用户、司机、车辆各自按JDBC批量insert；
+ * 一批在数据库层面失败时（比如并发注册了相同邮箱）逐行重试，把失败定位到具体的行
+ */
+@Service
+public class DriverImportServiceImpl implements DriverImportService {
+
+	@Autowired
+	private DriverDao dDao;
+
+	@Autowired
+	private DtoMapper mapper;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private UserTypeDirectory userTypes;
+
+	@Autowired
+	private DriverAvailabilityTracker tracker;
+
+	@Autowired
+	private CabTypeRegistry cabTypes;
+
+	@Autowired
+	private PricingEngine pricing;
+
+	@Value("${import.batch-size:500}")
+	private int batchSize;
+
+	@Value("${import.max-errors:1000}")
+	private int maxErrors;
+
+	@Override
+	public ImportReport importDrivers(Reader body, boolean csv) throws IOException {
+		long start = System.currentTimeMillis();
+		DriverRowReader reader = csv ? DriverRowReader.csv(body) : DriverRowReader.ndjson(body, objectMapper);
+		ImportReport report = new ImportReport();
+		// 文件内的重复邮箱在内存里查，和数据库的重复在每批写入前查
+		Set<String> emails = new HashSet<>();
+		List<Pending> chunk = new ArrayList<>(batchSize);
+
+		DriverRowReader.Row row;
+		while ((row = reader.next()) != null) {
+			report.setReceived(report.getReceived() + 1);
+			String error = row.getError() != null ? row.getError() : validate(row.getRequest());
+			if (error == null && !emails.add(row.getRequest().getEmail().toLowerCase(Locale.ROOT)))
+				error = "Duplicate email in file: " + row.getRequest().getEmail();
+			if (error != null) {
+				fail(report, row.getLine(), error);
+				continue;
+			}
+			chunk.add(new Pending(row.getLine(), row.getRequest()));
+			if (chunk.size() == batchSize) {
+				importChunk(chunk, report);
+				chunk.clear();
+			}
+		}
+		importChunk(chunk, report);
+
+		if (report.getImported() > 0)
+			pricing.refresh();
+		report.setElapsedMs(System.currentTimeMillis() - start);
+		return report;
+	}
+
+	private String validate(DriverRequest request) {
+		Set<ConstraintViolation<DriverRequest>> violations = validator.validate(request);
+		if (violations.isEmpty())
+			return null;
+		// 排序后输出，同样的输入得到同样的报告
+		Set<String> messages = new TreeSet<>();
+		for (ConstraintViolation<DriverRequest> violation : violations)
+			messages.add(violation.getPropertyPath() + ": " + violation.getMessage());
+		return String.join("; ", messages);
+	}
+
+	private void importChunk(List<Pending> chunk, ImportReport report) {
+		if (chunk.isEmpty())
+			return;
+		List<Driver> saved;
+		try {
+			saved = transactionTemplate.execute(status -> insertChunk(chunk));
+		} catch (RuntimeException e) {
+			saved = new ArrayList<>();
+			for (Pending pending : chunk) {
+				if (pending.error != null)
+					continue;
+				try {
+					// 失败的事务里实体已经分配过id，重新映射一份
+					Driver driver = mapper.toDriverEntity(pending.request);
+					saved.add(transactionTemplate.execute(status -> dDao.save(driver)));
+				} catch (RuntimeException re) {
+					pending.error = NestedExceptionUtils.getMostSpecificCause(re).getMessage();
+				}
+			}
+		}
+		for (Pending pending : chunk) {
+			if (pending.error != null)
+				fail(report, pending.line, pending.error);
+		}
+		report.setImported(report.getImported() + saved.size());
+
+		for (Driver driver : saved) {
+			userTypes.put(driver.getUserId(), UserType.DRIVER);
+			tracker.driverChanged(driver);
+			if (driver.getCab() != null)
+				cabTypes.cabAdded(driver.getCab().getCarType());
+		}
+	}
+
+	private List<Driver> insertChunk(List<Pending> chunk) {
+		List<String> emails = new ArrayList<>(chunk.size());
+		for (Pending pending : chunk)
+			emails.add(pending.request.getEmail());
+		Set<String> taken = new HashSet<>();
+		for (String email : dDao.findExistingEmails(emails))
+			taken.add(email.toLowerCase(Locale.ROOT));
+
+		List<Driver> drivers = new ArrayList<>(chunk.size());
+		for (Pending pending : chunk) {
+			if (taken.contains(pending.request.getEmail().toLowerCase(Locale.ROOT)))
+				pending.error = "Email already registered: " + pending.request.getEmail();
+			else
+				drivers.add(mapper.toDriverEntity(pending.request));
+		}
+
+		Session session = entityManager.unwrap(Session.class);
+		CacheMode cacheMode = session.getCacheMode();
+		Integer jdbcBatchSize = session.getJdbcBatchSize();
+		// 新导入的司机不往二级缓存里放；缓存是在提交之后才写的，所以等事务结束再恢复
+		session.setCacheMode(CacheMode.IGNORE);
+		session.setJdbcBatchSize(batchSize);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				session.setCacheMode(cacheMode);
+				session.setJdbcBatchSize(jdbcBatchSize);
+			}
+		});
+
+		List<Driver> saved = dDao.saveAll(drivers);
+		entityManager.flush();
+		// 导入过程中持久化上下文只保留当前这一批
+		entityManager.clear();
+		return saved;
+	}
+
+	private void fail(ImportReport report, int line, String message) {
+		report.setFailed(report.getFailed() + 1);
+		if (report.getErrors().size() < maxErrors)
+			report.getErrors().add(new ImportRowError(line, message));
+	}
+
+	private static class Pending {
+		private final int line;
+		private final DriverRequest request;
+		private String error;
+
+		private Pending(int line, DriverRequest request) {
+			this.line = line;
+			this.request = request;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.masai.service;
 
 import java.util.List;
 
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Driver;
 import com.masai.exception.DriverNotFoundException;
 import com.masai.exception.InvalidId;
@@ -10,6 +11,8 @@ public interface DriverService {
 public Driver insertDriver(Driver driver);
 public Driver viewDriverById(Integer id) throws InvalidId;
 public Driver updateDriver(Integer id,String license, Boolean available)throws DriverNotFoundException;
+public Driver updateDriverLocation(Integer id, Double latitude, Double longitude)throws DriverNotFoundException;
 public String deleteDriverById(Integer id)throws DriverNotFoundException;
-public List<Driver> viewBestDriver()throws DriverNotFoundException;
+public List<Driver> viewBestDriver(Double minRating, Integer limit)throws DriverNotFoundException;
+public PageResponse<Driver> viewBestDriverPage(Double minRating, String after, Integer limit);
 }
@@ -1,15 +1,29 @@
 package com.masai.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.masai.auth.UserType;
+import com.masai.auth.UserTypeDirectory;
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.dispatch.DriverAvailabilityTracker;
+import com.masai.dispatch.DriverLeaderboard;
+import com.masai.dto.response.PageResponse;
 import com.masai.entity.Cab;
 import com.masai.entity.Driver;
 import com.masai.exception.DriverNotFoundException;
 import com.masai.exception.InvalidId;
+import com.masai.exception.UserAlreadyExistWithuserId;
+import com.masai.paging.KeysetPaging;
+import com.masai.pricing.PricingEngine;
 import com.masai.repository.AddressDao;
 import com.masai.repository.CabDao;
 import com.masai.repository.DriverDao;
@@ -24,10 +38,32 @@ public class DriverServiceImpl implements DriverService {
 	@Autowired
 	private AddressDao Adao;
 	
+	@Autowired
+	private DriverAvailabilityTracker tracker;
+	@Autowired
+	private CabTypeRegistry cabTypes;
+	@Autowired
+	private DriverLeaderboard leaderboard;
+	@Autowired
+	private PricingEngine pricing;
+	@Autowired
+	private KeysetPaging paging;
+	@Autowired
+	private UserTypeDirectory userTypes;
+	
 	@Override
 	public Driver insertDriver(Driver driver) {
-		
-		return dDao.save(driver);
+		// 邮箱和客户共用 uk_user_email，提前检查给出409，并发重复注册仍由索引兜底
+		if (driver.getEmail() != null && !dDao.findExistingEmails(Collections.singleton(driver.getEmail())).isEmpty())
+			throw new UserAlreadyExistWithuserId("Driver with Email "+driver.getEmail()+" already exists");
+		Driver saved = dDao.save(driver);
+		userTypes.put(saved.getUserId(), UserType.DRIVER);
+		tracker.driverChanged(saved);
+		if (saved.getCab() != null) {
+			cabTypes.cabAdded(saved.getCab().getCarType());
+			pricing.cabAdded(saved.getCab().getCarType(), saved.getCab().getRatePerKm());
+		}
+		return saved;
 	}
 
 	@Override
@@ -53,7 +89,9 @@ public class DriverServiceImpl implements DriverService {
 			Cab fCab= fDriver.getCab();
 			fCab.setDriver(fDriver);
 			cDao.save(fCab);
-			return dDao.save(fDriver);
+			Driver saved = dDao.save(fDriver);
+			tracker.driverChanged(saved);
+			return saved;
 
 		}
 			
@@ -61,6 +99,15 @@ public class DriverServiceImpl implements DriverService {
 			throw new DriverNotFoundException("No Driver found ");
 	}
 
+	@Override
+	public Driver updateDriverLocation(Integer id, Double latitude, Double longitude) throws DriverNotFoundException {
+		// 不先读整行再 save，否则会把读到的 available 写回去，盖掉这期间的占用
+		if (dDao.updateLocation(id, latitude, longitude) != 1)
+			throw new DriverNotFoundException("No Driver found for id: "+id);
+		tracker.driverMoved(id, latitude, longitude);
+		return dDao.findById(id).orElseThrow(() -> new DriverNotFoundException("No Driver found for id: "+id));
+	}
+
 	@Override
 
 	public String deleteDriverById(Integer id) throws DriverNotFoundException{
@@ -69,18 +116,45 @@ public class DriverServiceImpl implements DriverService {
         cDao.deleteById(d1.getCab().getCabId());
         Adao.delete(d1.getAddress());
 	    dDao.delete(d1);
+	    tracker.driverRemoved(id);
+	    userTypes.remove(id);
+	    cabTypes.cabRemoved(d1.getCab().getCarType());
+	    pricing.cabRemoved(d1.getCab().getCarType(), d1.getCab().getRatePerKm());
 			
 	
 		return "Driver Id "+id+ " deleted ";
 	}
 
 	@Override
-	public List<Driver> viewBestDriver() throws DriverNotFoundException {
-		List<Driver> drivers= dDao.viewBestDriver();
-		if(drivers.size()>0)
-			return drivers;
-		else
-			throw new DriverNotFoundException("No Driver found with rating>=4.5");
+	public List<Driver> viewBestDriver(Double minRating, Integer limit) throws DriverNotFoundException {
+		List<Integer> ids = leaderboard.top(minRating, limit);
+		if(ids.isEmpty())
+			throw new DriverNotFoundException("No Driver found with rating>="+minRating);
+		return findInOrder(ids);
+	}
+
+	@Override
+	public PageResponse<Driver> viewBestDriverPage(Double minRating, String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "topdriver", 2);
+		List<Integer> ids = cursor == null ? leaderboard.top(minRating, size + 1)
+				: leaderboard.after(minRating, cursor.doubleAt(0), cursor.intAt(1), size + 1);
+		return paging.page(findInOrder(ids), size, d -> {
+			Double rating = leaderboard.ratingOf(d.getUserId());
+			return KeysetPaging.encode("topdriver", rating != null ? rating : d.getRating(), d.getUserId());
+		});
+	}
+
+	// 按排行榜顺序返回，一次查询取回这些司机
+	private List<Driver> findInOrder(List<Integer> ids) {
+		Map<Integer, Driver> found = dDao.findAllById(ids).stream()
+				.collect(Collectors.toMap(Driver::getUserId, Function.identity()));
+		List<Driver> drivers = new ArrayList<>(ids.size());
+		for (Integer id : ids) {
+			if (found.containsKey(id))
+				drivers.add(found.get(id));
+		}
+		return drivers;
 	}
 
 	
@@ -0,0 +1,12 @@
+package com.masai.service;
+
+import java.util.List;
+
+import com.masai.dto.request.FareQuoteRequest;
+import com.masai.dto.response.FareQuote;
+
+public interface FareService {
+
+	public List<FareQuote> quote(FareQuoteRequest request);
+
+}
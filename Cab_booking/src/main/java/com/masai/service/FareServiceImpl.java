@@ -0,0 +1,43 @@
+package com.masai.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.dto.request.FareQuoteRequest;
+import com.masai.dto.response.FareQuote;
+import com.masai.pricing.PricingEngine;
+
+@Service
+public class FareServiceImpl implements FareService {
+
+	@Autowired
+	private PricingEngine pricing;
+
+	@Autowired
+	private CabTypeRegistry cabTypes;
+
+	@Override
+	public List<FareQuote> quote(FareQuoteRequest request) {
+		// 同一批报价使用同一时刻，保证高峰加价一致
+		LocalDateTime now = LocalDateTime.now();
+		List<FareQuote> quotes = new ArrayList<>(request.getItems().size());
+		for (FareQuoteRequest.Item item : request.getItems()) {
+			if (item.getCarType() != null) {
+				quotes.add(quote(item.getCarType(), item.getKm(), request.getCity(), now));
+				continue;
+			}
+			for (String carType : cabTypes.carTypes())
+				quotes.add(quote(carType, item.getKm(), request.getCity(), now));
+		}
+		return quotes;
+	}
+
+	private FareQuote quote(String carType, Integer km, String city, LocalDateTime at) {
+		return new FareQuote(carType, km, pricing.quote(carType, km, city, at));
+	}
+}
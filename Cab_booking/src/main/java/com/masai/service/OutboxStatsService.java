@@ -0,0 +1,11 @@
+package com.masai.service;
+
+import com.masai.dto.response.OutboxStats;
+
+public interface OutboxStatsService {
+
+	/**
+	 * 发件箱积压和失败的事件数，delivered和deliveryFailures是本节点启动以来的计数
+	 */
+	public OutboxStats stats();
+}
@@ -0,0 +1,24 @@
+package com.masai.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.masai.dto.response.OutboxStats;
+import com.masai.outbox.OutboxRelay;
+import com.masai.repository.TripEventDao;
+
+@Service
+public class OutboxStatsServiceImpl implements OutboxStatsService {
+
+	@Autowired
+	private TripEventDao tripEventDao;
+
+	@Autowired
+	private OutboxRelay relay;
+
+	@Override
+	public OutboxStats stats() {
+		return new OutboxStats(tripEventDao.countByPublishedAtIsNull(), tripEventDao.countByFailedTrue(),
+				relay.getDelivered(), relay.getFailures(), relay.getSubscriberCount());
+	}
+}
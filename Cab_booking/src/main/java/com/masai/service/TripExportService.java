@@ -0,0 +1,14 @@
+package com.masai.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface TripExportService {
+
+	/**
+	 * 把全部行程按NDJSON（每行一个JSON对象）写到输出流
+	 * @return 导出的行数
+	 */
+	public long exportTrips(OutputStream out) throws IOException;
+
+}
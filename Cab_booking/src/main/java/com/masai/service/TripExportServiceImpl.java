@@ -0,0 +1,91 @@
+package com.masai.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.masai.entity.TripBooking;
+import com.masai.repository.TripDao;
+
+/**
+ * 行程流式导出
+ * 在只读事务里按fetch-size分批从数据库游标读取，边读边写，每写clear-every行清空一次持久化上下文，
+ * 导出过程中堆内存只和批大小有关，和行程总数无关
+ */
+@Service
+public class TripExportServiceImpl implements TripExportService {
+
+	@Autowired
+	private TripDao tripDao;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${export.fetch-size:500}")
+	private int fetchSize;
+
+	@Value("${export.clear-every:500}")
+	private int clearEvery;
+
+	private TransactionTemplate readOnlyTransaction;
+
+	@PostConstruct
+	public void init() {
+		readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+	}
+
+	@Override
+	public long exportTrips(OutputStream out) throws IOException {
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+		// 输出流由调用方关闭；每行末尾自己写换行，不要默认的根值分隔符
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.setRootValueSeparator(null);
+		// 只在清空持久化上下文时刷新，不要每行都刷新
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try {
+			return readOnlyTransaction.execute(status -> {
+				long rows = 0;
+				try (Stream<TripBooking> trips = tripDao.streamAll(fetchSize)) {
+					Iterator<TripBooking> iterator = trips.iterator();
+					while (iterator.hasNext()) {
+						writer.writeValue(generator, iterator.next());
+						generator.writeRaw('\n');
+						if (++rows % clearEvery == 0) {
+							generator.flush();
+							entityManager.clear();
+						}
+					}
+					generator.flush();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return rows;
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package com.masai.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import com.masai.dto.response.PageResponse;
+import com.masai.dto.response.TripResponse;
+import com.masai.entity.Customer;
 import com.masai.entity.TripBooking;
 import com.masai.exception.InvalidId;
 
@@ -10,7 +14,13 @@ public interface TripService {
 
 	
 	public TripBooking AddTrip(TripBooking tb);
+	// 其它节点转发过来的预约，只在本节点派单，不再转发
+	public TripBooking AddOwnedTrip(TripBooking tb);
+	// 异步预约用，客户已由调用方校验过；批量派单模式下不等匹配结果就返回
+	public CompletableFuture<TripBooking> submitTrip(TripBooking tb, Customer customer);
 	public List<TripBooking> alltrip();
+	public PageResponse<TripBooking> tripPage(String after, Integer limit);
+	public PageResponse<TripResponse> tripSummaryPage(String after, Integer limit);
 	public TripBooking updateTrip(TripBooking tb,Integer id)throws InvalidId;
 	public String deletetrip(Integer id) throws InvalidId;
 	public TripBooking tripEnd(Integer id)throws InvalidId;
@@ -1,17 +1,37 @@
 package com.masai.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.dispatch.AvailableDriver;
+import com.masai.dispatch.BatchDispatcher;
+import com.masai.dispatch.CityShards;
+import com.masai.dispatch.DriverAvailabilityTracker;
+import com.masai.dispatch.ShardForwarder;
+import com.masai.dto.response.PageResponse;
+import com.masai.dto.response.TripResponse;
+import com.masai.entity.Customer;
 import com.masai.entity.Driver;
 import com.masai.entity.TripBooking;
 import com.masai.exception.DriverNotFoundException;
 import com.masai.exception.InvalidId;
+import com.masai.location.LocationResolver;
+import com.masai.location.ResolvedLocation;
+import com.masai.outbox.TripEventType;
+import com.masai.outbox.TripOutbox;
+import com.masai.paging.KeysetPaging;
+import com.masai.pricing.PricingEngine;
+import com.masai.readmodel.TripViewProjector;
 import com.masai.repository.CustomerDao;
 import com.masai.repository.DriverDao;
 import com.masai.repository.TripDao;
+import com.masai.routing.Route;
+import com.masai.routing.RoutingService;
 
 
 @Service
@@ -22,76 +42,188 @@ public class TripServiceImp implements TripService {
     CustomerDao cdao;
     @Autowired
     DriverDao ddao;
+    @Autowired
+    DriverAvailabilityTracker tracker;
+    @Autowired
+    BatchDispatcher batchDispatcher;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    PricingEngine pricing;
+    @Autowired
+    LocationResolver locations;
+    @Autowired
+    RoutingService routing;
+    @Autowired
+    KeysetPaging paging;
+    @Autowired
+    TripViewProjector tripViews;
+    @Autowired
+    TripOutbox outbox;
+    @Autowired
+    CityShards shards;
+    @Autowired
+    ShardForwarder forwarder;
 
 	@Override
 	public TripBooking AddTrip(TripBooking tb) throws InvalidId {
 
-		cdao.findById(tb.getCustomerId()).orElseThrow(() -> new InvalidId("Customer with ID "+tb.getCustomerId()+" does not exit.."));
-		List<Driver> drivers= ddao.findByAvailable() ;
-		if(drivers.size()==0)
-		{
-			throw new DriverNotFoundException("Sorry No driver Available just now...");
-		}
-//		drivers.forEach((e)->System.out.println(e.getUserId()));
-//		System.out.println(drivers.size());
-		drivers.get(0).setAvailable(false);
-		ddao.save(drivers.get(0));
-		 Integer km = tb.getKm();
-	     Integer price=drivers.get(0).getCab().getRatePerKm();
-	     tb.setTotalamount(km*price);
-		 tb.setDriver(drivers.get(0));
-		return trip.save(tb);
+		Customer customer = cdao.findById(tb.getCustomerId()).orElseThrow(() -> new InvalidId("Customer with ID "+tb.getCustomerId()+" does not exit.."));
+		resolveLocations(tb);
+		// 上车城市归其它节点负责时交给它派单，本节点的司机索引里没有这个城市的司机
+		if (!shards.owns(tb.getPickupCity()))
+			return forwarder.book(shards.ownerOf(tb.getPickupCity()), tb);
+		return dispatch(tb, customer.getUsername());
 	}
 
-
 	@Override
-	public List<TripBooking> alltrip() {
+	public TripBooking AddOwnedTrip(TripBooking tb) throws InvalidId {
 
-		return trip.findAll();
+		Customer customer = cdao.findById(tb.getCustomerId()).orElseThrow(() -> new InvalidId("Customer with ID "+tb.getCustomerId()+" does not exit.."));
+		resolveLocations(tb);
+		return dispatch(tb, customer.getUsername());
 	}
 
 	@Override
-	public TripBooking updateTrip(TripBooking tb,Integer id) throws InvalidId {
+	public CompletableFuture<TripBooking> submitTrip(TripBooking tb, Customer customer) {
+		resolveLocations(tb);
+		if (!shards.owns(tb.getPickupCity()))
+			return CompletableFuture.completedFuture(forwarder.book(shards.ownerOf(tb.getPickupCity()), tb));
+		routeTrip(tb);
+		// 批量模式下只把预约放进匹配窗口，调用线程不用陪着等一个窗口
+		if (batchDispatcher.isEnabled())
+			return batchDispatcher.submit(tb, customer.getUsername());
+		return CompletableFuture.completedFuture(transactionTemplate.execute(status -> bookNearestDriver(tb, customer.getUsername())));
+	}
 
+	private TripBooking dispatch(TripBooking tb, String customerName) {
+		routeTrip(tb);
+		if (batchDispatcher.isEnabled())
+			return batchDispatcher.dispatch(tb, customerName);
+		return transactionTemplate.execute(status -> bookNearestDriver(tb, customerName));
+	}
 
-		TripBooking c1=trip.getById(id);
+	// 客户端没有给坐标时按起终点名称从地名录解析
+	private void resolveLocations(TripBooking tb) {
+		ResolvedLocation from = locations.resolve(tb.getFrom_location());
+		if (from != null) {
+			if (tb.getPickupLatitude() == null || tb.getPickupLongitude() == null) {
+				tb.setPickupLatitude(from.getLatitude());
+				tb.setPickupLongitude(from.getLongitude());
+			}
+			if (tb.getPickupCity() == null)
+				tb.setPickupCity(from.getCity());
+		}
+		ResolvedLocation to = locations.resolve(tb.getTo_location());
+		if (to != null && (tb.getDropoffLatitude() == null || tb.getDropoffLongitude() == null)) {
+			tb.setDropoffLatitude(to.getLatitude());
+			tb.setDropoffLongitude(to.getLongitude());
+		}
+	}
 
-		c1.setCustomerId(tb.getCustomerId());
-		c1.setFrom_location(tb.getFrom_location());
-		c1.setTo_location(tb.getTo_location());
-		c1.setFromdate_time(tb.getFromdate_time());
-		c1.setTodate_time(tb.getTodate_time());
-		c1.setKm(tb.getKm());
+	// 起终点都有坐标时由服务端计算距离和预计用时，算不出来时沿用客户端传的km
+	private void routeTrip(TripBooking tb) {
+		if (tb.getPickupLatitude() == null || tb.getPickupLongitude() == null
+				|| tb.getDropoffLatitude() == null || tb.getDropoffLongitude() == null)
+			return;
+		Route route = routing.route(tb.getPickupLatitude(), tb.getPickupLongitude(), tb.getDropoffLatitude(),
+				tb.getDropoffLongitude());
+		if (route == null)
+			return;
+		tb.setKm((int) Math.round(route.getDistanceKm()));
+		tb.setEtaMinutes((int) Math.ceil(route.getDurationMinutes()));
+	}
 
-            trip.save(c1);
-		return c1;
+	private TripBooking bookNearestDriver(TripBooking tb, String customerName) {
+		AvailableDriver reserved = tracker.reserveNearest(tb.getPickupLatitude(), tb.getPickupLongitude(), tb.getCarType());
+		if (reserved == null)
+			throw new DriverNotFoundException("Sorry No driver Available just now...");
+		Driver driver = ddao.findById(reserved.getDriverId()).orElseThrow(() -> new DriverNotFoundException("No Driver found for id: "+reserved.getDriverId()));
+		 tb.setTotalamount(pricing.fare(reserved, tb.getKm(), tb.getPickupCity(), LocalDateTime.now()));
+		 tb.setDriver(driver);
+		TripBooking saved = trip.save(tb);
+		tripViews.booked(saved, customerName);
+		outbox.record(TripEventType.BOOKED, saved);
+		return saved;
 	}
 
+
 	@Override
-	public String deletetrip(Integer id) throws InvalidId {
-		TripBooking ct=trip.findById(id).orElseThrow(() -> new InvalidId("TripBooking with ID "+id+" does not exit.."));
+	public List<TripBooking> alltrip() {
 
-		ct.setDriver(null);
-		trip.delete(ct);
+		return trip.findAll();
+	}
 
-		return "delete...";
+	@Override
+	public PageResponse<TripBooking> tripPage(String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "trip", 1);
+		List<TripBooking> rows = cursor == null ? trip.findFirstPage(paging.probe(size))
+				: trip.findPageAfter(cursor.intAt(0), paging.probe(size));
+		return paging.page(rows, size, t -> KeysetPaging.encode("trip", t.getTripBookingId()));
 	}
 
+	@Override
+	public PageResponse<TripResponse> tripSummaryPage(String after, Integer limit) {
+		int size = paging.limit(limit);
+		KeysetPaging.Cursor cursor = KeysetPaging.decode(after, "trip", 1);
+		List<TripResponse> rows = trip.findResponsePageAfter(cursor == null ? 0 : cursor.intAt(0), paging.probe(size));
+		return paging.page(rows, size, t -> KeysetPaging.encode("trip", t.getTripBookingId()));
+	}
 
+	// 行程、trip_view 和发件箱在同一个事务里修改
 	@Override
-	public TripBooking tripEnd(Integer id) throws InvalidId {
+	public TripBooking updateTrip(TripBooking tb,Integer id) throws InvalidId {
+		return transactionTemplate.execute(status -> {
+			TripBooking c1=trip.findById(id).orElseThrow(() -> new InvalidId("TripBooking with ID "+id+" does not exit.."));
+
+			c1.setCustomerId(tb.getCustomerId());
+			c1.setFrom_location(tb.getFrom_location());
+			c1.setTo_location(tb.getTo_location());
+			c1.setFromdate_time(tb.getFromdate_time());
+			c1.setTodate_time(tb.getTodate_time());
+			c1.setKm(tb.getKm());
+
+			trip.save(c1);
+			tripViews.project(c1);
+			outbox.record(TripEventType.UPDATED, c1);
+			return c1;
+		});
+	}
 
-		TripBooking ct=trip.findById(id).orElseThrow(() -> new InvalidId("TripBooking with ID "+id+" does not exit.."));
+	@Override
+	public String deletetrip(Integer id) throws InvalidId {
+		return transactionTemplate.execute(status -> {
+			TripBooking ct=trip.findById(id).orElseThrow(() -> new InvalidId("TripBooking with ID "+id+" does not exit.."));
 
-		Integer driverid=ct.getDriver().getUserId();
-		Driver dt=ddao.findById(driverid).orElseThrow(() -> new InvalidId("Drive with ID "+driverid+" does not exit.."));
+			outbox.record(TripEventType.DELETED, ct);
+			ct.setDriver(null);
+			trip.delete(ct);
+			tripViews.removed(id);
 
-		dt.setAvailable(true);
-		ddao.save(dt);
-		ct.setPayment(true);
+			return "delete...";
+		});
+	}
 
 
-		return trip.save(ct);
+	@Override
+	public TripBooking tripEnd(Integer id) throws InvalidId {
+		return transactionTemplate.execute(status -> {
+			TripBooking ct=trip.findById(id).orElseThrow(() -> new InvalidId("TripBooking with ID "+id+" does not exit.."));
+
+			Integer driverid=ct.getDriver().getUserId();
+			Driver dt=ddao.findById(driverid).orElseThrow(() -> new InvalidId("Drive with ID "+driverid+" does not exit.."));
+
+			dt.setAvailable(true);
+			ddao.save(dt);
+			tracker.driverChanged(dt);
+			ct.setPayment(true);
+
+			TripBooking saved = trip.save(ct);
+			tripViews.project(saved);
+			outbox.record(TripEventType.ENDED, saved);
+			return saved;
+		});
 	}
 
 }
@@ -1,6 +1,7 @@
 package com.masai.service;
 
 import com.masai.dto.request.LoginRequest;
+import com.masai.dto.response.SessionResponse;
 import com.masai.entity.CustomerDTO;
 
 public interface UserLogIn {
@@ -27,4 +28,11 @@ public interface UserLogIn {
      * @return 登出结果信息
      */
     public String logOutFromAccount(String key);
-}
\ No newline at end of file
+
+    /**
+     * 校验会话密钥，只查内存，不访问数据库
+     * @param key 会话密钥
+     * @return 会话对应的用户
+     */
+    public SessionResponse currentSession(String key);
+}
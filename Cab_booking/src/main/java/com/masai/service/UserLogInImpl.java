@@ -1,13 +1,18 @@
 // com.masai.service.UserLogInImpl.java - 修改后完整版本
 package com.masai.service;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.masai.auth.SessionStore;
+import com.masai.auth.SessionTokens;
+import com.masai.auth.UserSession;
+import com.masai.auth.UserType;
+import com.masai.auth.UserTypeDirectory;
 import com.masai.dto.request.LoginRequest;
+import com.masai.dto.response.SessionResponse;
 import com.masai.entity.CurrentUserSession;
 import com.masai.entity.Customer;
 import com.masai.entity.CustomerDTO;
@@ -18,9 +23,6 @@ import com.masai.exception.NotFoundException;
 import com.masai.exception.UserAlreadyExistWithuserId;
 import com.masai.repository.CustomerDao;
 import com.masai.repository.DriverDao;
-import com.masai.repository.SessionDao;
-
-import net.bytebuddy.utility.RandomString;
 
 @Service
 public class UserLogInImpl implements UserLogIn {
@@ -32,7 +34,13 @@ public class UserLogInImpl implements UserLogIn {
     private DriverDao driverDao;
 
     @Autowired
-    private SessionDao sessionDao;
+    private SessionStore sessionStore;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Autowired
+    private UserTypeDirectory userTypes;
 
     @Override
     public String logIntoAccount(CustomerDTO userDto) {
@@ -51,64 +59,73 @@ public class UserLogInImpl implements UserLogIn {
      * 统一的登录逻辑处理 - 支持Customer和Driver
      */
     private String loginWithUserIdAndPassword(Integer userId, String password) {
-        // 首先检查Customer表
-        Optional<Customer> opt_customer = customerDao.findById(userId);
-
-        if (opt_customer.isPresent()) {
-            Customer customer = opt_customer.get();
-            return processLogin(customer.getUserId(), customer.getPassword(), password, "customer");
+        // 目录里知道类型时只查对应的表；不知道时（比如其它节点新增的用户）依次检查Customer表和Driver表
+        UserType known = userTypes.typeOf(userId);
+
+        if (known != UserType.DRIVER) {
+            Optional<Customer> opt_customer = customerDao.findById(userId);
+            if (opt_customer.isPresent()) {
+                Customer customer = opt_customer.get();
+                userTypes.put(userId, UserType.CUSTOMER);
+                return processLogin(customer.getUserId(), customer.getPassword(), password, UserType.CUSTOMER);
+            }
         }
 
-        // 如果Customer不存在，检查Driver表
-        Optional<Driver> opt_driver = driverDao.findById(userId);
-
-        if (opt_driver.isPresent()) {
-            Driver driver = opt_driver.get();
-            return processLogin(driver.getUserId(), driver.getPassword(), password, "driver");
+        if (known != UserType.CUSTOMER) {
+            Optional<Driver> opt_driver = driverDao.findById(userId);
+            if (opt_driver.isPresent()) {
+                Driver driver = opt_driver.get();
+                userTypes.put(userId, UserType.DRIVER);
+                return processLogin(driver.getUserId(), driver.getPassword(), password, UserType.DRIVER);
+            }
         }
 
-        // 如果都不存在，抛出异常
+        // 如果都不存在，抛出异常；用户id共用一个序列，目录里记的类型不会变，查不到说明已被删除
+        userTypes.remove(userId);
         throw new AdminExceptions("用户不存在");
     }
 
     /**
      * 处理登录逻辑的通用方法
      */
-    private String processLogin(Integer userId, String storedPassword, String inputPassword, String userType) {
-        // 检查是否已经登录
-        Optional<CurrentUserSession> currentUserOptional = sessionDao.findById(userId);
-        if (currentUserOptional.isPresent()) {
-            throw new UserAlreadyExistWithuserId("该用户已登录");
+    private String processLogin(Integer userId, String storedPassword, String inputPassword, UserType userType) {
+        // 验证密码
+        if (!storedPassword.equals(inputPassword)) {
+            throw new InvalidPasswordException("密码错误");
         }
 
-        // 验证密码
-        if (storedPassword.equals(inputPassword)) {
-            String key = RandomString.make(6);
-            CurrentUserSession currentUserSession = new CurrentUserSession(
-                    userId,
-                    key,
-                    LocalDateTime.now()
-            );
-            sessionDao.save(currentUserSession);
-
-            // 在返回信息中包含用户类型
-            return currentUserSession.toString() + ", userType=" + userType;
+        UserSession session;
+        if (sessionTokens.isEnabled()) {
+            // 无状态模式签发签名令牌，不写会话表，允许多处同时登录
+            session = sessionTokens.issue(userId, userType);
         } else {
-            throw new InvalidPasswordException("密码错误");
+            // 会话在内存中创建，异步写入数据库
+            session = sessionStore.open(userId, userType.label());
+            if (session == null) {
+                throw new UserAlreadyExistWithuserId("该用户已登录");
+            }
         }
+        CurrentUserSession currentUserSession = new CurrentUserSession(userId, session.getToken(), session.getCreatedAt());
+
+        // 在返回信息中包含用户类型
+        return currentUserSession.toString() + ", userType=" + userType.label();
     }
 
     @Override
     public String logOutFromAccount(String key) {
-        Optional<CurrentUserSession> currentUserOptional = sessionDao.findByUuid(key);
-
-        if (!currentUserOptional.isPresent()) {
+        boolean closed = sessionTokens.isEnabled() ? sessionTokens.revoke(key) : sessionStore.close(key);
+        if (!closed) {
             throw new NotFoundException("用户未登录");
         }
-
-        CurrentUserSession currentUserSession = currentUserOptional.get();
-        sessionDao.delete(currentUserSession);
-
         return "登出成功";
     }
+
+    @Override
+    public SessionResponse currentSession(String key) {
+        UserSession session = sessionTokens.isEnabled() ? sessionTokens.verify(key) : sessionStore.authenticate(key);
+        if (session == null) {
+            throw new NotFoundException("用户未登录");
+        }
+        return new SessionResponse(session.getUserId(), session.getUserType(), session.getCreatedAt());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.masai;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.masai.entity.Address;
+import com.masai.entity.Cab;
+import com.masai.entity.Customer;
+import com.masai.entity.Driver;
+import com.masai.entity.TripBooking;
+
+/**
+ * h2 profile 下的测试共用一个应用上下文和数据库，这里造的数据邮箱、驾照号各不相同，测试之间互不冲突
+ */
+public final class TestData {
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    private TestData() {
+    }
+
+    public static Driver driver(String carType, String city, Double latitude, Double longitude) {
+        int n = SEQ.incrementAndGet();
+        Address address = new Address();
+        address.setCity(city);
+        address.setState("MH");
+        address.setPincode("411001");
+        Cab cab = new Cab();
+        cab.setCarType(carType);
+        cab.setRatePerKm(10);
+        Driver driver = new Driver();
+        driver.setUsername("driver" + n);
+        driver.setPassword("Secret1");
+        driver.setMobile("13800000000");
+        driver.setEmail("driver" + n + "@test.com");
+        driver.setLicenseNo(String.format("TD%010d", n));
+        driver.setRating(4.5);
+        driver.setAvailable(true);
+        driver.setLatitude(latitude);
+        driver.setLongitude(longitude);
+        driver.setAddress(address);
+        driver.setCab(cab);
+        return driver;
+    }
+
+    public static Customer customer() {
+        int n = SEQ.incrementAndGet();
+        Customer customer = new Customer();
+        customer.setUsername("rider" + n);
+        customer.setPassword("Secret1");
+        customer.setMobile("13900000000");
+        customer.setEmail("rider" + n + "@test.com");
+        customer.setJourney_status(false);
+        return customer;
+    }
+
+    public static TripBooking trip(Integer customerId, String carType, Double latitude, Double longitude) {
+        TripBooking trip = new TripBooking();
+        trip.setCustomerId(customerId);
+        trip.setFrom_location("from");
+        trip.setTo_location("to");
+        trip.setFromdate_time(LocalDate.now().plusDays(1));
+        trip.setTodate_time(LocalDate.now().plusDays(1));
+        trip.setCarType(carType);
+        trip.setPickupLatitude(latitude);
+        trip.setPickupLongitude(longitude);
+        trip.setKm(5);
+        return trip;
+    }
+}
@@ -0,0 +1,124 @@
+package com.masai.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.TestData;
+import com.masai.entity.TripBooking;
+import com.masai.repository.DriverDao;
+import com.masai.repository.TripDao;
+import com.masai.service.CustomerService;
+import com.masai.service.DriverService;
+
+/**
+ * 归档之后客户历史仍然完整：在线表和归档表合并，顺序和翻页与归档前一致，归档的行带回司机
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class TripArchiverTest {
+
+    @Autowired
+    private TripArchiver archiver;
+
+    @Autowired
+    private TripDao tripDao;
+
+    @Autowired
+    private DriverDao driverDao;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer customerId;
+
+    private Integer driverId;
+
+    @BeforeEach
+    public void setUp() {
+        customerId = customerService.saveCustomer(TestData.customer()).getUserId();
+        driverId = driverService.insertDriver(TestData.driver("Archive", "pune", 18.52, 73.85)).getUserId();
+    }
+
+    // 预约时日期不能早于今天，先按明天插入再把日期改到过去
+    private Integer trip(int daysAgo, boolean paid) {
+        Integer id = transactionTemplate.execute(status -> {
+            TripBooking trip = TestData.trip(customerId, "Archive", 18.52, 73.85);
+            trip.setDriver(driverDao.findById(driverId).get());
+            return tripDao.save(trip).getTripBookingId();
+        });
+        LocalDate date = LocalDate.now().minusDays(daysAgo);
+        jdbcTemplate.update("update trip_booking set fromdate_time = ?, todate_time = ?, payment = ? where trip_booking_id = ?",
+                date, date, paid, id);
+        return id;
+    }
+
+    private int rows(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where customer_id = ?", Integer.class, customerId);
+    }
+
+    private List<TripBooking> history(LocalDate afterDate, Integer afterId, int limit) {
+        return tripDao.findCustomerHistory(customerId, LocalDate.now().minusYears(1), LocalDate.now(), afterDate, afterId, limit);
+    }
+
+    private static List<Integer> ids(List<TripBooking> trips) {
+        List<Integer> ids = new ArrayList<>();
+        for (TripBooking trip : trips)
+            ids.add(trip.getTripBookingId());
+        return ids;
+    }
+
+    @Test
+    public void testHistoryMergesArchivedTrips() {
+        Integer oldest = trip(30, true);
+        Integer sameDayA = trip(10, true);
+        Integer sameDayB = trip(10, false);
+        Integer recent = trip(5, true);
+        Integer unpaid = trip(2, false);
+        List<Integer> expected = Arrays.asList(unpaid, recent, sameDayB, sameDayA, oldest);
+        assertEquals(expected, ids(history(null, null, 10)));
+
+        // 其它测试的行程日期都在今天以后，不会被这次归档带走
+        assertEquals(3, archiver.archiveBefore(LocalDate.now()));
+        assertEquals(2, rows("trip_booking"), "没付款的留在在线表");
+        assertEquals(3, rows("archived_trip"));
+
+        List<TripBooking> history = history(null, null, 10);
+        assertEquals(expected, ids(history), "归档前后顺序一致");
+        for (TripBooking trip : history) {
+            assertNotNull(trip.getDriver(), "归档的行程按司机id取回司机");
+            assertEquals(driverId, trip.getDriver().getUserId());
+        }
+
+        // 每页2行，翻页跨过两张表，同一天的两行一行在线一行归档
+        List<Integer> paged = new ArrayList<>();
+        List<TripBooking> page = history(null, null, 2);
+        while (!page.isEmpty()) {
+            paged.addAll(ids(page));
+            TripBooking last = page.get(page.size() - 1);
+            page = history(last.getFromdate_time(), last.getTripBookingId(), 2);
+        }
+        assertEquals(expected, paged, "翻页不重不漏");
+    }
+}
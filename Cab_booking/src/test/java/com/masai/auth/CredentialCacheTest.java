@@ -0,0 +1,42 @@
+package com.masai.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CredentialCacheTest {
+
+    private CredentialCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new CredentialCache();
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+    }
+
+    @Test
+    public void testMatchingPasswordReturnsUserId() {
+        cache.put("a@x.com", "Secret1", 7);
+
+        assertEquals(7, cache.verify("a@x.com", "Secret1"));
+        assertNull(cache.verify("a@x.com", "Secret2"), "密码不一致不能命中");
+        assertNull(cache.verify("b@x.com", "Secret1"));
+
+        cache.invalidate("a@x.com");
+        assertNull(cache.verify("a@x.com", "Secret1"));
+    }
+
+    @Test
+    public void testFullCacheSkipsNewEmails() {
+        cache.put("a@x.com", "Secret1", 1);
+        cache.put("b@x.com", "Secret1", 2);
+        cache.put("c@x.com", "Secret1", 3);
+
+        assertNull(cache.verify("c@x.com", "Secret1"), "满了以后不再缓存新邮箱");
+        assertEquals(1, cache.verify("a@x.com", "Secret1"));
+    }
+}
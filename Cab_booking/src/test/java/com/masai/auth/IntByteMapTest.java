@@ -0,0 +1,50 @@
+package com.masai.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntByteMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        IntByteMap map = new IntByteMap(4);
+        assertEquals(0, map.put(1, (byte) 1));
+        assertEquals(0, map.put(2, (byte) 2));
+        assertEquals(1, map.put(1, (byte) 2), "覆盖时返回旧值");
+
+        assertEquals(2, map.get(1));
+        assertEquals(0, map.get(3), "不存在的键返回0");
+        assertEquals(2, map.remove(2));
+        assertEquals(0, map.remove(2));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testGrowsAndSurvivesRemovalsAgainstHashMap() {
+        IntByteMap map = new IntByteMap(8);
+        Map<Integer, Byte> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                Byte removed = expected.remove(key);
+                assertEquals(removed == null ? 0 : removed, map.remove(key));
+            } else {
+                byte value = (byte) (1 + random.nextInt(2));
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 5000; key++) {
+            Byte value = expected.get(key);
+            assertEquals(value == null ? 0 : value, map.get(key), "删除后移补位之后查找链不能断，key=" + key);
+        }
+    }
+}
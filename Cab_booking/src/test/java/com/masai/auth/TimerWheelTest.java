@@ -0,0 +1,55 @@
+package com.masai.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testExpiresOnlyAfterDeadline() {
+        TimerWheel<String> wheel = new TimerWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 520);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(Arrays.asList("a"), wheel.advance(300));
+        assertTrue(wheel.advance(500).isEmpty());
+        assertEquals(Arrays.asList("b"), wheel.advance(600));
+    }
+
+    @Test
+    public void testDeadlineBeyondOneRoundWaitsForLaterRound() {
+        TimerWheel<String> wheel = new TimerWheel<>(100, 4, 0);
+        // 一圈只有400毫秒，1050要转到第三圈
+        wheel.schedule("far", 1050);
+
+        assertTrue(wheel.advance(400).isEmpty());
+        assertTrue(wheel.advance(800).isEmpty());
+        assertEquals(Arrays.asList("far"), wheel.advance(1100));
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextTick() {
+        TimerWheel<String> wheel = new TimerWheel<>(100, 8, 1000);
+        wheel.schedule("late", 500);
+
+        assertEquals(Arrays.asList("late"), wheel.advance(1100));
+    }
+
+    @Test
+    public void testLongPauseScansEachSlotOnce() {
+        TimerWheel<String> wheel = new TimerWheel<>(100, 4, 0);
+        wheel.schedule("a", 100);
+        wheel.schedule("b", 300);
+        wheel.schedule("c", 5000);
+
+        List<String> expired = wheel.advance(4000);
+        assertEquals(2, expired.size(), "停顿好几圈之后，到期的都要一次返回，没到期的留着");
+        assertEquals(Arrays.asList("c"), wheel.advance(5000));
+    }
+}
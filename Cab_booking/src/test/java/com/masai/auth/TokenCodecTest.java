@@ -0,0 +1,43 @@
+package com.masai.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenCodecTest {
+
+    private final TokenCodec codec = new TokenCodec("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    public void testRoundTrip() {
+        TokenCodec.Claims claims = new TokenCodec.Claims(42, UserType.DRIVER, 1_700_000_000L, 1_700_007_200L, -5L);
+        String token = codec.encode(claims);
+
+        assertEquals(claims, codec.decode(token));
+        assertEquals(claims, new TokenCodec("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8)).decode(token),
+                "相同密钥的另一个节点也能校验");
+    }
+
+    @Test
+    public void testRejectsTamperedOrForeignToken() {
+        String token = codec.encode(new TokenCodec.Claims(42, UserType.CUSTOMER, 1L, 2L, 3L));
+        String forged = codec.encode(new TokenCodec.Claims(43, UserType.CUSTOMER, 1L, 2L, 3L));
+        // 换成别人的载荷，签名对不上
+        String swapped = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertNull(codec.decode(swapped));
+        assertNull(new TokenCodec("another-secret-of-enough-bytes".getBytes(StandardCharsets.UTF_8)).decode(token));
+        assertNull(codec.decode("abc"));
+        assertNull(codec.decode("%%%.%%%"));
+        assertNull(codec.decode(null));
+    }
+
+    @Test
+    public void testRejectsShortSecret() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenCodec(new byte[8]));
+    }
+}
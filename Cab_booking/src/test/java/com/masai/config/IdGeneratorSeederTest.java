@@ -0,0 +1,90 @@
+package com.masai.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.masai.TestData;
+import com.masai.entity.Address;
+import com.masai.entity.Cab;
+import com.masai.repository.AddressDao;
+import com.masai.repository.CabDao;
+import com.masai.repository.TripDao;
+
+/**
+ * 用MySQL方言跑在H2上，序列和生产环境一样是单行表：
+ * 已有数据的最大id之后才开始分配，段大小按序列名的配置生效
+ * 单独的上下文，测试开始前没有任何实体用过主键生成器
+ */
+@SpringBootTest(properties = { "spring.jpa.database-platform=org.hibernate.dialect.MySQL8Dialect",
+        "spring.jpa.properties.id.block-size.cab_seq=7" })
+@ActiveProfiles("h2")
+public class IdGeneratorSeederTest {
+
+    @Autowired
+    private IdGeneratorSeeder seeder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CabDao cabDao;
+
+    @Autowired
+    private AddressDao addressDao;
+
+    @Autowired
+    private TripDao tripDao;
+
+    private long nextVal(String sequence) {
+        return jdbcTemplate.queryForObject("select next_val from " + sequence, Long.class);
+    }
+
+    @Test
+    public void testSeedsPastExistingRowsAndHonoursBlockSize() {
+        // 模拟迁移前用 hibernate_sequence 写进去的旧数据，序列表还停在1
+        jdbcTemplate.update("insert into address (id, city) values (400, 'pune')");
+        jdbcTemplate.update("insert into abstractuser (user_id, username, password, email) values (500, 'old', 'secret1', 'old@test.com')");
+        jdbcTemplate.update("insert into cab (cab_id, car_type, rate_per_km) values (600, 'Sedan', 10)");
+        jdbcTemplate.update("insert into current_user_session (id, user_id) values (700, 500)");
+        jdbcTemplate.update("insert into trip_booking (trip_booking_id, customer_id, from_location, to_location, fromdate_time, todate_time) values (800, 500, 'a', 'b', ?, ?)",
+                LocalDate.now(), LocalDate.now());
+        jdbcTemplate.update("insert into trip_event (id, attempts, failed, occurred_at) values (900, 0, false, ?)", LocalDateTime.now());
+        assertEquals(1, nextVal("cab_seq"));
+
+        seeder.seed();
+
+        assertEquals(401, nextVal("address_seq"));
+        assertEquals(501, nextVal("user_seq"));
+        assertEquals(601, nextVal("cab_seq"));
+        assertEquals(701, nextVal("session_seq"));
+        assertEquals(801, nextVal("trip_booking_seq"));
+        assertEquals(901, nextVal("trip_event_seq"));
+
+        // 新插入从最大id之后开始，每次取一整段：cab_seq 用测试里的覆盖值，trip_booking_seq 用主配置的100，address_seq 用默认的50
+        Cab cab = new Cab();
+        cab.setCarType("Sedan");
+        cab.setRatePerKm(10);
+        assertEquals(601, cabDao.save(cab).getCabId());
+        assertEquals(608, nextVal("cab_seq"));
+
+        assertEquals(801, tripDao.save(TestData.trip(500, "Sedan", 18.52, 73.85)).getTripBookingId());
+        assertEquals(901, nextVal("trip_booking_seq"));
+
+        Address address = new Address();
+        address.setCity("pune");
+        assertEquals(401, addressDao.save(address).getId());
+        assertEquals(451, nextVal("address_seq"));
+
+        // 已经在最大id之后的序列不会被拉回
+        seeder.seed();
+        assertEquals(608, nextVal("cab_seq"));
+    }
+}
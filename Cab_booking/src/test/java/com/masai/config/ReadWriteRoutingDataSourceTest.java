@@ -0,0 +1,126 @@
+package com.masai.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 用两个内存H2库分别充当主库和副本，各自的 node 表里写着自己的名字
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+
+    private DataSource replica;
+
+    @BeforeEach
+    public void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @Test
+    public void testReadOnlyTransactionGoesToReplica() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "", 30);
+        monitor.check();
+        JdbcTemplate jdbc = new JdbcTemplate(routed(monitor));
+
+        assertEquals("replica", inTransaction(monitor, true, jdbc));
+        assertEquals("primary", inTransaction(monitor, false, jdbc));
+        assertEquals("primary", node(jdbc), "不在事务里的访问走主库");
+    }
+
+    @Test
+    public void testLaggingReplicaFallsBackToPrimary() {
+        ReplicaLagMonitor lagging = new ReplicaLagMonitor(replica, "select 45", 30);
+        lagging.check();
+        assertFalse(lagging.isUsable());
+        assertEquals(45L, lagging.getLagSeconds());
+        assertEquals("primary", inTransaction(lagging, true, new JdbcTemplate(routed(lagging))));
+
+        ReplicaLagMonitor caughtUp = new ReplicaLagMonitor(replica, "select 3", 30);
+        caughtUp.check();
+        assertTrue(caughtUp.isUsable());
+        assertEquals("replica", inTransaction(caughtUp, true, new JdbcTemplate(routed(caughtUp))));
+    }
+
+    @Test
+    public void testUnreachableReplicaFallsBackToPrimary() {
+        JdbcDataSource broken = new JdbcDataSource();
+        broken.setURL("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(broken, "", 30);
+        monitor.check();
+
+        assertFalse(monitor.isUsable());
+        assertEquals("primary", inTransaction(monitor, true, new JdbcTemplate(routed(monitor))));
+    }
+
+    @Test
+    public void testNoReplicaConfigured() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(null, null, 0);
+        monitor.check();
+
+        assertFalse(monitor.isEnabled());
+        assertEquals("primary", inTransaction(monitor, true, new JdbcTemplate(routed(monitor))));
+    }
+
+    @Test
+    public void testPrimaryPoolBindsHikariProperties() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(DataSourceConfig.class, ReplicaProperties.class, DataSourcePropertiesConfig.class)
+                .withBean(EntityManagerFactory.class, () -> mock(EntityManagerFactory.class))
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:hikari-" + System.nanoTime(),
+                        "spring.datasource.hikari.maximum-pool-size=3",
+                        "spring.datasource.hikari.connection-timeout=1234")
+                .run(context -> {
+                    HikariDataSource pool = context.getBean("primaryDataSource", HikariDataSource.class);
+                    assertEquals(3, pool.getMaximumPoolSize());
+                    assertEquals(1234, pool.getConnectionTimeout());
+                    assertEquals("primary", pool.getPoolName());
+                });
+    }
+
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+
+    private DataSource routed(ReplicaLagMonitor monitor) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, monitor.getReplica(), monitor));
+    }
+
+    private String inTransaction(ReplicaLagMonitor monitor, boolean readOnly, JdbcTemplate jdbc) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+        template.setReadOnly(readOnly);
+        return template.execute(status -> node(jdbc));
+    }
+
+    private static String node(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("select name from node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node(name varchar(16))");
+        jdbc.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,144 @@
+package com.masai.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.masai.TestData;
+import com.masai.entity.TripBooking;
+import com.masai.exception.AdminExceptions;
+import com.masai.repository.TripDao;
+import com.masai.service.AdminService;
+import com.masai.service.CustomerService;
+
+/**
+ * 客户行程历史接口：只返回该客户的行程，按出发日期从新到旧、同一天按id从大到小，游标翻页不重不漏
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class AdminControllerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private TripDao tripDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mvc;
+
+    private Integer customerId;
+
+    // 按接口应返回的顺序排列
+    private final List<Integer> expected = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+        customerId = customerService.saveCustomer(TestData.customer()).getUserId();
+        Integer otherId = customerService.saveCustomer(TestData.customer()).getUserId();
+
+        // 第3天有两个行程，验证同一天按id排序；另一个客户的行程穿插在中间
+        Integer day1 = trip(customerId, 1);
+        trip(otherId, 2);
+        Integer day3a = trip(customerId, 3);
+        Integer day3b = trip(customerId, 3);
+        trip(otherId, 3);
+        Integer day4 = trip(customerId, 4);
+        Integer day5 = trip(customerId, 5);
+        expected.addAll(Arrays.asList(day5, day4, day3b, day3a, day1));
+    }
+
+    private Integer trip(Integer customer, int daysAhead) {
+        TripBooking trip = TestData.trip(customer, null, null, null);
+        trip.setFromdate_time(LocalDate.now().plusDays(daysAhead));
+        trip.setTodate_time(LocalDate.now().plusDays(daysAhead));
+        return tripDao.save(trip).getTripBookingId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> page(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, Map.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> ids(Map<String, Object> page) {
+        List<Integer> ids = new ArrayList<>();
+        for (Map<String, Object> trip : (List<Map<String, Object>>) page.get("items"))
+            ids.add((Integer) trip.get("tripBookingId"));
+        return ids;
+    }
+
+    @Test
+    public void testHistoryPagesNewestFirstWithinCustomer() throws Exception {
+        List<Integer> seen = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String after = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/admin/customers/{id}/trips", customerId).param("limit", "2");
+            if (after != null)
+                request.param("after", after);
+            Map<String, Object> page = page(request);
+            sizes.add(ids(page).size());
+            seen.addAll(ids(page));
+            after = (String) page.get("nextCursor");
+        } while (after != null);
+
+        assertEquals(expected, seen, "只有这个客户的行程，顺序正确，翻页不重不漏");
+        assertEquals(Arrays.asList(2, 2, 1), sizes);
+    }
+
+    @Test
+    public void testHistoryDateRange() throws Exception {
+        Map<String, Object> page = page(get("/admin/customers/{id}/trips", customerId)
+                .param("from", LocalDate.now().plusDays(3).toString())
+                .param("to", LocalDate.now().plusDays(4).toString()));
+
+        assertEquals(expected.subList(1, 4), ids(page), "日期范围两端都包含");
+        assertNull(page.get("nextCursor"));
+    }
+
+    @Test
+    public void testHistoryRejectsForeignCursor() throws Exception {
+        Map<String, Object> first = page(get("/trips").param("after", "").param("limit", "1"));
+        String tripCursor = (String) first.get("nextCursor");
+        assertNotNull(tripCursor);
+
+        // 别的列表的游标不能拿来翻历史
+        mvc.perform(get("/admin/customers/{id}/trips", customerId).param("after", tripCursor)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testHistoryOfUnknownCustomer() {
+        assertThrows(AdminExceptions.class, () -> adminService.getCustomerTripHistory(Integer.MAX_VALUE, null, null, null, 10));
+    }
+}
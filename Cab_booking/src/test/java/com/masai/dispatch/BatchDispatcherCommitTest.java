@@ -0,0 +1,72 @@
+package com.masai.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.masai.TestData;
+import com.masai.entity.TripBooking;
+import com.masai.service.DriverService;
+
+/**
+ * 批量派单模式下由定时窗口真实提交事务，验证等待方拿到结果时行程和占用都已对其它连接可见
+ */
+@SpringBootTest(properties = { "dispatch.mode=batch", "dispatch.batch.window-ms=100" })
+@ActiveProfiles("h2")
+public class BatchDispatcherCommitTest {
+
+    @Autowired
+    private BatchDispatcher dispatcher;
+
+    @Autowired
+    private DriverAvailabilityTracker tracker;
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testResultIsVisibleWhenFutureCompletes() throws Exception {
+        Integer driverId = driverService.insertDriver(TestData.driver("BatchCommit", "pune", 18.52, 73.85)).getUserId();
+
+        // 回调在完成future的线程里执行，用另一个连接读，事务没提交的话读不到
+        CompletableFuture<Object[]> seen = dispatcher.submit(TestData.trip(1, "BatchCommit", 18.52, 73.85), "rider")
+                .thenApply(trip -> new Object[] { trip.getDriver().getUserId(),
+                        jdbcTemplate.queryForObject("select count(*) from trip_booking where trip_booking_id = ?", Integer.class, trip.getTripBookingId()),
+                        jdbcTemplate.queryForObject("select available from driver where driver_id = ?", Boolean.class, driverId) });
+
+        Object[] result = seen.get(10, TimeUnit.SECONDS);
+        assertEquals(driverId, result[0]);
+        assertEquals(1, result[1], "行程已提交");
+        assertEquals(Boolean.FALSE, result[2], "占用已提交");
+    }
+
+    @Test
+    public void testRolledBackWindowReturnsDriver() throws Exception {
+        Integer driverId = driverService.insertDriver(TestData.driver("BatchRollback", "pune", 18.52, 73.85)).getUserId();
+        TripBooking invalid = TestData.trip(1, "BatchRollback", 18.52, 73.85);
+        // 插入时校验失败，整个窗口的事务回滚
+        invalid.setTo_location(null);
+
+        CompletableFuture<TripBooking> result = dispatcher.submit(invalid, "rider");
+
+        assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertTrue(jdbcTemplate.queryForObject("select available from driver where driver_id = ?", Boolean.class, driverId));
+        List<AvailableDriver> nearest = tracker.nearestAvailable(18.52, 73.85, "BatchRollback", 1);
+        assertEquals(1, nearest.size(), "回滚后司机回到索引");
+        assertEquals(driverId, nearest.get(0).getDriverId());
+    }
+}
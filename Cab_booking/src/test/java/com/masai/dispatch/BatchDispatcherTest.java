@@ -0,0 +1,260 @@
+package com.masai.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.entity.Driver;
+import com.masai.entity.TripBooking;
+import com.masai.exception.DriverNotFoundException;
+import com.masai.outbox.TripOutbox;
+import com.masai.pricing.PricingEngine;
+import com.masai.readmodel.TripViewProjector;
+import com.masai.repository.DriverDao;
+import com.masai.repository.TripDao;
+
+/**
+ * 只验证窗口内的匹配和重试逻辑，索引、数据库都用mock，事务用记录提交的假事务管理器
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class BatchDispatcherTest {
+
+    @Mock
+    private DriverAvailabilityTracker tracker;
+
+    @Mock
+    private DriverDao driverDao;
+
+    @Mock
+    private TripDao tripDao;
+
+    @Mock
+    private PricingEngine pricing;
+
+    @Mock
+    private TripViewProjector tripViews;
+
+    @Mock
+    private TripOutbox outbox;
+
+    @InjectMocks
+    private BatchDispatcher dispatcher;
+
+    private final RecordingTransactionManager transactions = new RecordingTransactionManager();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "transactionTemplate", new TransactionTemplate(transactions));
+        ReflectionTestUtils.setField(dispatcher, "mode", "batch");
+        ReflectionTestUtils.setField(dispatcher, "maxBatchSize", 200);
+        ReflectionTestUtils.setField(dispatcher, "candidatesPerBooking", 5);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+
+        when(tracker.availableCount()).thenReturn(1);
+        when(tracker.nearestAvailable(any(), any(), any(), anyInt())).thenReturn(Collections.emptyList());
+        // 内存和数据库都占用成功
+        when(tracker.reserveAll(anyCollection())).thenAnswer(invocation -> {
+            Map<Integer, AvailableDriver> reserved = new HashMap<>();
+            for (Integer id : invocation.<Collection<Integer>>getArgument(0))
+                reserved.put(id, driver(id, 0, 0));
+            return reserved;
+        });
+        when(driverDao.findAllById(any())).thenAnswer(invocation -> {
+            List<Driver> drivers = new ArrayList<>();
+            for (Integer id : invocation.<Iterable<Integer>>getArgument(0)) {
+                Driver driver = new Driver();
+                driver.setUserId(id);
+                drivers.add(driver);
+            }
+            return drivers;
+        });
+        when(pricing.fare(any(), anyInt(), any(), any())).thenReturn(100);
+    }
+
+    private static AvailableDriver driver(Integer id, double latitude, double longitude) {
+        return new AvailableDriver(id, latitude, longitude, "Sedan", 4.5, 10, null);
+    }
+
+    private static TripBooking booking(double latitude, double longitude) {
+        TripBooking booking = new TripBooking();
+        booking.setCustomerId(1);
+        booking.setPickupLatitude(latitude);
+        booking.setPickupLongitude(longitude);
+        booking.setKm(5);
+        return booking;
+    }
+
+    private void candidates(TripBooking booking, AvailableDriver... drivers) {
+        when(tracker.nearestAvailable(eq(booking.getPickupLatitude()), eq(booking.getPickupLongitude()), isNull(), anyInt()))
+                .thenReturn(Arrays.asList(drivers));
+    }
+
+    private static Integer assigned(CompletableFuture<TripBooking> result) throws Exception {
+        assertTrue(result.isDone());
+        return result.get().getDriver().getUserId();
+    }
+
+    @Test
+    public void testContestedDriverGoesToClosestBooking() throws Exception {
+        // 7号司机离两个预约都最近，但离后提交的那个更近；先提交的那个退而求其次拿到8号
+        TripBooking first = booking(18.50, 73.80);
+        TripBooking second = booking(18.52, 73.85);
+        AvailableDriver contested = driver(7, 18.521, 73.851);
+        AvailableDriver fallback = driver(8, 18.45, 73.75);
+        candidates(first, contested, fallback);
+        candidates(second, contested);
+
+        CompletableFuture<TripBooking> firstResult = dispatcher.submit(first, "a");
+        CompletableFuture<TripBooking> secondResult = dispatcher.submit(second, "b");
+        dispatcher.flush();
+
+        assertEquals(8, assigned(firstResult));
+        assertEquals(7, assigned(secondResult));
+        assertEquals(100, firstResult.get().getTotalamount());
+        verify(tracker).reserveAll(eq(new LinkedHashSet<>(Arrays.asList(7, 8))));
+        verify(tripDao).saveAll(anyList());
+        verify(tripViews).booked(first, "a");
+        verify(tripViews).booked(second, "b");
+    }
+
+    @Test
+    public void testDriverLostToAnotherNodeIsRetriedNextWindow() throws Exception {
+        TripBooking booking = booking(18.52, 73.85);
+        candidates(booking, driver(7, 18.52, 73.85));
+        // 第一个窗口里数据库占用失败，第二个窗口成功
+        when(tracker.reserveAll(anyCollection())).thenReturn(Collections.emptyMap())
+                .thenAnswer(invocation -> Collections.singletonMap(7, driver(7, 18.52, 73.85)));
+
+        CompletableFuture<TripBooking> result = dispatcher.submit(booking, "a");
+        dispatcher.flush();
+        assertFalse(result.isDone(), "没占到司机的预约回到队列等下一个窗口");
+
+        dispatcher.flush();
+        assertEquals(7, assigned(result));
+    }
+
+    @Test
+    public void testRetriesStopAtMaxAttempts() {
+        CompletableFuture<TripBooking> result = dispatcher.submit(booking(18.52, 73.85), "a");
+
+        dispatcher.flush();
+        dispatcher.flush();
+        assertFalse(result.isDone(), "前两个窗口没有候选司机，继续重试");
+
+        dispatcher.flush();
+        assertTrue(result.isCompletedExceptionally(), "第三个窗口后放弃");
+        ExecutionException failure = assertThrows(ExecutionException.class, result::get);
+        assertTrue(failure.getCause() instanceof DriverNotFoundException);
+
+        dispatcher.flush();
+        verify(tracker, times(3)).nearestAvailable(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void testNoAvailableDriversFailsWithoutRetry() {
+        when(tracker.availableCount()).thenReturn(0);
+
+        CompletableFuture<TripBooking> result = dispatcher.submit(booking(18.52, 73.85), "a");
+        dispatcher.flush();
+
+        assertTrue(result.isCompletedExceptionally(), "一个可用司机都没有时不再等下一个窗口");
+    }
+
+    @Test
+    public void testFuturesCompleteAfterCommit() throws Exception {
+        TripBooking booking = booking(18.52, 73.85);
+        candidates(booking, driver(7, 18.52, 73.85));
+
+        CompletableFuture<Boolean> committedWhenNotified = dispatcher.submit(booking, "a").thenApply(trip -> transactions.committed);
+        dispatcher.flush();
+
+        assertTrue(committedWhenNotified.get(), "等待方拿到结果时事务已经提交");
+    }
+
+    @Test
+    public void testFailedTransactionFailsWholeWindow() {
+        TripBooking first = booking(18.50, 73.80);
+        TripBooking second = booking(18.52, 73.85);
+        candidates(first, driver(7, 18.50, 73.80));
+        candidates(second, driver(8, 18.52, 73.85));
+        when(tripDao.saveAll(anyList())).thenThrow(new IllegalStateException("insert failed"));
+
+        CompletableFuture<TripBooking> firstResult = dispatcher.submit(first, "a");
+        CompletableFuture<TripBooking> secondResult = dispatcher.submit(second, "b");
+        dispatcher.flush();
+
+        assertTrue(transactions.rolledBack);
+        assertTrue(firstResult.isCompletedExceptionally());
+        assertTrue(secondResult.isCompletedExceptionally());
+        verify(outbox, never()).recordAll(any(), any());
+    }
+
+    /**
+     * 不连数据库，只记录事务是提交还是回滚
+     */
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private static final long serialVersionUID = 1L;
+
+        private volatile boolean committed;
+
+        private volatile boolean rolledBack;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            committed = false;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            committed = true;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rolledBack = true;
+        }
+    }
+}
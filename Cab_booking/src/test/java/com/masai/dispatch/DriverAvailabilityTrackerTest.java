@@ -0,0 +1,170 @@
+package com.masai.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.TestData;
+import com.masai.repository.DriverDao;
+import com.masai.service.DriverService;
+
+/**
+ * 占用司机的并发语义：内存抢占和带条件的 UPDATE 各自只放行一个，事务回滚时司机回到索引和数据库
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class DriverAvailabilityTrackerTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private DriverAvailabilityTracker tracker;
+
+    @Autowired
+    private DriverDao driverDao;
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer newDriver(String carType) {
+        return driverService.insertDriver(TestData.driver(carType, "pune", 18.52, 73.85)).getUserId();
+    }
+
+    private boolean availableInDb(Integer driverId) {
+        return jdbcTemplate.queryForObject("select available from driver where driver_id = ?", Boolean.class, driverId);
+    }
+
+    // 所有线程在同一时刻放行，返回各自的结果
+    private static <T> List<T> race(Callable<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures)
+                results.add(future.get(30, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long winners(List<?> results) {
+        return results.stream().filter(Objects::nonNull).count();
+    }
+
+    @Test
+    public void testConcurrentReservesOfOneDriverHaveOneWinner() throws Exception {
+        Integer driverId = newDriver("RaceOne");
+
+        List<AvailableDriver> results = race(() -> transactionTemplate.execute(status -> tracker.reserve(driverId)));
+
+        assertEquals(1, winners(results));
+        assertFalse(availableInDb(driverId));
+        assertTrue(tracker.nearestAvailable(18.52, 73.85, "RaceOne", 1).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentNearestReservesShareOutDrivers() throws Exception {
+        List<Integer> driverIds = Arrays.asList(newDriver("RaceNear"), newDriver("RaceNear"), newDriver("RaceNear"));
+
+        List<AvailableDriver> results = race(() -> transactionTemplate.execute(status -> tracker.reserveNearest(18.52, 73.85, "RaceNear")));
+
+        assertEquals(driverIds.size(), winners(results), "每个司机恰好被一个预约拿到");
+        assertEquals(driverIds.size(), results.stream().filter(Objects::nonNull).map(AvailableDriver::getDriverId).distinct().count());
+        driverIds.forEach(id -> assertFalse(availableInDb(id)));
+    }
+
+    @Test
+    public void testConditionalUpdateAdmitsOneNode() throws Exception {
+        // 绕过内存索引，模拟多个节点同时对同一个司机执行占用 UPDATE
+        Integer driverId = newDriver("RaceDb");
+
+        List<Integer> counts = race(() -> driverDao.reserveDriver(driverId));
+
+        assertEquals(1, counts.stream().filter(count -> count == 1).count());
+        assertEquals(THREADS - 1, counts.stream().filter(count -> count == 0).count());
+        assertFalse(availableInDb(driverId));
+    }
+
+    @Test
+    public void testBatchReserveSkipsTakenDrivers() {
+        Integer taken = newDriver("RaceBatch");
+        Integer free = newDriver("RaceBatch");
+        assertEquals(1, driverDao.reserveDriver(taken));
+
+        Map<Integer, AvailableDriver> reserved = transactionTemplate.execute(status -> tracker.reserveAll(Arrays.asList(taken, free)));
+
+        assertEquals(Collections.singleton(free), reserved.keySet(), "数据库里已被占用的司机不算成功");
+        assertFalse(availableInDb(free));
+        assertTrue(tracker.nearestAvailable(18.52, 73.85, "RaceBatch", 2).isEmpty(), "两个司机都离开了索引");
+    }
+
+    @Test
+    public void testRolledBackBookingReturnsDriver() {
+        Integer driverId = newDriver("Rollback");
+
+        AvailableDriver reserved = transactionTemplate.execute(status -> {
+            AvailableDriver driver = tracker.reserveNearest(18.52, 73.85, "Rollback");
+            assertFalse(availableInDb(driverId), "事务内已经落库");
+            status.setRollbackOnly();
+            return driver;
+        });
+
+        assertNotNull(reserved);
+        assertTrue(availableInDb(driverId), "回滚后数据库里恢复可用");
+        List<AvailableDriver> nearest = tracker.nearestAvailable(18.52, 73.85, "Rollback", 1);
+        assertEquals(1, nearest.size(), "回滚后放回索引");
+        assertEquals(driverId, nearest.get(0).getDriverId());
+    }
+
+    @Test
+    public void testFailedBookingReturnsDriver() {
+        Integer driverId = newDriver("RollbackEx");
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.execute(status -> {
+            tracker.reserveNearest(18.52, 73.85, "RollbackEx");
+            throw new IllegalStateException("saving the trip failed");
+        }));
+
+        assertTrue(availableInDb(driverId));
+        AvailableDriver again = transactionTemplate.execute(status -> tracker.reserveNearest(18.52, 73.85, "RollbackEx"));
+        assertNotNull(again, "放回的司机可以再次被占用");
+        assertEquals(driverId, again.getDriverId());
+    }
+}
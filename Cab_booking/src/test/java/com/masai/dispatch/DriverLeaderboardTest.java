@@ -0,0 +1,62 @@
+package com.masai.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class DriverLeaderboardTest {
+
+    @Test
+    public void testTopKOrderedByRatingThenId() {
+        DriverLeaderboard leaderboard = new DriverLeaderboard();
+        leaderboard.put(1, 4.6);
+        leaderboard.put(2, 4.9);
+        leaderboard.put(3, 4.6);
+        leaderboard.put(4, 3.8);
+
+        assertEquals(Arrays.asList(2, 1, 3), leaderboard.top(4.5, 10), "低于阈值的司机不应该返回");
+        assertEquals(Arrays.asList(2, 1), leaderboard.top(4.5, 2));
+    }
+
+    @Test
+    public void testNonPositiveLimitReturnsEmpty() {
+        DriverLeaderboard leaderboard = new DriverLeaderboard();
+        leaderboard.put(1, 4.6);
+
+        assertEquals(0, leaderboard.top(0, -1).size(), "负数limit不应该抛异常");
+        assertEquals(0, leaderboard.top(0, 0).size());
+        assertEquals(0, leaderboard.after(0, 5.0, 0, -5).size());
+    }
+
+    @Test
+    public void testRatingChangeAndRemovalUpdateInPlace() {
+        DriverLeaderboard leaderboard = new DriverLeaderboard();
+        leaderboard.put(1, 4.6);
+        leaderboard.put(2, 4.9);
+
+        leaderboard.put(1, 5.0);
+        assertEquals(Arrays.asList(1, 2), leaderboard.top(0, 10));
+
+        leaderboard.remove(1);
+        assertEquals(Arrays.asList(2), leaderboard.top(0, 10));
+        assertEquals(1, leaderboard.size());
+    }
+
+    @Test
+    public void testKeysetPageContinuesAfterCursor() {
+        DriverLeaderboard leaderboard = new DriverLeaderboard();
+        leaderboard.put(1, 4.6);
+        leaderboard.put(2, 4.9);
+        leaderboard.put(3, 4.6);
+        leaderboard.put(4, 4.7);
+
+        assertEquals(Arrays.asList(4, 1), leaderboard.after(4.5, 4.9, 2, 2));
+        assertEquals(Arrays.asList(3), leaderboard.after(4.5, 4.6, 1, 2), "同分时按id继续往后翻");
+
+        // 游标指向的司机已经下线，翻页依然从原位置继续
+        leaderboard.remove(1);
+        assertEquals(Arrays.asList(3), leaderboard.after(4.5, 4.6, 1, 2));
+    }
+}
@@ -0,0 +1,85 @@
+package com.masai.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DriverSpatialIndexTest {
+
+    private DriverSpatialIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new DriverSpatialIndex(0.01, 50);
+    }
+
+    @Test
+    public void testNearestOrderedByDistance() {
+        index.put(new AvailableDriver(1, 39.9087, 116.3975, "Sedan", 4.5, 10, null)); // 天安门
+        index.put(new AvailableDriver(2, 39.9155, 116.4039, "Sedan", 4.5, 10, null)); // 王府井
+        index.put(new AvailableDriver(3, 40.0799, 116.6031, "Sedan", 4.5, 10, null)); // 首都机场
+
+        List<AvailableDriver> nearest = index.nearest(39.9100, 116.3980, 2);
+
+        assertEquals(2, nearest.size());
+        assertEquals(1, nearest.get(0).getDriverId(), "最近的司机应该排第一");
+        assertEquals(2, nearest.get(1).getDriverId());
+    }
+
+    @Test
+    public void testFarDriverFoundAcrossRings() {
+        index.put(new AvailableDriver(3, 40.0799, 116.6031, "Sedan", 4.5, 10, null));
+
+        List<AvailableDriver> nearest = index.nearest(39.9087, 116.3975, 1);
+
+        assertEquals(1, nearest.size(), "二十多公里外的司机也应该能在网格扫描范围内找到");
+        assertEquals(3, nearest.get(0).getDriverId());
+    }
+
+    @Test
+    public void testUnlocatedDriversFillRemainingSlots() {
+        index.put(new AvailableDriver(1, 39.9087, 116.3975, "Sedan", 4.5, 10, null));
+        index.put(new AvailableDriver(4, null, null, "Sedan", 4.5, 10, null));
+
+        List<AvailableDriver> nearest = index.nearest(39.9087, 116.3975, 5);
+
+        assertEquals(2, nearest.size());
+        assertEquals(1, nearest.get(0).getDriverId(), "有坐标的司机排在未定位司机前面");
+        assertEquals(4, nearest.get(1).getDriverId());
+    }
+
+    @Test
+    public void testQueryWithoutCoordinatesReturnsAnyDriver() {
+        index.put(new AvailableDriver(1, 39.9087, 116.3975, "Sedan", 4.5, 10, null));
+
+        assertEquals(1, index.nearest(null, null, 1).size());
+    }
+
+    @Test
+    public void testMoveAndRemove() {
+        index.put(new AvailableDriver(1, 39.9087, 116.3975, "Sedan", 4.5, 10, null));
+        index.put(new AvailableDriver(1, 31.2304, 121.4737, "Sedan", 4.5, 10, null)); // 移动到上海
+
+        List<AvailableDriver> nearest = index.nearest(31.2304, 121.4737, 1);
+        assertEquals(1, nearest.get(0).getDriverId());
+        assertEquals(31.2304, nearest.get(0).getLatitude());
+        assertEquals(1, index.size());
+
+        assertTrue(index.remove(1) != null);
+        assertNull(index.remove(1), "重复移除应该返回null");
+        assertFalse(index.contains(1));
+        assertTrue(index.nearest(31.2304, 121.4737, 1).isEmpty());
+    }
+
+    @Test
+    public void testDistanceKm() {
+        double km = DriverSpatialIndex.distanceKm(39.9042, 116.4074, 31.2304, 121.4737);
+        assertTrue(km > 1060 && km < 1075, "北京到上海直线距离约1067公里");
+    }
+}
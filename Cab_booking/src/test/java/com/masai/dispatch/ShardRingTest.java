@@ -0,0 +1,87 @@
+package com.masai.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardRingTest {
+
+    private static final List<String> NODES = Arrays.asList("http://localhost:18989", "http://localhost:18990",
+            "http://localhost:18991");
+
+    private static List<String> cities(int count) {
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            cities.add("city-" + i);
+        return cities;
+    }
+
+    @Test
+    public void testEveryNodeComputesSameOwner() {
+        List<String> reversed = new ArrayList<>(NODES);
+        Collections.reverse(reversed);
+        ShardRing a = new ShardRing(NODES, 128);
+        ShardRing b = new ShardRing(reversed, 128);
+
+        for (String city : cities(1000))
+            assertEquals(a.ownerOf(city), b.ownerOf(city), "节点列表顺序不同也应该算出相同的归属");
+    }
+
+    @Test
+    public void testCityKeyIgnoresCaseAndBlanks() {
+        ShardRing ring = new ShardRing(NODES, 128);
+
+        assertEquals(ring.ownerOf("Pune"), ring.ownerOf(" pune "));
+        assertNull(ring.ownerOf(null));
+        assertNull(ring.ownerOf("  "));
+    }
+
+    @Test
+    public void testCitiesSpreadAcrossNodes() {
+        ShardRing ring = new ShardRing(NODES, 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String city : cities(3000))
+            counts.merge(ring.ownerOf(city), 1, Integer::sum);
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values())
+            assertTrue(count > 700 && count < 1300, "每个节点应该分到大约三分之一的城市: " + counts);
+    }
+
+    @Test
+    public void testAddingNodeMovesOnlyItsShare() {
+        ShardRing before = new ShardRing(NODES, 128);
+        List<String> grown = new ArrayList<>(NODES);
+        grown.add("http://localhost:18992");
+        ShardRing after = new ShardRing(grown, 128);
+
+        int moved = 0;
+        for (String city : cities(4000)) {
+            String owner = after.ownerOf(city);
+            if (!owner.equals(before.ownerOf(city))) {
+                moved++;
+                assertEquals("http://localhost:18992", owner, "换主的城市只能搬到新节点上");
+            }
+        }
+        assertTrue(moved > 600 && moved < 1400, "大约四分之一的城市换主: " + moved);
+    }
+
+    @Test
+    public void testSingleNodeOwnsEverything() {
+        ShardRing ring = new ShardRing(Collections.singletonList("http://localhost:18989"), 16);
+
+        for (String city : cities(100))
+            assertEquals("http://localhost:18989", ring.ownerOf(city));
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(Collections.emptyList(), 16));
+    }
+}
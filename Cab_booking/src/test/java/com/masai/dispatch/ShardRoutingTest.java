@@ -0,0 +1,210 @@
+package com.masai.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.masai.CabBookingApplication;
+import com.masai.entity.Address;
+import com.masai.entity.Cab;
+import com.masai.entity.Customer;
+import com.masai.entity.Driver;
+import com.masai.service.CustomerService;
+import com.masai.service.DriverService;
+
+/**
+ * 同一个JVM里起两个节点，共用一个内存H2库，验证预约按上车城市转发到负责的节点并由它派单
+ */
+public class ShardRoutingTest {
+
+    private static final String SECRET = "test-secret";
+
+    private static ConfigurableApplicationContext nodeA;
+
+    private static ConfigurableApplicationContext nodeB;
+
+    private static String urlA;
+
+    private static String urlB;
+
+    private static String cityA;
+
+    private static String cityB;
+
+    private final RestTemplate rest = new RestTemplate();
+
+    @BeforeAll
+    public static void startNodes() throws IOException {
+        urlA = "http://localhost:" + freePort();
+        urlB = "http://localhost:" + freePort();
+        List<String> nodes = Arrays.asList(urlA, urlB);
+        ShardRing ring = new ShardRing(nodes, 128);
+        for (int i = 0; cityA == null || cityB == null; i++) {
+            String city = "city-" + i;
+            if (cityA == null && urlA.equals(ring.ownerOf(city)))
+                cityA = city;
+            if (cityB == null && urlB.equals(ring.ownerOf(city)))
+                cityB = city;
+        }
+
+        String db = "jdbc:h2:mem:shard-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        nodeA = start(urlA, nodes, db, "create");
+        nodeB = start(urlB, nodes, db, "update");
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        if (nodeB != null)
+            nodeB.close();
+        if (nodeA != null)
+            nodeA.close();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String self, List<String> nodes, String db, String ddl) {
+        // 用命令行参数，默认属性会被application.properties盖掉
+        return new SpringApplicationBuilder(CabBookingApplication.class).run(
+                "--server.port=" + self.substring(self.lastIndexOf(':') + 1),
+                "--spring.datasource.url=" + db,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                "--spring.jpa.show-sql=false",
+                "--spring.devtools.restart.enabled=false",
+                "--shard.nodes=" + String.join(",", nodes),
+                "--shard.self=" + self,
+                "--shard.secret=" + SECRET,
+                // 由测试手动对账
+                "--shard.resync-ms=3600000");
+    }
+
+    private static Driver driver(String email, String licenseNo, String city, double latitude, double longitude) {
+        Address address = new Address();
+        address.setCity(city);
+        address.setState("MH");
+        address.setPincode("411001");
+        Cab cab = new Cab();
+        cab.setCarType("Sedan");
+        cab.setRatePerKm(10);
+        Driver driver = new Driver();
+        driver.setUsername("driver " + city);
+        driver.setPassword("Secret1");
+        driver.setMobile("13800000000");
+        driver.setEmail(email);
+        driver.setLicenseNo(licenseNo);
+        driver.setRating(4.8);
+        driver.setAvailable(true);
+        driver.setLatitude(latitude);
+        driver.setLongitude(longitude);
+        driver.setAddress(address);
+        driver.setCab(cab);
+        return driver;
+    }
+
+    private static Map<String, Object> trip(Integer customerId, String city) {
+        Map<String, Object> trip = new HashMap<>();
+        trip.put("customerId", customerId);
+        trip.put("from_location", "somewhere in " + city);
+        trip.put("to_location", "elsewhere");
+        trip.put("fromdate_time", LocalDate.now().plusDays(1).toString());
+        trip.put("todate_time", LocalDate.now().plusDays(1).toString());
+        trip.put("pickupCity", city);
+        trip.put("km", 5);
+        return trip;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Integer driverOf(Map<String, Object> booked) {
+        assertNotNull(booked);
+        return (Integer) ((Map<String, Object>) booked.get("driver")).get("userId");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBookingsRouteToCityOwner() {
+        Customer customer = new Customer();
+        customer.setUsername("rider");
+        customer.setPassword("Secret1");
+        customer.setMobile("13900000000");
+        customer.setEmail("rider@x.com");
+        customer.setJourney_status(false);
+        Address home = new Address();
+        home.setCity(cityA);
+        customer.setAddress(home);
+        Integer customerId = nodeA.getBean(CustomerService.class).saveCustomer(customer).getUserId();
+
+        // 两个司机都从A节点录入，A只把自己城市的司机放进索引
+        DriverService drivers = nodeA.getBean(DriverService.class);
+        Integer driverA = drivers.insertDriver(driver("a@x.com", "MH0120260001", cityA, 18.52, 73.85)).getUserId();
+        Integer driverB = drivers.insertDriver(driver("b@x.com", "MH0220260002", cityB, 19.07, 72.87)).getUserId();
+        DriverAvailabilityTracker trackerA = nodeA.getBean(DriverAvailabilityTracker.class);
+        DriverAvailabilityTracker trackerB = nodeB.getBean(DriverAvailabilityTracker.class);
+        assertEquals(1, trackerA.availableCount());
+
+        // B启动时还没有司机，对账后拿到自己城市的那一个
+        assertEquals(1, trackerB.resync());
+        assertEquals(1, trackerB.availableCount());
+        assertEquals(0, trackerA.resync(), "没有变化时对账不动索引");
+
+        // 在A上预约B城市，转发给B派单
+        Map<String, Object> viaA = rest.postForObject(urlA + "/trip", trip(customerId, cityB), Map.class);
+        assertEquals(driverB, driverOf(viaA));
+        assertEquals(0, trackerB.availableCount());
+        assertEquals(1, trackerA.availableCount(), "A的索引没有被B城市的预约动过");
+
+        // 在B上预约A城市，转发给A派单
+        Map<String, Object> viaB = rest.postForObject(urlB + "/trip", trip(customerId, cityA), Map.class);
+        assertEquals(driverA, driverOf(viaB));
+        assertEquals(0, trackerA.availableCount());
+        assertEquals(0, trackerB.resync(), "已占用的司机不会被对账放回");
+    }
+
+    @Test
+    public void testForwardEndpointNeedsSecret() {
+        HttpClientErrorException missing = null;
+        try {
+            rest.postForObject(urlB + "/shard/trip", new HashMap<>(), String.class);
+        } catch (HttpClientErrorException e) {
+            missing = e;
+        }
+        assertNotNull(missing);
+        assertEquals(HttpStatus.FORBIDDEN, missing.getStatusCode(), "没有密钥时在参数校验之前就拒绝");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ShardForwarder.SECRET_HEADER, "wrong");
+        HttpClientErrorException wrong = null;
+        try {
+            rest.postForObject(urlB + "/shard/trip", new HttpEntity<>(new HashMap<>(), headers), String.class);
+        } catch (HttpClientErrorException e) {
+            wrong = e;
+        }
+        assertNotNull(wrong);
+        assertEquals(HttpStatus.FORBIDDEN, wrong.getStatusCode());
+        assertTrue(wrong.getResponseBodyAsString().contains("/shard/trip"));
+    }
+}
@@ -0,0 +1,21 @@
+package com.masai.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class ArchivedTripTest {
+
+    @Test
+    public void testMonthComesFromEndDate() {
+        TripBooking trip = new TripBooking();
+        trip.setTripBookingId(5);
+        trip.setFromdate_time(LocalDate.of(2026, 1, 31));
+        trip.setTodate_time(LocalDate.of(2026, 2, 1));
+
+        assertEquals(202602, ArchivedTrip.of(trip, LocalDateTime.now()).getArchiveMonth());
+    }
+}
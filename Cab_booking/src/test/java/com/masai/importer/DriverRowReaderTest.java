@@ -0,0 +1,71 @@
+package com.masai.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.masai.exception.InvalidImportException;
+
+public class DriverRowReaderTest {
+
+    @Test
+    public void testSplitQuotedValues() {
+        assertEquals(Arrays.asList("a", "b,c", "say \"hi\"", ""), DriverRowReader.split("a,\"b,c\",\"say \"\"hi\"\"\","));
+        assertThrows(IllegalArgumentException.class, () -> DriverRowReader.split("a,\"b"));
+    }
+
+    @Test
+    public void testCsvRowsInAnyColumnOrder() throws IOException {
+        String csv = "\uFEFFemail,username,city,ratePerKm,available\n"
+                + "d1@mail.com,Ravi,Pune,12,true\n"
+                + "\n"
+                + "d2@mail.com,Amit,Pune,abc,true\n";
+        DriverRowReader reader = DriverRowReader.csv(new StringReader(csv));
+
+        DriverRowReader.Row first = reader.next();
+        assertEquals(2, first.getLine());
+        assertNull(first.getError());
+        assertEquals("Ravi", first.getRequest().getUsername());
+        assertEquals("d1@mail.com", first.getRequest().getEmail());
+        assertEquals("Pune", first.getRequest().getAddress().getCity());
+        assertEquals(12, first.getRequest().getCab().getRatePerKm());
+        assertTrue(first.getRequest().getAvailable());
+
+        DriverRowReader.Row second = reader.next();
+        assertEquals(4, second.getLine(), "空行跳过但仍然计入行号");
+        assertNull(second.getRequest());
+        assertTrue(second.getError().contains("ratePerKm"));
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testUnknownCsvColumnRejected() {
+        assertThrows(InvalidImportException.class, () -> DriverRowReader.csv(new StringReader("username,nickname\n")));
+        assertThrows(InvalidImportException.class, () -> DriverRowReader.csv(new StringReader("")));
+    }
+
+    @Test
+    public void testNdjsonBadLineDoesNotStopReading() throws IOException {
+        String ndjson = "{\"username\":\"Ravi\",\"email\":\"d1@mail.com\"}\n"
+                + "{not json}\n"
+                + "{\"username\":\"Amit\"}\n";
+        DriverRowReader reader = DriverRowReader.ndjson(new StringReader(ndjson), new ObjectMapper());
+
+        assertEquals("Ravi", reader.next().getRequest().getUsername());
+        DriverRowReader.Row bad = reader.next();
+        assertEquals(2, bad.getLine());
+        assertTrue(bad.getError().startsWith("Invalid JSON"));
+        assertNotNull(reader.next().getRequest());
+        assertNull(reader.next());
+    }
+}
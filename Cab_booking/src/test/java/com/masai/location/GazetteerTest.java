@@ -0,0 +1,50 @@
+package com.masai.location;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GazetteerTest {
+
+    private Gazetteer gazetteer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gazetteer = Gazetteer.load(new StringReader("# comment\n"
+                + "天安门,Beijing,39.9087,116.3975,天安门广场|Tiananmen Square\n"
+                + "北京首都国际机场,Beijing,40.0799,116.6031,首都机场|PEK\n"));
+    }
+
+    @Test
+    public void testAliasesShareCanonicalLocation() {
+        ResolvedLocation place = gazetteer.lookup("天安门");
+
+        assertEquals("天安门", place.getName());
+        assertEquals(39.9087, place.getLatitude());
+        assertSame(place, gazetteer.lookup("天安门广场"));
+        assertSame(place, gazetteer.lookup("  tiananmen-SQUARE "), "忽略大小写、空白和标点");
+        assertSame(place.getCity(), gazetteer.lookup("PEK").getCity(), "城市名应该共享同一个实例");
+    }
+
+    @Test
+    public void testFullWidthInput() {
+        assertEquals("北京首都国际机场", gazetteer.lookup("ＰＥＫ").getName(), "全角字符归一化为半角");
+    }
+
+    @Test
+    public void testCoordinatesAndMisses() {
+        ResolvedLocation point = gazetteer.lookup("31.2304, 121.4737");
+
+        assertEquals(31.2304, point.getLatitude());
+        assertEquals(121.4737, point.getLongitude());
+        assertNull(point.getCity());
+        assertNull(gazetteer.lookup("火星基地"));
+        assertNull(gazetteer.lookup("95.0,10.0"), "超出范围的纬度不当作坐标");
+    }
+}
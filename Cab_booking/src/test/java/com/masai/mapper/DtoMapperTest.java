@@ -183,7 +183,7 @@ public class DtoMapperTest {
         assertEquals("secureuser", response.getUsername(), "用户名映射错误");
         assertEquals("secure@example.com", response.getEmail(), "邮箱映射错误");
         assertEquals("1234567890", response.getMobile(), "手机号映射错误");
-        assertEquals(false, response.isJourney_status(), "旅程状态映射错误");
+        assertEquals(false, response.isJourneyStatus(), "旅程状态映射错误");
 
         // 验证地址信息
         assertNotNull(response.getAddress(), "地址不能为null");
@@ -0,0 +1,256 @@
+package com.masai.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.TestData;
+import com.masai.entity.TripEvent;
+import com.masai.repository.OutboxLeaseDao;
+import com.masai.repository.TripEventDao;
+import com.masai.service.CustomerService;
+
+/**
+ * h2 配置下定时中继是关着的，这里自己建中继实例直接调 relayBatch，每个实例相当于一个节点
+ * 库里可能还有其它测试留下的待投递事件，订阅者只记录本测试客户的事件
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class OutboxRelayTest {
+
+    @Autowired
+    private TripEventDao tripEventDao;
+
+    @Autowired
+    private OutboxLeaseDao outboxLeaseDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CustomerService customerService;
+
+    private Integer customerId;
+
+    private final List<OutboxRelay> relays = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        customerId = customerService.saveCustomer(TestData.customer()).getUserId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        relays.forEach(OutboxRelay::releaseLease);
+    }
+
+    private OutboxRelay relay(TripEventSubscriber subscriber, int maxAttempts, long leaseMs) {
+        OutboxRelay relay = new OutboxRelay();
+        ReflectionTestUtils.setField(relay, "tripEventDao", tripEventDao);
+        ReflectionTestUtils.setField(relay, "outboxLeaseDao", outboxLeaseDao);
+        ReflectionTestUtils.setField(relay, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(relay, "subscribers", Collections.singletonList(subscriber));
+        ReflectionTestUtils.setField(relay, "enabled", true);
+        ReflectionTestUtils.setField(relay, "batchSize", 1000);
+        ReflectionTestUtils.setField(relay, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(relay, "leaseMs", leaseMs);
+        relays.add(relay);
+        return relay;
+    }
+
+    private Long event(int tripBookingId) {
+        TripEvent event = new TripEvent();
+        event.setType(TripEventType.BOOKED);
+        event.setTripBookingId(tripBookingId);
+        event.setCustomerId(customerId);
+        event.setOccurredAt(LocalDateTime.now());
+        return tripEventDao.save(event).getId();
+    }
+
+    private TripEvent load(Long id) {
+        return tripEventDao.findById(id).get();
+    }
+
+    /**
+     * 记录收到的本测试事件id，fail 里的事件抛异常
+     */
+    private class Recorder implements TripEventSubscriber {
+
+        private final List<Long> received = new CopyOnWriteArrayList<>();
+
+        private final Set<Long> fail = Collections.synchronizedSet(new HashSet<>());
+
+        private volatile long delayMs;
+
+        @Override
+        public void onEvent(TripEvent event) {
+            if (!customerId.equals(event.getCustomerId()))
+                return;
+            if (fail.contains(event.getId()))
+                throw new IllegalStateException("subscriber down");
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.add(event.getId());
+        }
+    }
+
+    @Test
+    public void testBatchIsCheckpointedOnce() {
+        Recorder recorder = new Recorder();
+        OutboxRelay relay = relay(recorder, 10, 60000);
+        List<Long> ids = Arrays.asList(event(1), event(2), event(3));
+
+        assertTrue(relay.relayBatch() >= 3);
+        assertEquals(ids, recorder.received, "按id顺序投递");
+        for (Long id : ids)
+            assertNotNull(load(id).getPublishedAt(), "投递完打上检查点");
+
+        relay.relayBatch();
+        assertEquals(ids, recorder.received, "打过检查点的事件不再投递");
+    }
+
+    @Test
+    public void testFailureStopsBatchAndIsRetried() {
+        Recorder recorder = new Recorder();
+        OutboxRelay relay = relay(recorder, 10, 60000);
+        Long first = event(1);
+        Long broken = event(2);
+        Long last = event(3);
+        recorder.fail.add(broken);
+
+        relay.relayBatch();
+        assertEquals(Collections.singletonList(first), recorder.received, "失败的事件后面的不越过它");
+        assertNotNull(load(first).getPublishedAt());
+        assertNull(load(broken).getPublishedAt());
+        assertEquals(1, load(broken).getAttempts());
+        assertNull(load(last).getPublishedAt());
+
+        recorder.fail.clear();
+        relay.relayBatch();
+        assertEquals(Arrays.asList(first, broken, last), recorder.received, "下一批从失败的事件重投");
+        assertNotNull(load(last).getPublishedAt());
+        assertFalse(load(broken).isFailed());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        Recorder recorder = new Recorder();
+        OutboxRelay relay = relay(recorder, 3, 60000);
+        Long broken = event(1);
+        Long next = event(2);
+        recorder.fail.add(broken);
+
+        relay.relayBatch();
+        relay.relayBatch();
+        assertEquals(2, load(broken).getAttempts());
+        assertNull(load(broken).getPublishedAt(), "还没到上限，继续重试");
+
+        relay.relayBatch();
+        TripEvent gaveUp = load(broken);
+        assertTrue(gaveUp.isFailed(), "第三次失败后放弃");
+        assertEquals(3, gaveUp.getAttempts());
+        assertNotNull(gaveUp.getPublishedAt(), "放弃的事件不再算待投递");
+        assertTrue(recorder.received.isEmpty());
+
+        relay.relayBatch();
+        assertEquals(Collections.singletonList(next), recorder.received, "放弃之后后面的事件照常投递");
+        assertEquals(3, load(broken).getAttempts());
+    }
+
+    @Test
+    public void testOnlyLeaseHolderDelivers() throws Exception {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        first.delayMs = 20;
+        second.delayMs = 20;
+        OutboxRelay firstNode = relay(first, 10, 60000);
+        OutboxRelay secondNode = relay(second, 10, 60000);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            ids.add(event(i));
+
+        // 两个节点同时开始投递同一批
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<Integer> a = CompletableFuture.supplyAsync(() -> {
+            await(start);
+            return firstNode.relayBatch();
+        });
+        CompletableFuture<Integer> b = CompletableFuture.supplyAsync(() -> {
+            await(start);
+            return secondNode.relayBatch();
+        });
+        start.countDown();
+        a.get(10, TimeUnit.SECONDS);
+        b.get(10, TimeUnit.SECONDS);
+
+        assertTrue(first.received.isEmpty() || second.received.isEmpty(), "只有一个节点在投递");
+        List<Long> all = new ArrayList<>(first.received);
+        all.addAll(second.received);
+        assertEquals(ids, all, "每个事件只投递一次");
+
+        // 持有者交出租约后另一个节点接手
+        boolean firstHolds = !first.received.isEmpty();
+        OutboxRelay holder = firstHolds ? firstNode : secondNode;
+        OutboxRelay standby = firstHolds ? secondNode : firstNode;
+        Recorder standbyRecorder = firstHolds ? second : first;
+        Long later = event(10);
+        assertEquals(0, standby.relayBatch(), "租约还在别人手里");
+        holder.releaseLease();
+        standby.relayBatch();
+        assertEquals(Collections.singletonList(later), standbyRecorder.received);
+    }
+
+    @Test
+    public void testExpiredLeaseIsTakenOver() throws Exception {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        OutboxRelay stopped = relay(first, 10, 1000);
+        OutboxRelay standby = relay(second, 10, 60000);
+
+        stopped.relayBatch();
+        Long id = event(1);
+        assertEquals(0, standby.relayBatch());
+
+        // 持有者没有续期也没有交出租约，过期后被接手
+        Thread.sleep(1500);
+        standby.relayBatch();
+        assertEquals(Collections.singletonList(id), second.received);
+        assertTrue(first.received.isEmpty());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
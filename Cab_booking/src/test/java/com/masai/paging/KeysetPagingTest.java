@@ -0,0 +1,34 @@
+package com.masai.paging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.masai.exception.InvalidCursorException;
+
+public class KeysetPagingTest {
+
+    @Test
+    public void testCursorRoundTrip() {
+        String cursor = KeysetPaging.encode("datetrip", LocalDate.of(2026, 5, 1), 42);
+        KeysetPaging.Cursor decoded = KeysetPaging.decode(cursor, "datetrip", 2);
+
+        assertEquals(LocalDate.of(2026, 5, 1), decoded.dateAt(0));
+        assertEquals(42, decoded.intAt(1));
+        assertNull(KeysetPaging.decode("", "datetrip", 2), "空游标表示第一页");
+    }
+
+    @Test
+    public void testRejectsForeignOrBrokenCursor() {
+        String cursor = KeysetPaging.encode("trip", 42);
+
+        assertThrows(InvalidCursorException.class, () -> KeysetPaging.decode(cursor, "customer", 1), "不能拿别的接口的游标翻页");
+        assertThrows(InvalidCursorException.class, () -> KeysetPaging.decode("%%%", "trip", 1));
+        assertThrows(InvalidCursorException.class,
+                () -> KeysetPaging.decode(KeysetPaging.encode("trip", "x"), "trip", 1).intAt(0));
+    }
+}
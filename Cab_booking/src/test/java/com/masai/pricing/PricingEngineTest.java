@@ -0,0 +1,77 @@
+package com.masai.pricing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.masai.config.PricingProperties;
+import com.masai.dispatch.AvailableDriver;
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.repository.CabDao;
+
+@ExtendWith(MockitoExtension.class)
+public class PricingEngineTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Mock
+    private CabDao cabDao;
+
+    @InjectMocks
+    private PricingEngine pricing;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(pricing, "properties", new PricingProperties());
+        // 两辆 Sedan 合计 24，平均 12
+        when(cabDao.rateTotalsByCarType()).thenReturn(Collections.singletonList(new Object[] { "Sedan", 24L, 2L }));
+        pricing.refresh();
+    }
+
+    @Test
+    public void testCabChangesAdjustRatesWithoutQuery() {
+        assertEquals(120, pricing.quote("Sedan", 10, null, NOON));
+
+        pricing.cabAdded("sedan ", 18);
+        assertEquals(140, pricing.quote("Sedan", 10, null, NOON), "(12+12+18)/3 = 14");
+
+        pricing.cabChanged("Sedan", 18, "SUV", 30);
+        assertEquals(120, pricing.quote("Sedan", 10, null, NOON));
+        assertEquals(300, pricing.quote("SUV", 10, null, NOON));
+
+        pricing.cabRemoved("SUV", 30);
+        assertNull(pricing.quote("SUV", 10, null, NOON), "最后一辆车删掉后车型不再报价");
+
+        verify(cabDao, times(1)).rateTotalsByCarType();
+    }
+
+    @Test
+    public void testDriverFareUsesPrecomputedKeys() {
+        AvailableDriver driver = new AvailableDriver(1, null, null, " Sedan", 4.5, null, "Pune");
+
+        assertEquals("sedan", driver.getCarTypeKey());
+        assertEquals("pune", driver.getCityKey());
+        assertEquals(120, pricing.fare(driver, 10, null, NOON), "没有单车费率时按车型平均费率");
+    }
+
+    @Test
+    public void testKeyReturnsNormalizedValueAsIs() {
+        String key = "sedan";
+        assertSame(key, CabTypeRegistry.key(key), "已经归一化的值不应该再创建新字符串");
+        assertEquals("sedan", CabTypeRegistry.key(" Sedan "));
+    }
+}
@@ -0,0 +1,64 @@
+package com.masai.pricing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.masai.config.PricingProperties;
+
+public class RateTableTest {
+
+    private final List<Object[]> rates = Arrays.asList(new Object[] { "Sedan", 12.0 }, new Object[] { "SUV", 20.4 });
+
+    @Test
+    public void testDefaultsKeepPlainFare() {
+        RateTable table = RateTable.build(rates, new PricingProperties());
+
+        assertEquals(150, table.fare(15, 10, "sedan", null, 8), "默认配置下车费等于 km * ratePerKm");
+        assertEquals(120, table.quote("sedan", 10, null, 8), "按车型报价使用该车型平均费率");
+        assertEquals(200, table.quote("suv", 10, null, 8));
+        assertEquals(-1, table.quote("bus", 10, null, 8), "未知车型返回-1");
+    }
+
+    @Test
+    public void testPeakSurgeAndMinimumFare() {
+        PricingProperties properties = new PricingProperties();
+        properties.setPeakHours("7-9, 17-19");
+        properties.setPeakMultiplier(1.5);
+        properties.getCitySurge().put("Beijing", 2.0);
+        properties.getMinFares().put("Sedan", 30);
+        RateTable table = RateTable.build(rates, properties);
+
+        assertEquals(100, table.fare(10, 10, "sedan", null, 12));
+        assertEquals(150, table.fare(10, 10, "sedan", null, 9), "高峰时段含结束小时");
+        assertEquals(300, table.fare(10, 10, "sedan", "beijing", 17));
+        assertEquals(30, table.fare(10, 1, "sedan", null, 12), "不低于车型最低消费");
+        assertEquals(10, table.fare(10, 1, "suv", null, 12), "没有单独配置的车型使用全局最低消费");
+    }
+
+    @Test
+    public void testPeakRangeWrapsPastMidnight() {
+        PricingProperties properties = new PricingProperties();
+        properties.setPeakHours("22-2");
+        properties.setPeakMultiplier(2.0);
+        RateTable table = RateTable.build(rates, properties);
+
+        assertEquals(200, table.fare(10, 10, "sedan", null, 23));
+        assertEquals(200, table.fare(10, 10, "sedan", null, 0), "22-2 跨零点");
+        assertEquals(200, table.fare(10, 10, "sedan", null, 2));
+        assertEquals(100, table.fare(10, 10, "sedan", null, 3));
+        assertEquals(100, table.fare(10, 10, "sedan", null, 21));
+    }
+
+    @Test
+    public void testPeakRangeOutsideDayRejected() {
+        PricingProperties properties = new PricingProperties();
+        properties.setPeakHours("7-24");
+
+        assertThrows(IllegalArgumentException.class, () -> RateTable.build(rates, properties));
+    }
+}
@@ -0,0 +1,64 @@
+package com.masai.readmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.masai.entity.Cab;
+import com.masai.entity.Driver;
+import com.masai.entity.TripBooking;
+import com.masai.entity.TripView;
+import com.masai.repository.CustomerDao;
+import com.masai.repository.TripViewDao;
+
+@ExtendWith(MockitoExtension.class)
+public class TripViewProjectorTest {
+
+    @Mock
+    private TripViewDao tripViewDao;
+
+    @Mock
+    private CustomerDao customerDao;
+
+    @InjectMocks
+    private TripViewProjector projector;
+
+    @Test
+    public void testBookedTripInsertsWithoutQueries() {
+        Cab cab = new Cab();
+        cab.setCarType("Sedan");
+        Driver driver = new Driver();
+        driver.setUserId(3);
+        driver.setUsername("driver");
+        driver.setCab(cab);
+        TripBooking trip = new TripBooking();
+        trip.setTripBookingId(11);
+        trip.setCustomerId(7);
+        trip.setDriver(driver);
+        trip.setTotalamount(120);
+
+        projector.booked(trip, "alice");
+
+        ArgumentCaptor<TripView> saved = ArgumentCaptor.forClass(TripView.class);
+        verify(tripViewDao).save(saved.capture());
+        verifyNoMoreInteractions(tripViewDao);
+        verifyNoInteractions(customerDao);
+
+        TripView view = saved.getValue();
+        assertTrue(view.isNew(), "新预约直接insert，不先按主键查一次");
+        assertEquals(11, view.getTripBookingId());
+        assertEquals("alice", view.getCustomerName());
+        assertEquals("driver", view.getDriverName());
+        assertEquals("Sedan", view.getCarType());
+        assertEquals(120, view.getFare());
+    }
+}
@@ -0,0 +1,89 @@
+package com.masai.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RoadGraphTest {
+
+    private static final String GRAPH = "# test graph\n"
+            + "N 39.900 116.400\n"
+            + "N 39.900 116.410\n"
+            + "N 39.900 116.420\n"
+            + "N 39.890 116.400\n"
+            + "N 40.500 117.000\n"
+            + "E 0 1 1000 60\n"
+            + "E 1 2 1000 60\n"
+            + "E 0 2 1500 30\n"
+            + "E 3 0 500 30 1\n";
+
+    private RoadGraph graph;
+
+    /*
+     *  0 --1000m,60-- 1 --1000m,60-- 2
+     *  |                             |
+     *  +-------- 1500m,30 -----------+
+     *  3 -> 0 单行道，4 是孤立节点
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        graph = RoadGraph.load(new StringReader(GRAPH));
+    }
+
+    @Test
+    public void testCsrLayout() {
+        assertEquals(5, graph.nodeCount());
+        assertEquals(7, graph.edgeCount(), "双向道路拆成两条有向边");
+    }
+
+    @Test
+    public void testFastestRoutePrefersFasterRoad() {
+        Route route = graph.route(0, 2);
+
+        assertEquals(2.0, route.getDistanceKm(), 1e-9, "60km/h绕行2公里比30km/h直行1.5公里更快");
+        assertEquals(2.0, route.getDurationMinutes(), 1e-6);
+    }
+
+    @Test
+    public void testOneWayAndDisconnected() {
+        assertEquals(0.5, graph.route(3, 0).getDistanceKm(), 1e-9);
+        assertNull(graph.route(0, 3), "单行道不能逆行");
+        assertNull(graph.route(0, 4));
+        assertEquals(0.0, graph.route(1, 1).getDistanceKm());
+    }
+
+    @Test
+    public void testNearestNode() {
+        assertEquals(1, graph.nearestNode(39.9005, 116.4102, 1));
+        assertEquals(-1, graph.nearestNode(45.0, 120.0, 1), "超出吸附范围返回-1");
+    }
+
+    @Test
+    public void testSearchStatesAreBounded() throws Exception {
+        RoadGraph pooled = RoadGraph.load(new StringReader(GRAPH), 2);
+        ExecutorService threads = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Route>> routes = new ArrayList<>();
+            for (int i = 0; i < 2000; i++)
+                routes.add(threads.submit(() -> pooled.route(0, 2)));
+            for (Future<Route> route : routes)
+                assertEquals(2.0, route.get().getDistanceKm(), 1e-9);
+        } finally {
+            threads.shutdown();
+        }
+
+        assertTrue(pooled.idleSearchStates() <= 2, "并发线程再多，留下来的搜索状态也不超过上限");
+        assertEquals(2.0, pooled.route(0, 2).getDistanceKm(), 1e-9);
+    }
+}
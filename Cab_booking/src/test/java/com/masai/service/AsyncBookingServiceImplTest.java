@@ -0,0 +1,126 @@
+package com.masai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.masai.dto.response.BookingStatus;
+import com.masai.dto.response.BookingTicket;
+import com.masai.entity.Customer;
+import com.masai.entity.TripBooking;
+import com.masai.exception.BookingQueueFullException;
+import com.masai.exception.DriverNotFoundException;
+import com.masai.repository.CustomerDao;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncBookingServiceImplTest {
+
+    @Mock
+    private TripService tripService;
+
+    @Mock
+    private CustomerDao cdao;
+
+    @InjectMocks
+    private AsyncBookingServiceImpl service;
+
+    private ThreadPoolExecutor executor;
+
+    // 模拟批量派单：submitTrip 立即返回，匹配窗口结束时才完成
+    private final List<CompletableFuture<TripBooking>> windows = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(2));
+        ReflectionTestUtils.setField(service, "bookingExecutor", executor);
+        when(cdao.findById(1)).thenReturn(Optional.of(new Customer()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static TripBooking booking() {
+        TripBooking tb = new TripBooking();
+        tb.setCustomerId(1);
+        return tb;
+    }
+
+    private void stubBatchWindows() {
+        when(tripService.submitTrip(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<TripBooking> window = new CompletableFuture<>();
+            windows.add(window);
+            return window;
+        });
+    }
+
+    private void awaitSubmitted(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && windows.size() < count; i++)
+            Thread.sleep(10);
+        assertEquals(count, windows.size());
+    }
+
+    @Test
+    public void testWorkerDoesNotWaitForBatchWindow() throws InterruptedException {
+        stubBatchWindows();
+
+        // 只有一个工作线程，如果它阻塞等匹配结果，第二个预约就进不了批量队列
+        BookingTicket first = service.submit(booking());
+        BookingTicket second = service.submit(booking());
+        awaitSubmitted(2);
+        assertEquals(BookingStatus.PENDING, service.findTicket(first.getTicketId()).getStatus());
+
+        TripBooking saved = new TripBooking();
+        saved.setTripBookingId(42);
+        windows.get(0).complete(saved);
+        windows.get(1).completeExceptionally(new DriverNotFoundException("Sorry No driver Available just now..."));
+
+        assertEquals(BookingStatus.BOOKED, service.findTicket(first.getTicketId()).getStatus());
+        assertEquals(42, service.findTicket(first.getTicketId()).getTripBookingId());
+        assertEquals(BookingStatus.FAILED, service.findTicket(second.getTicketId()).getStatus());
+        assertEquals("Sorry No driver Available just now...", service.findTicket(second.getTicketId()).getMessage());
+
+        verify(cdao, times(2)).findById(1);
+        verify(tripService, never()).AddTrip(any());
+    }
+
+    @Test
+    public void testUnfinishedBatchBookingsCountAgainstCapacity() throws InterruptedException {
+        stubBatchWindows();
+
+        // 容量 = 1个线程 + 2个队列位置
+        for (int i = 0; i < 3; i++)
+            service.submit(booking());
+        awaitSubmitted(3);
+        assertThrows(BookingQueueFullException.class, () -> service.submit(booking()));
+        assertEquals(1, service.queueStats().getRejected());
+
+        windows.get(0).complete(new TripBooking());
+        BookingTicket accepted = service.submit(booking());
+        assertTrue(accepted.getTicketId() != null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.masai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.TestData;
+import com.masai.dispatch.AvailableDriver;
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.dispatch.DriverAvailabilityTracker;
+import com.masai.entity.Cab;
+import com.masai.entity.Driver;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class CabServiceImplTest {
+
+    @Autowired
+    private CabService cabService;
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private DriverAvailabilityTracker tracker;
+
+    @Autowired
+    private CabTypeRegistry cabTypes;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean availableInDb(Integer driverId) {
+        return jdbcTemplate.queryForObject("select available from driver where driver_id = ?", Boolean.class, driverId);
+    }
+
+    @Test
+    public void testCabUpdateMovesIndexedDriverToNewType() {
+        Driver driver = driverService.insertDriver(TestData.driver("CabOld", "pune", 18.52, 73.85));
+
+        Cab updated = cabService.updateCab(driver.getCab().getCabId(), "CabNew", 25);
+
+        assertEquals("CabNew", updated.getCarType());
+        assertEquals(0, cabTypes.availableCount("CabOld"));
+        assertEquals(1, cabTypes.availableCount("CabNew"));
+        List<AvailableDriver> nearest = tracker.nearestAvailable(18.52, 73.85, "CabNew", 1);
+        assertEquals(1, nearest.size());
+        assertEquals(driver.getUserId(), nearest.get(0).getDriverId());
+        assertEquals(25, nearest.get(0).getRatePerKm(), "计价用的费率一起更新");
+        assertEquals("CabNew", jdbcTemplate.queryForObject("select car_type from cab where cab_id = ?", String.class, driver.getCab().getCabId()));
+        assertTrue(availableInDb(driver.getUserId()));
+    }
+
+    @Test
+    public void testCabUpdateDuringReserveKeepsDriverReserved() throws Exception {
+        Driver driver = driverService.insertDriver(TestData.driver("CabRace", "pune", 18.52, 73.85));
+        Integer cabId = driver.getCab().getCabId();
+
+        // 占用的事务还没提交时另一个线程修改车辆
+        CompletableFuture<Cab> changed = transactionTemplate.execute(status -> {
+            AvailableDriver reserved = tracker.reserveNearest(18.52, 73.85, "CabRace");
+            assertNotNull(reserved);
+            CompletableFuture<Cab> update = CompletableFuture.supplyAsync(() -> cabService.updateCab(cabId, "CabRaceNew", 30));
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return update;
+        });
+
+        assertEquals("CabRaceNew", changed.get(10, TimeUnit.SECONDS).getCarType());
+        assertFalse(availableInDb(driver.getUserId()), "修改车辆不能把占用前读到的 available 写回去");
+        assertEquals(0, cabTypes.availableCount("CabRaceNew"), "已占用的司机不会因为换车回到索引");
+        assertTrue(tracker.nearestAvailable(18.52, 73.85, "CabRaceNew", 1).isEmpty());
+    }
+}
@@ -0,0 +1,248 @@
+package com.masai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.auth.UserType;
+import com.masai.auth.UserTypeDirectory;
+import com.masai.dispatch.CabTypeRegistry;
+import com.masai.dispatch.DriverAvailabilityTracker;
+import com.masai.dto.request.DriverRequest;
+import com.masai.dto.response.ImportReport;
+import com.masai.dto.response.ImportRowError;
+import com.masai.entity.Cab;
+import com.masai.entity.Driver;
+import com.masai.mapper.DtoMapper;
+import com.masai.pricing.PricingEngine;
+import com.masai.repository.DriverDao;
+
+/**
+ * 数据库、映射和校验都用mock，事务用只做同步回调的假事务管理器，只验证分批、回退和报告的逻辑
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class DriverImportServiceImplTest {
+
+    @Mock
+    private DriverDao dDao;
+
+    @Mock
+    private DtoMapper mapper;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private UserTypeDirectory userTypes;
+
+    @Mock
+    private DriverAvailabilityTracker tracker;
+
+    @Mock
+    private CabTypeRegistry cabTypes;
+
+    @Mock
+    private PricingEngine pricing;
+
+    @InjectMocks
+    private DriverImportServiceImpl service;
+
+    private final AtomicInteger ids = new AtomicInteger(100);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(new SynchronizingTransactionManager()));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxErrors", 10);
+
+        doReturn(Collections.emptySet()).when(validator).validate(any());
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(dDao.findExistingEmails(anyCollection())).thenReturn(Collections.emptyList());
+        when(mapper.toDriverEntity(any())).thenAnswer(invocation -> driver(invocation.getArgument(0)));
+        when(dDao.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Driver> drivers = invocation.getArgument(0);
+            drivers.forEach(driver -> driver.setUserId(ids.incrementAndGet()));
+            return drivers;
+        });
+        when(dDao.save(any(Driver.class))).thenAnswer(invocation -> {
+            Driver driver = invocation.getArgument(0);
+            driver.setUserId(ids.incrementAndGet());
+            return driver;
+        });
+    }
+
+    private static Driver driver(DriverRequest request) {
+        Driver driver = new Driver();
+        driver.setEmail(request.getEmail());
+        if (request.getCab() != null && request.getCab().getCarType() != null) {
+            Cab cab = new Cab();
+            cab.setCarType(request.getCab().getCarType());
+            driver.setCab(cab);
+        }
+        return driver;
+    }
+
+    private ImportReport importCsv(String... emails) throws IOException {
+        StringBuilder csv = new StringBuilder("email,carType\n");
+        for (String email : emails)
+            csv.append(email).append(",Sedan\n");
+        return service.importDrivers(new StringReader(csv.toString()), true);
+    }
+
+    private static List<Integer> errorLines(ImportReport report) {
+        return report.getErrors().stream().map(ImportRowError::getLine).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFailedChunkRetriedRowByRow() throws IOException {
+        // 第二批里的 c@x.com 被并发注册了，整批回滚后逐行重试
+        when(dDao.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Driver> drivers = invocation.getArgument(0);
+            if (drivers.stream().anyMatch(driver -> "c@x.com".equals(driver.getEmail())))
+                throw new DataIntegrityViolationException("Duplicate entry 'c@x.com' for key 'uk_user_email'");
+            drivers.forEach(driver -> driver.setUserId(ids.incrementAndGet()));
+            return drivers;
+        });
+        when(dDao.save(any(Driver.class))).thenAnswer(invocation -> {
+            Driver driver = invocation.getArgument(0);
+            if ("c@x.com".equals(driver.getEmail()))
+                throw new DataIntegrityViolationException("Duplicate entry 'c@x.com' for key 'uk_user_email'");
+            driver.setUserId(ids.incrementAndGet());
+            return driver;
+        });
+
+        ImportReport report = importCsv("a@x.com", "b@x.com", "c@x.com", "d@x.com", "e@x.com");
+
+        assertEquals(5, report.getReceived());
+        assertEquals(4, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(Collections.singletonList(4), errorLines(report), "表头占第1行");
+        assertTrue(report.getErrors().get(0).getMessage().contains("c@x.com"));
+        verify(dDao, times(3)).saveAll(anyList());
+        verify(dDao, times(2)).save(any(Driver.class));
+        verify(userTypes, times(4)).put(any(), any());
+    }
+
+    @Test
+    public void testDuplicateEmailsInFileAndDatabase() throws IOException {
+        when(dDao.findExistingEmails(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> emails = invocation.getArgument(0);
+            return emails.contains("taken@x.com") ? Collections.singletonList("TAKEN@x.com") : Collections.emptyList();
+        });
+
+        // 同一批里大小写不同的重复、跨批的重复、数据库里已有的邮箱
+        ImportReport report = importCsv("a@x.com", "A@X.com", "b@x.com", "c@x.com", "a@x.com", "taken@x.com", "d@x.com");
+
+        assertEquals(7, report.getReceived());
+        assertEquals(4, report.getImported());
+        assertEquals(3, report.getFailed());
+        assertEquals(Arrays.asList(3, 6, 7), errorLines(report));
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Duplicate email in file"));
+        assertTrue(report.getErrors().get(1).getMessage().startsWith("Duplicate email in file"));
+        assertTrue(report.getErrors().get(2).getMessage().startsWith("Email already registered"));
+        verify(dDao, never()).save(any(Driver.class));
+    }
+
+    @Test
+    public void testErrorReportIsCapped() throws IOException {
+        ReflectionTestUtils.setField(service, "maxErrors", 2);
+
+        ImportReport report = importCsv("a@x.com", "a@x.com", "a@x.com", "a@x.com", "a@x.com");
+
+        assertEquals(1, report.getImported());
+        assertEquals(4, report.getFailed(), "超出上限的错误仍然计数");
+        assertEquals(Arrays.asList(3, 4), errorLines(report), "只保留最前面的错误");
+    }
+
+    @Test
+    public void testImportedDriversReachDirectoryAndTracker() throws IOException {
+        ImportReport report = importCsv("a@x.com", "b@x.com", "c@x.com");
+
+        assertEquals(3, report.getImported());
+        for (int id = 101; id <= 103; id++)
+            verify(userTypes).put(id, UserType.DRIVER);
+        verify(tracker, times(3)).driverChanged(any(Driver.class));
+        verify(cabTypes, times(3)).cabAdded("Sedan");
+        verify(pricing, times(1)).refresh();
+    }
+
+    @Test
+    public void testNothingImportedSkipsRefresh() throws IOException {
+        when(dDao.findExistingEmails(anyCollection())).thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<String>>getArgument(0)));
+
+        ImportReport report = importCsv("a@x.com", "b@x.com");
+
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getFailed());
+        verify(tracker, never()).driverChanged(any());
+        verify(pricing, never()).refresh();
+    }
+
+    /**
+     * 不连数据库，只负责开启事务同步，让提交或回滚后的回调照常执行
+     */
+    private static class SynchronizingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
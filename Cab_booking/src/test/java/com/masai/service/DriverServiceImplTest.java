@@ -0,0 +1,94 @@
+package com.masai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.TestData;
+import com.masai.dispatch.AvailableDriver;
+import com.masai.dispatch.DriverAvailabilityTracker;
+import com.masai.entity.Driver;
+import com.masai.exception.DriverNotFoundException;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class DriverServiceImplTest {
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private DriverAvailabilityTracker tracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean availableInDb(Integer driverId) {
+        return jdbcTemplate.queryForObject("select available from driver where driver_id = ?", Boolean.class, driverId);
+    }
+
+    @Test
+    public void testLocationUpdateDuringReserveKeepsDriverReserved() throws Exception {
+        Integer driverId = driverService.insertDriver(TestData.driver("LocRace", "pune", 18.52, 73.85)).getUserId();
+
+        // 占用的事务还没提交时另一个线程上报位置，它的 UPDATE 要等占用提交
+        CompletableFuture<Driver> moved = transactionTemplate.execute(status -> {
+            AvailableDriver reserved = tracker.reserveNearest(18.52, 73.85, "LocRace");
+            assertNotNull(reserved);
+            CompletableFuture<Driver> update = CompletableFuture.supplyAsync(() -> driverService.updateDriverLocation(driverId, 18.60, 73.90));
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return update;
+        });
+
+        Driver driver = moved.get(10, TimeUnit.SECONDS);
+        assertEquals(18.60, driver.getLatitude());
+        assertFalse(driver.getAvailable(), "位置更新不能把占用前读到的 available 写回去");
+        assertFalse(availableInDb(driverId));
+        assertTrue(tracker.nearestAvailable(18.60, 73.90, "LocRace", 1).isEmpty(), "已占用的司机不会因为上报位置回到索引");
+    }
+
+    @Test
+    public void testLocationUpdateMovesIndexedDriver() {
+        Integer driverId = driverService.insertDriver(TestData.driver("LocMove", "pune", 18.52, 73.85)).getUserId();
+
+        driverService.updateDriverLocation(driverId, 19.07, 72.87);
+
+        List<AvailableDriver> nearest = tracker.nearestAvailable(19.07, 72.87, "LocMove", 1);
+        assertEquals(1, nearest.size());
+        assertEquals(driverId, nearest.get(0).getDriverId());
+        assertEquals(19.07, nearest.get(0).getLatitude());
+        assertTrue(availableInDb(driverId));
+
+        // 上报位置后仍然只能被占用一次
+        AvailableDriver reserved = transactionTemplate.execute(status -> tracker.reserveNearest(19.07, 72.87, "LocMove"));
+        assertEquals(driverId, reserved.getDriverId());
+        driverService.updateDriverLocation(driverId, 18.52, 73.85);
+        assertTrue(tracker.nearestAvailable(18.52, 73.85, "LocMove", 1).isEmpty());
+        assertFalse(availableInDb(driverId));
+    }
+
+    @Test
+    public void testLocationOfUnknownDriver() {
+        assertThrows(DriverNotFoundException.class, () -> driverService.updateDriverLocation(Integer.MAX_VALUE, 18.52, 73.85));
+    }
+}
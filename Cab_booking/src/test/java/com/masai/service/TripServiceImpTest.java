@@ -0,0 +1,107 @@
+package com.masai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.TestData;
+import com.masai.dto.response.PageResponse;
+import com.masai.dto.response.TripResponse;
+import com.masai.entity.TripBooking;
+import com.masai.repository.DriverDao;
+import com.masai.repository.TripDao;
+
+/**
+ * 行程列表的抓取计划：一页行程连同司机、车辆、地址只发一条SQL，不随行数增加
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class TripServiceImpTest {
+
+    private static final int TRIPS = 4;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private DriverDao driverDao;
+
+    @Autowired
+    private TripDao tripDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        // 每个行程一个不同的司机，有N+1的话语句数会随行程数增长
+        for (int i = 0; i < TRIPS; i++) {
+            Integer driverId = driverService.insertDriver(TestData.driver("FetchPlan", "pune", 18.52, 73.85)).getUserId();
+            transactionTemplate.execute(status -> {
+                TripBooking trip = TestData.trip(1, "FetchPlan", 18.52, 73.85);
+                trip.setDriver(driverDao.findById(driverId).get());
+                return tripDao.save(trip);
+            });
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // 二级缓存里的司机、车辆、地址会掩盖缺失的连接抓取
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    private static void assertDriverGraphLoaded(List<TripBooking> trips) {
+        assertTrue(trips.size() >= TRIPS);
+        for (TripBooking trip : trips) {
+            assertNotNull(trip.getDriver());
+            assertTrue(Hibernate.isInitialized(trip.getDriver().getCab()));
+            assertTrue(Hibernate.isInitialized(trip.getDriver().getAddress()));
+        }
+    }
+
+    @Test
+    public void testTripPageIsOneStatement() {
+        PageResponse<TripBooking> page = tripService.tripPage(null, 500);
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "行程、司机、车辆、地址一次连接取回");
+        assertDriverGraphLoaded(page.getItems());
+    }
+
+    @Test
+    public void testAllTripsIsOneStatement() {
+        List<TripBooking> trips = tripService.alltrip();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertDriverGraphLoaded(trips);
+    }
+
+    @Test
+    public void testSummaryPageIsOneStatement() {
+        PageResponse<TripResponse> page = tripService.tripSummaryPage(null, 500);
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "投影不加载实体");
+        assertTrue(page.getItems().stream().filter(trip -> "FetchPlan".equals(trip.getCarType())).count() >= TRIPS, "车型随投影一起取回");
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}